@@ -0,0 +1,153 @@
+package com.sweetshop.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hibernate second-level and query cache regions held in this JVM.
+ *
+ * Entity and query result regions are {@link TinyLfuCache}s of up to
+ * {@code maxEntriesPerRegion} entries each. The update timestamps region, which Hibernate
+ * checks to tell whether a cached query result is older than a write to one of its tables,
+ * is a plain map: dropping an entry from it could let a stale result through.
+ *
+ * Each entity and query region publishes {@code sweetshop.hibernate.cache.*} meters tagged
+ * with the region name. An instance is handed to Hibernate as its region factory by
+ * {@code HibernateCacheConfig}.
+ */
+public class EmbeddedRegionFactory extends RegionFactoryTemplate {
+
+    private final long maxEntriesPerRegion;
+    private final MeterRegistry meterRegistry;
+
+    public EmbeddedRegionFactory(long maxEntriesPerRegion, MeterRegistry meterRegistry) {
+        this.maxEntriesPerRegion = maxEntriesPerRegion;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return new RegionStorage(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new RegionStorage(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new TimestampsStorage();
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+    }
+
+    private final class RegionStorage implements DomainDataStorageAccess {
+
+        private final TinyLfuCache<Object, Object> cache = new TinyLfuCache<>(maxEntriesPerRegion);
+
+        RegionStorage(String regionName) {
+            FunctionCounter.builder("sweetshop.hibernate.cache.requests", cache, TinyLfuCache::hitCount)
+                .tags("region", regionName, "result", "hit")
+                .description("Second-level cache reads answered by the region")
+                .register(meterRegistry);
+            FunctionCounter.builder("sweetshop.hibernate.cache.requests", cache, TinyLfuCache::missCount)
+                .tags("region", regionName, "result", "miss")
+                .description("Second-level cache reads that went to the database")
+                .register(meterRegistry);
+            FunctionCounter.builder("sweetshop.hibernate.cache.evictions", cache, TinyLfuCache::evictionCount)
+                .tag("region", regionName)
+                .description("Region entries evicted, or turned away, to stay within the size limit")
+                .register(meterRegistry);
+            Gauge.builder("sweetshop.hibernate.cache.size", cache, TinyLfuCache::size)
+                .tag("region", regionName)
+                .description("Entries held by the region")
+                .register(meterRegistry);
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return cache.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            cache.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return cache.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            cache.invalidateAll();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            cache.invalidate(key);
+        }
+
+        @Override
+        public void release() {
+            cache.invalidateAll();
+        }
+    }
+
+    private static final class TimestampsStorage implements StorageAccess {
+
+        private final Map<Object, Object> timestamps = new ConcurrentHashMap<>();
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return timestamps.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            timestamps.put(key, value);
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return timestamps.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            timestamps.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            timestamps.remove(key);
+        }
+
+        @Override
+        public void release() {
+            timestamps.clear();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.sweetshop.cache;
+
+/**
+ * Approximate access counts for {@link TinyLfuCache}'s admission decisions.
+ *
+ * A count-min sketch: four rows of small saturating counters, each key hashed to one counter
+ * per row, and the estimate is the smallest of the four. Rows are four counters wide per
+ * expected entry, which keeps collisions rare. Once the number of increments reaches ten
+ * times the expected entries every counter is halved, so old popularity fades and a key
+ * that was hot an hour ago does not keep its place forever.
+ *
+ * Not thread-safe; the cache guards access.
+ */
+final class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {
+        0x97CB3127L, 0xB1AF7F3BL, 0xDB2B6ECFL, 0xA62E8F6DL
+    };
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(long expectedEntries) {
+        int entries = (int) Math.max(16, Math.min(expectedEntries, 1 << 20));
+        int width = Integer.highestOneBit(entries - 1) << 3;
+        this.counters = new byte[ROWS][width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * entries;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < ROWS; row++) {
+            int at = index(hash, row);
+            if (counters[row][at] < MAX_COUNT) {
+                counters[row][at]++;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            age();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            min = Math.min(min, counters[row][index(hash, row)]);
+        }
+        return min;
+    }
+
+    private void age() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+}
@@ -0,0 +1,109 @@
+package com.sweetshop.cache;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-through cache in front of a lookup by key, backed by a {@link TinyLfuCache}.
+ *
+ * On a miss the caller runs the loader itself. Callers that miss on the same key while that
+ * load is running wait for its result instead of issuing their own, so a popular key that
+ * has just been dropped costs one query, not one per request. Missing values are not
+ * cached.
+ *
+ * Every invalidation bumps a version number, and a load that started before an
+ * invalidation hands its result to the waiting callers without storing it, so a read that
+ * raced a write cannot put the old value back.
+ */
+public class NearCache<K, V> {
+
+    private final TinyLfuCache<K, V> cache;
+    private final ConcurrentHashMap<K, CompletableFuture<Optional<V>>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder coalesced = new LongAdder();
+
+    public NearCache(long maximumSize) {
+        this.cache = new TinyLfuCache<>(maximumSize);
+    }
+
+    public NearCache(long maximumWeight, ToIntFunction<V> weigher) {
+        this.cache = new TinyLfuCache<>(maximumWeight, weigher);
+    }
+
+    /**
+     * Returns the cached value for {@code key}, or loads it with {@code loader}.
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        V cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        CompletableFuture<Optional<V>> mine = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return join(running);
+        }
+        long startedAt = version.get();
+        try {
+            Optional<V> loaded = loader.apply(key);
+            if (loaded.isPresent() && version.get() == startedAt) {
+                cache.put(key, loaded.get());
+            }
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    public void invalidate(K key) {
+        version.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public int invalidateIf(BiPredicate<K, V> predicate) {
+        version.incrementAndGet();
+        return cache.invalidateIf(predicate);
+    }
+
+    public void invalidateAll() {
+        version.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public TinyLfuCache<K, V> entries() {
+        return cache;
+    }
+
+    /**
+     * Misses that waited for another caller's load of the same key.
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> Optional<V> join(CompletableFuture<Optional<V>> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
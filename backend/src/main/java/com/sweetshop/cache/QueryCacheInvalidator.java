@@ -0,0 +1,70 @@
+package com.sweetshop.cache;
+
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockAlertEvent;
+import com.sweetshop.inventory.StockAlerts;
+import com.sweetshop.inventory.StockFlushedEvent;
+import com.sweetshop.repository.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops cached query results that depend on stock.
+ *
+ * Hibernate invalidates a cached query when a write through JPA touches one of its tables,
+ * but purchases, flash sales, restocks and ledger flushes change {@code sweets.quantity}
+ * with plain SQL. The only cached query reading stock is the list of categories with
+ * sweets in stock, which can only change when a sweet runs out or comes back, so its
+ * region is evicted on those {@link StockAlertEvent}s. With the inventory ledger enabled,
+ * the alert arrives before the row holds the new stock, so the region is evicted once more
+ * when the ledger flushes that sweet.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.hibernate-cache", name = "enabled", havingValue = "true")
+public class QueryCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean ledgerEnabled;
+    // Sweets that ran out or came back in the ledger but not yet in sweets.quantity
+    private final Set<Long> awaitingFlush = ConcurrentHashMap.newKeySet();
+
+    public QueryCacheInvalidator(EntityManagerFactory entityManagerFactory,
+                                 Optional<InventoryLedger> inventoryLedger) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.ledgerEnabled = inventoryLedger.isPresent();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockAlert(StockAlertEvent event) {
+        if (event.getPrevious() == StockAlerts.Level.OUT || event.getCurrent() == StockAlerts.Level.OUT) {
+            if (ledgerEnabled) {
+                awaitingFlush.add(event.getSweetId());
+            }
+            evictCategoriesWithSweets();
+        }
+    }
+
+    // Already committed when published, so there is no transaction to wait for
+    @EventListener
+    public void onStockFlushed(StockFlushedEvent event) {
+        boolean crossed = false;
+        for (Long sweetId : event.getSweetIds()) {
+            crossed |= awaitingFlush.remove(sweetId);
+        }
+        if (crossed) {
+            evictCategoriesWithSweets();
+        }
+    }
+
+    private void evictCategoriesWithSweets() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache()
+            .evictQueryRegion(CategoryRepository.CATEGORIES_WITH_SWEETS_REGION);
+    }
+}
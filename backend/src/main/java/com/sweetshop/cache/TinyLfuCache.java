@@ -0,0 +1,249 @@
+package com.sweetshop.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded in-memory cache with W-TinyLFU eviction.
+ *
+ * New entries land in a small LRU window (1% of the weight). Entries pushed out of the
+ * window join the main area only if a {@link FrequencySketch} says they have been asked for
+ * more often than the entry they would displace, so a burst of one-off keys cannot flush
+ * the popular ones. The main area is a segmented LRU: entries read again while on probation
+ * move to the protected segment (80% of the main area) and drop back when it overflows.
+ *
+ * Entries are weighed with the given function and the total is kept under
+ * {@code maximumWeight}. Hit, miss and eviction counts are kept for metrics. All operations
+ * take the cache's lock; they are constant time apart from {@link #invalidateIf}.
+ */
+public class TinyLfuCache<K, V> {
+
+    private enum Segment { WINDOW, PROBATION, PROTECTED }
+
+    private static final class Node<K, V> {
+        final K key;
+        V value;
+        int weight;
+        Segment segment;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.segment = Segment.WINDOW;
+        }
+    }
+
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final ToIntFunction<V> weigher;
+    private final FrequencySketch sketch;
+
+    private final Map<K, Node<K, V>> data = new HashMap<>();
+    // Access-ordered, so the first entry of each segment is its least recently used
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLfuCache(long maximumWeight, ToIntFunction<V> weigher) {
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight / 100);
+        this.protectedMaximum = (maximumWeight - windowMaximum) * 4 / 5;
+        this.weigher = weigher;
+        this.sketch = new FrequencySketch(maximumWeight);
+    }
+
+    /**
+     * Cache holding up to {@code maximumSize} entries.
+     */
+    public TinyLfuCache(long maximumSize) {
+        this(maximumSize, value -> 1);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        switch (node.segment) {
+            case WINDOW -> window.get(key);
+            case PROTECTED -> protectedSegment.get(key);
+            case PROBATION -> {
+                probation.remove(key);
+                probationWeight -= node.weight;
+                node.segment = Segment.PROTECTED;
+                protectedSegment.put(key, node);
+                protectedWeight += node.weight;
+                while (protectedWeight > protectedMaximum && protectedSegment.size() > 1) {
+                    Node<K, V> demoted = removeFirst(protectedSegment);
+                    protectedWeight -= demoted.weight;
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.key, demoted);
+                    probationWeight += demoted.weight;
+                }
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Adds or replaces the entry for {@code key}. A value heavier than the whole cache is not
+     * stored, and any previous entry for the key is dropped.
+     */
+    public synchronized void put(K key, V value) {
+        int weight = weigher.applyAsInt(value);
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            unlink(existing);
+        }
+        if (weight > maximumWeight) {
+            return;
+        }
+        Node<K, V> node = new Node<>(key, value, weight);
+        data.put(key, node);
+        window.put(key, node);
+        windowWeight += weight;
+        evict();
+    }
+
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.get(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Removes every entry matching {@code predicate} and returns how many were removed.
+     */
+    public synchronized int invalidateIf(BiPredicate<K, V> predicate) {
+        int removed = 0;
+        for (Iterator<Node<K, V>> it = data.values().iterator(); it.hasNext(); ) {
+            Node<K, V> node = it.next();
+            if (predicate.test(node.key, node.value)) {
+                it.remove();
+                segment(node.segment).remove(node.key);
+                adjust(node.segment, -node.weight);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public synchronized void invalidateAll() {
+        data.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        windowWeight = 0;
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    /**
+     * Whether {@code key} is cached, without counting a request or touching its recency.
+     */
+    public synchronized boolean containsKey(K key) {
+        return data.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return data.size();
+    }
+
+    public synchronized long weight() {
+        return windowWeight + probationWeight + protectedWeight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node<K, V> candidate = removeFirst(window);
+            windowWeight -= candidate.weight;
+            admit(candidate);
+        }
+    }
+
+    // The window's oldest entry displaces main-area entries only while it is the more popular
+    private void admit(Node<K, V> candidate) {
+        long mainMaximum = maximumWeight - windowMaximum;
+        while (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+            LinkedHashMap<K, Node<K, V>> victims = probation.isEmpty() ? protectedSegment : probation;
+            if (victims.isEmpty()) {
+                break;
+            }
+            Node<K, V> victim = victims.values().iterator().next();
+            if (sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                data.remove(candidate.key);
+                evictions.increment();
+                return;
+            }
+            unlink(victim);
+            evictions.increment();
+        }
+        if (probationWeight + protectedWeight + candidate.weight > mainMaximum) {
+            data.remove(candidate.key);
+            evictions.increment();
+            return;
+        }
+        candidate.segment = Segment.PROBATION;
+        probation.put(candidate.key, candidate);
+        probationWeight += candidate.weight;
+    }
+
+    private void unlink(Node<K, V> node) {
+        data.remove(node.key);
+        segment(node.segment).remove(node.key);
+        adjust(node.segment, -node.weight);
+    }
+
+    private LinkedHashMap<K, Node<K, V>> segment(Segment segment) {
+        return switch (segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private void adjust(Segment segment, long delta) {
+        switch (segment) {
+            case WINDOW -> windowWeight += delta;
+            case PROBATION -> probationWeight += delta;
+            case PROTECTED -> protectedWeight += delta;
+        }
+    }
+
+    private static <K, V> Node<K, V> removeFirst(LinkedHashMap<K, Node<K, V>> segment) {
+        Iterator<Node<K, V>> it = segment.values().iterator();
+        Node<K, V> first = it.next();
+        it.remove();
+        return first;
+    }
+}
@@ -0,0 +1,53 @@
+package com.sweetshop.catalog;
+
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+
+/**
+ * The optional in-memory catalog structures, each switched on by its own
+ * {@code app.catalog.*.enabled} property, gathered so services take one collaborator
+ * instead of a positional {@code Optional} per structure. A structure that is switched
+ * off is {@link Optional#empty()}, and callers fall back to the repositories.
+ */
+@Component
+public class CatalogAccelerators {
+
+    private static final CatalogAccelerators NONE = new CatalogAccelerators(Optional.empty(), Optional.empty(),
+        Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty());
+
+    private final Optional<CatalogTextIndex> textIndex;
+    private final Optional<CatalogBitmapIndex> bitmapIndex;
+    private final Optional<FuzzyMatcher> fuzzyMatcher;
+    private final Optional<CatalogColumns> columns;
+    private final Optional<SearchResultCache> searchCache;
+    private final Optional<CatalogNearCache> nearCache;
+    private final Optional<CatalogChangeLog> changeLog;
+
+    public CatalogAccelerators(Optional<CatalogTextIndex> textIndex, Optional<CatalogBitmapIndex> bitmapIndex,
+                               Optional<FuzzyMatcher> fuzzyMatcher, Optional<CatalogColumns> columns,
+                               Optional<SearchResultCache> searchCache, Optional<CatalogNearCache> nearCache,
+                               Optional<CatalogChangeLog> changeLog) {
+        this.textIndex = textIndex;
+        this.bitmapIndex = bitmapIndex;
+        this.fuzzyMatcher = fuzzyMatcher;
+        this.columns = columns;
+        this.searchCache = searchCache;
+        this.nearCache = nearCache;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Every structure switched off, as with all {@code app.catalog.*.enabled=false}.
+     */
+    public static CatalogAccelerators none() {
+        return NONE;
+    }
+
+    public Optional<CatalogTextIndex> textIndex() { return textIndex; }
+    public Optional<CatalogBitmapIndex> bitmapIndex() { return bitmapIndex; }
+    public Optional<FuzzyMatcher> fuzzyMatcher() { return fuzzyMatcher; }
+    public Optional<CatalogColumns> columns() { return columns; }
+    public Optional<SearchResultCache> searchCache() { return searchCache; }
+    public Optional<CatalogNearCache> nearCache() { return nearCache; }
+    public Optional<CatalogChangeLog> changeLog() { return changeLog; }
+}
@@ -0,0 +1,381 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.dto.FacetCountDto;
+import com.sweetshop.dto.SearchFacetsDto;
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory bitmap index over the catalog, for filtering and facet counts.
+ *
+ * Every sweet has a dense ordinal, and each filterable value (a category, a price bucket,
+ * "in stock") is a {@link RoaringBitmap} of ordinals. A search turns each filter into a
+ * bitmap, ANDs them, and hands back the matching ids so only those rows are loaded. Prices
+ * are kept per ordinal in cents: buckets wholly inside a price range are ORed in as they
+ * are, and only the edge buckets are checked sweet by sweet.
+ *
+ * Facet counts use the same bitmaps; each facet ignores its own filter, so a sidebar can
+ * still show the other categories or price ranges with their counts.
+ *
+ * Kept current from catalog, category and stock events; a periodic resync corrects drift.
+ * Enabled with {@code app.catalog.bitmap-index.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.bitmap-index", name = "enabled", havingValue = "true")
+public class CatalogBitmapIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogBitmapIndex.class);
+
+    private final SweetRepository sweetRepository;
+    private final CategoryRepository categoryRepository;
+    private final Optional<InventoryLedger> inventoryLedger;
+    // Lower bounds of the price buckets, in cents; the last bucket is open-ended
+    private final long[] bucketFloors;
+    private final int maxCandidates;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<Long, String> categoryNames = new LinkedHashMap<>();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private RoaringBitmap[] byBucket;
+    private RoaringBitmap live;
+    private RoaringBitmap available;
+    private long[] ids;
+    private long[] priceCents;
+    private long[] categoryIds;
+    private int[] quantities;
+    private int nextOrdinal;
+    private volatile boolean ready;
+
+    public CatalogBitmapIndex(SweetRepository sweetRepository,
+                              CategoryRepository categoryRepository,
+                              Optional<InventoryLedger> inventoryLedger,
+                              @Value("${app.catalog.bitmap-index.price-buckets:0,2,5,10,20}") String priceBuckets,
+                              @Value("${app.catalog.bitmap-index.max-candidates:1000}") int maxCandidates) {
+        this.sweetRepository = sweetRepository;
+        this.categoryRepository = categoryRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.bucketFloors = Arrays.stream(priceBuckets.split(","))
+            .map(String::trim)
+            .mapToLong(floor -> cents(new BigDecimal(floor)))
+            .sorted()
+            .toArray();
+        this.maxCandidates = maxCandidates;
+        reset(1024);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.bitmap-index.resync-interval-ms:300000}",
+               initialDelayString = "${app.catalog.bitmap-index.resync-interval-ms:300000}")
+    public void resync() {
+        List<Category> categories = categoryRepository.findAll();
+        List<Sweet> sweets = sweetRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            reset(Math.max(1024, sweets.size()));
+            for (Category category : categories) {
+                categoryNames.put(category.getId(), category.getName());
+            }
+            for (Sweet sweet : sweets) {
+                put(sweet, inventoryLedger.map(ledger -> ledger.available(sweet.getId())).orElse(sweet.getQuantity()));
+            }
+            ready = true;
+            log.debug("Catalog bitmap index resynced: {} sweets, {} categories", ordinals.size(), categoryNames.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == CatalogChangedEvent.Type.DELETED) {
+                remove(event.getSweetId());
+            } else {
+                put(event.getSweet(), event.getSweet().getQuantity());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == CategoryChangedEvent.Type.DELETED) {
+                categoryNames.remove(event.getCategoryId());
+                byCategory.remove(event.getCategoryId());
+            } else {
+                categoryNames.put(event.getCategoryId(), event.getCategory().getName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sweets not seen yet are added by their catalog event, which carries the full row
+    @Order(CatalogListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getCause() == StockChangedEvent.Cause.DELETED || event.getDelta() == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(event.getSweetId());
+            if (ordinal != null) {
+                quantities[ordinal] += event.getDelta();
+                available.set(ordinal, quantities[ordinal] > 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the sweets matching every filter in {@code criteria}, in ordinal order, or
+     * empty when more than {@code app.catalog.bitmap-index.max-candidates} match and the
+     * database is better placed to page through them. {@code nameMatches} are the ids
+     * matching the name term, or null when the search has no name term.
+     */
+    public Optional<List<Long>> match(SweetSearchCriteria criteria, Collection<Long> nameMatches) {
+        lock.readLock().lock();
+        try {
+            Masks masks = masks(criteria, nameMatches);
+            RoaringBitmap matching = and(live, masks.name, masks.category, masks.price, masks.stock);
+            if (matching.cardinality() > maxCandidates) {
+                return Optional.empty();
+            }
+            List<Long> matches = new ArrayList<>(matching.cardinality());
+            matching.forEach(ordinal -> matches.add(ids[ordinal]));
+            return Optional.of(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts per category, per price bucket and in stock over the sweets matching
+     * {@code criteria}, with {@code nameMatches} as for {@link #match}.
+     */
+    public SearchFacetsDto facets(SweetSearchCriteria criteria, Collection<Long> nameMatches) {
+        lock.readLock().lock();
+        try {
+            Masks masks = masks(criteria, nameMatches);
+            long total = and(live, masks.name, masks.category, masks.price, masks.stock).cardinality();
+
+            RoaringBitmap withoutCategory = and(live, masks.name, masks.price, masks.stock);
+            List<FacetCountDto> categoryFacets = new ArrayList<>();
+            for (Map.Entry<Long, RoaringBitmap> entry : byCategory.entrySet()) {
+                int count = withoutCategory.andCardinality(entry.getValue());
+                if (count > 0) {
+                    Long id = entry.getKey();
+                    categoryFacets.add(new FacetCountDto(String.valueOf(id), categoryNames.getOrDefault(id, ""), count));
+                }
+            }
+            categoryFacets.sort(Comparator.comparingLong(FacetCountDto::getCount).reversed()
+                .thenComparing(FacetCountDto::getLabel));
+
+            RoaringBitmap withoutPrice = and(live, masks.name, masks.category, masks.stock);
+            List<FacetCountDto> bucketFacets = new ArrayList<>(byBucket.length);
+            for (int b = 0; b < byBucket.length; b++) {
+                bucketFacets.add(new FacetCountDto(bucketKey(b), bucketKey(b), withoutPrice.andCardinality(byBucket[b])));
+            }
+
+            long inStock = and(live, masks.name, masks.category, masks.price).andCardinality(available);
+            return new SearchFacetsDto(categoryFacets, bucketFacets, inStock, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // One bitmap per active filter; null means the filter is not set
+    private static final class Masks {
+        RoaringBitmap name;
+        RoaringBitmap category;
+        RoaringBitmap price;
+        RoaringBitmap stock;
+    }
+
+    private Masks masks(SweetSearchCriteria criteria, Collection<Long> nameMatches) {
+        Masks masks = new Masks();
+        if (nameMatches != null) {
+            masks.name = new RoaringBitmap();
+            for (Long sweetId : nameMatches) {
+                Integer ordinal = ordinals.get(sweetId);
+                if (ordinal != null) {
+                    masks.name.add(ordinal);
+                }
+            }
+        }
+        if (criteria.getCategoryId() != null) {
+            masks.category = byCategory.getOrDefault(criteria.getCategoryId(), new RoaringBitmap());
+        }
+        if (criteria.getMinPrice() != null || criteria.getMaxPrice() != null) {
+            masks.price = priceMask(criteria.getMinPrice(), criteria.getMaxPrice());
+        }
+        if (criteria.isOnlyAvailable()) {
+            masks.stock = available;
+        }
+        return masks;
+    }
+
+    private static RoaringBitmap and(RoaringBitmap base, RoaringBitmap... masks) {
+        RoaringBitmap result = base;
+        for (RoaringBitmap mask : masks) {
+            if (mask != null) {
+                result = result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap priceMask(BigDecimal min, BigDecimal max) {
+        long low = min == null ? Long.MIN_VALUE : cents(min);
+        long high = max == null ? Long.MAX_VALUE : cents(max);
+        RoaringBitmap mask = new RoaringBitmap();
+        for (int b = 0; b < byBucket.length; b++) {
+            long floor = bucketFloors[b];
+            long ceiling = b + 1 < bucketFloors.length ? bucketFloors[b + 1] - 1 : Long.MAX_VALUE;
+            if (ceiling < low || floor > high) {
+                continue;
+            }
+            if (floor >= low && ceiling <= high) {
+                mask = mask.or(byBucket[b]);
+            } else {
+                RoaringBitmap edge = mask;
+                byBucket[b].forEach(ordinal -> {
+                    if (priceCents[ordinal] >= low && priceCents[ordinal] <= high) {
+                        edge.add(ordinal);
+                    }
+                });
+            }
+        }
+        return mask;
+    }
+
+    private void put(Sweet sweet, int quantity) {
+        Integer existing = ordinals.get(sweet.getId());
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            unassign(ordinal);
+        } else {
+            ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+            ensureCapacity(ordinal);
+            ordinals.put(sweet.getId(), ordinal);
+        }
+        Long categoryId = sweet.getCategory() == null ? null : sweet.getCategory().getId();
+        ids[ordinal] = sweet.getId();
+        priceCents[ordinal] = cents(sweet.getPrice());
+        categoryIds[ordinal] = categoryId == null ? 0 : categoryId;
+        quantities[ordinal] = quantity;
+        live.add(ordinal);
+        available.set(ordinal, quantity > 0);
+        byBucket[bucket(priceCents[ordinal])].add(ordinal);
+        if (categoryId != null) {
+            byCategory.computeIfAbsent(categoryId, id -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private void remove(Long sweetId) {
+        Integer ordinal = ordinals.remove(sweetId);
+        if (ordinal != null) {
+            unassign(ordinal);
+            live.remove(ordinal);
+            available.remove(ordinal);
+            freeOrdinals.push(ordinal);
+        }
+    }
+
+    private void unassign(int ordinal) {
+        byBucket[bucket(priceCents[ordinal])].remove(ordinal);
+        RoaringBitmap category = byCategory.get(categoryIds[ordinal]);
+        if (category != null) {
+            category.remove(ordinal);
+        }
+    }
+
+    private void reset(int capacity) {
+        ordinals.clear();
+        freeOrdinals.clear();
+        categoryNames.clear();
+        byCategory.clear();
+        byBucket = new RoaringBitmap[bucketFloors.length];
+        Arrays.setAll(byBucket, b -> new RoaringBitmap());
+        live = new RoaringBitmap();
+        available = new RoaringBitmap();
+        ids = new long[capacity];
+        priceCents = new long[capacity];
+        categoryIds = new long[capacity];
+        quantities = new int[capacity];
+        nextOrdinal = 0;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal >= ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+        }
+    }
+
+    private int bucket(long cents) {
+        int b = Arrays.binarySearch(bucketFloors, cents);
+        return b >= 0 ? b : Math.max(0, -b - 2);
+    }
+
+    private String bucketKey(int b) {
+        String floor = BigDecimal.valueOf(bucketFloors[b], 2).stripTrailingZeros().toPlainString();
+        return b + 1 < bucketFloors.length
+            ? floor + "-" + BigDecimal.valueOf(bucketFloors[b + 1], 2).stripTrailingZeros().toPlainString()
+            : floor + "+";
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+}
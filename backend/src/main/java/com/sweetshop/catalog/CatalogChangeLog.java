@@ -0,0 +1,142 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.inventory.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The most recent sweet changes, numbered, so polling clients can ask for what changed
+ * since the version they last saw.
+ *
+ * Committed catalog and stock events are appended to a ring of
+ * {@code app.catalog.changes.capacity} entries, each an upsert or a delete of one sweet.
+ * Versions are taken from the clock, in thousandths of a millisecond, and moved on by one
+ * when the clock has not: they keep growing across restarts, and a version converts back to
+ * roughly the time of its change. When a client's version has left the ring, the upserts
+ * can still be found by {@code updatedAt}, but the deletes cannot; {@link #deletesKnownSince}
+ * tells whether every delete after a version is still here.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.changes", name = "enabled", havingValue = "true")
+public class CatalogChangeLog {
+
+    private final long[] versions;
+    private final long[] sweetIds;
+    private final boolean[] deletes;
+    private final long startVersion;
+    private int head;
+    private int size;
+    private long version;
+    // Newest delete pushed out of the ring; clients older than this have missed it
+    private long lostDeleteVersion;
+
+    public CatalogChangeLog(@Value("${app.catalog.changes.capacity:10000}") int capacity) {
+        this.versions = new long[capacity];
+        this.sweetIds = new long[capacity];
+        this.deletes = new boolean[capacity];
+        this.startVersion = System.currentTimeMillis() * 1000;
+        this.version = startVersion;
+    }
+
+    /**
+     * The sweets changed after a version, last change per sweet winning. {@code complete}
+     * is false when older changes have left the ring, so only part of the range is here.
+     */
+    public static final class Delta {
+        private final long version;
+        private final boolean complete;
+        private final Set<Long> upserted;
+        private final Set<Long> deleted;
+
+        Delta(long version, boolean complete, Set<Long> upserted, Set<Long> deleted) {
+            this.version = version;
+            this.complete = complete;
+            this.upserted = upserted;
+            this.deleted = deleted;
+        }
+
+        public long getVersion() { return version; }
+        public boolean isComplete() { return complete; }
+        public Set<Long> getUpserted() { return upserted; }
+        public Set<Long> getDeleted() { return deleted; }
+    }
+
+    public synchronized long currentVersion() {
+        return version;
+    }
+
+    public synchronized Delta since(long since) {
+        Set<Long> upserted = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        int capacity = versions.length;
+        int oldest = Math.floorMod(head - size, capacity);
+        for (int i = 0; i < size; i++) {
+            int slot = (oldest + i) % capacity;
+            if (versions[slot] <= since) {
+                continue;
+            }
+            Long sweetId = sweetIds[slot];
+            if (deletes[slot]) {
+                upserted.remove(sweetId);
+                deleted.add(sweetId);
+            } else {
+                deleted.remove(sweetId);
+                upserted.add(sweetId);
+            }
+        }
+        long oldestKept = size == 0 ? version : versions[oldest];
+        boolean complete = since >= startVersion && (size < capacity || since >= oldestKept - 1);
+        return new Delta(version, complete, upserted, deleted);
+    }
+
+    /**
+     * Whether no delete after {@code since} has been lost, either to the ring wrapping or to
+     * a restart.
+     */
+    public synchronized boolean deletesKnownSince(long since) {
+        return since >= startVersion && since >= lostDeleteVersion;
+    }
+
+    /**
+     * The local time of the change that got {@code version}.
+     */
+    public static LocalDateTime timeOf(long version) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(version / 1000), ZoneId.systemDefault());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        append(event.getSweetId(), event.getType() == CatalogChangedEvent.Type.DELETED);
+    }
+
+    // Deletes arrive as catalog events too
+    @Order(CatalogListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getDelta() != 0 && event.getCause() != StockChangedEvent.Cause.DELETED) {
+            append(event.getSweetId(), false);
+        }
+    }
+
+    synchronized long append(Long sweetId, boolean delete) {
+        version = Math.max(version + 1, System.currentTimeMillis() * 1000);
+        if (size == versions.length && deletes[head]) {
+            lostDeleteVersion = versions[head];
+        }
+        versions[head] = version;
+        sweetIds[head] = sweetId;
+        deletes[head] = delete;
+        head = (head + 1) % versions.length;
+        size = Math.min(size + 1, versions.length);
+        return version;
+    }
+}
@@ -0,0 +1,32 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Sweet;
+
+/**
+ * Published when a sweet is created, edited or deleted through the catalog.
+ *
+ * Carries the sweet as it was saved (or as it was before deletion), so listeners can update
+ * derived structures without reading it back. Stock movements are covered separately by
+ * {@link com.sweetshop.inventory.StockChangedEvent}.
+ */
+public class CatalogChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Sweet sweet;
+
+    public CatalogChangedEvent(Type type, Sweet sweet) {
+        this.type = type;
+        this.sweet = sweet;
+    }
+
+    public Type getType() { return type; }
+    public Sweet getSweet() { return sweet; }
+    public Long getSweetId() { return sweet.getId(); }
+
+    @Override
+    public String toString() {
+        return "CatalogChangedEvent{" + type + " sweetId=" + sweet.getId() + '}';
+    }
+}
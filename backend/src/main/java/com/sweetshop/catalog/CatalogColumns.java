@@ -0,0 +1,363 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Column-per-field copy of the catalog for price, stock and recency queries.
+ *
+ * Each {@link Snapshot} holds one primitive array per field, with rows sorted by sweet id,
+ * and is never modified once published. Queries scan the arrays with plain loops and keep
+ * the best rows in a small heap of row numbers, so the only allocation is the result; the
+ * caller then loads just those sweets by id.
+ *
+ * Writes build a new snapshot from the current one, copying only the columns they change
+ * (a stock movement copies the quantity column alone), and publish it with a volatile
+ * write. A periodic resync corrects drift. Enabled with
+ * {@code app.catalog.columns.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.columns", name = "enabled", havingValue = "true")
+public class CatalogColumns {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogColumns.class);
+
+    private final SweetRepository sweetRepository;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready;
+
+    public CatalogColumns(SweetRepository sweetRepository, Optional<InventoryLedger> inventoryLedger) {
+        this.sweetRepository = sweetRepository;
+        this.inventoryLedger = inventoryLedger;
+    }
+
+    /**
+     * One published version of the catalog. Row {@code r} of every column describes the
+     * sweet {@code ids[r]}; {@code categoryOrdinal} indexes {@code categoryIds}, with -1 for
+     * a sweet without a category.
+     */
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0], new int[0], new int[0], new long[0], new long[0]);
+
+        final long[] ids;
+        final long[] priceCents;
+        final int[] quantity;
+        final int[] categoryOrdinal;
+        final long[] createdAtEpoch;
+        final long[] categoryIds;
+
+        Snapshot(long[] ids, long[] priceCents, int[] quantity, int[] categoryOrdinal,
+                 long[] createdAtEpoch, long[] categoryIds) {
+            this.ids = ids;
+            this.priceCents = priceCents;
+            this.quantity = quantity;
+            this.categoryOrdinal = categoryOrdinal;
+            this.createdAtEpoch = createdAtEpoch;
+            this.categoryIds = categoryIds;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        int row(long sweetId) {
+            return Arrays.binarySearch(ids, sweetId);
+        }
+
+        int categoryOrdinal(Long categoryId) {
+            return ordinalOf(categoryIds, categoryId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.columns.resync-interval-ms:300000}",
+               initialDelayString = "${app.catalog.columns.resync-interval-ms:300000}")
+    public synchronized void resync() {
+        List<Sweet> sweets = new ArrayList<>(sweetRepository.findAll());
+        sweets.sort(Comparator.comparing(Sweet::getId));
+        int n = sweets.size();
+        long[] ids = new long[n];
+        long[] priceCents = new long[n];
+        int[] quantity = new int[n];
+        int[] categoryOrdinal = new int[n];
+        long[] createdAtEpoch = new long[n];
+        long[] categoryIds = new long[0];
+        for (int r = 0; r < n; r++) {
+            Sweet sweet = sweets.get(r);
+            ids[r] = sweet.getId();
+            priceCents[r] = cents(sweet.getPrice());
+            quantity[r] = inventoryLedger.map(ledger -> ledger.available(sweet.getId())).orElse(sweet.getQuantity());
+            createdAtEpoch[r] = epochMillis(sweet.getCreatedAt());
+            Long categoryId = categoryId(sweet);
+            int ordinal = ordinalOf(categoryIds, categoryId);
+            if (ordinal < 0 && categoryId != null) {
+                categoryIds = Arrays.copyOf(categoryIds, categoryIds.length + 1);
+                categoryIds[categoryIds.length - 1] = categoryId;
+                ordinal = categoryIds.length - 1;
+            }
+            categoryOrdinal[r] = ordinal;
+        }
+        snapshot = new Snapshot(ids, priceCents, quantity, categoryOrdinal, createdAtEpoch, categoryIds);
+        ready = true;
+        log.debug("Catalog columns resynced: {} sweets, {} categories", n, categoryIds.length);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        Snapshot current = snapshot;
+        int row = current.row(event.getSweetId());
+        if (event.getType() == CatalogChangedEvent.Type.DELETED) {
+            if (row >= 0) {
+                snapshot = without(current, row);
+            }
+            return;
+        }
+        Sweet sweet = event.getSweet();
+        long[] categoryIds = current.categoryIds;
+        Long categoryId = categoryId(sweet);
+        int ordinal = current.categoryOrdinal(categoryId);
+        if (ordinal < 0 && categoryId != null) {
+            categoryIds = Arrays.copyOf(categoryIds, categoryIds.length + 1);
+            categoryIds[categoryIds.length - 1] = categoryId;
+            ordinal = categoryIds.length - 1;
+        }
+        Snapshot next = row >= 0 ? copy(current, categoryIds) : with(current, -row - 1, categoryIds);
+        int r = row >= 0 ? row : -row - 1;
+        next.ids[r] = sweet.getId();
+        next.priceCents[r] = cents(sweet.getPrice());
+        next.quantity[r] = sweet.getQuantity();
+        next.categoryOrdinal[r] = ordinal;
+        next.createdAtEpoch[r] = epochMillis(sweet.getCreatedAt());
+        snapshot = next;
+    }
+
+    // Sweets not seen yet are added by their catalog event, which carries the full row
+    @Order(CatalogListenerOrder.INDEXES)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        if (event.getCause() == StockChangedEvent.Cause.DELETED || event.getDelta() == 0) {
+            return;
+        }
+        Snapshot current = snapshot;
+        int row = current.row(event.getSweetId());
+        if (row >= 0) {
+            int[] quantity = current.quantity.clone();
+            quantity[row] += event.getDelta();
+            snapshot = new Snapshot(current.ids, current.priceCents, quantity, current.categoryOrdinal,
+                current.createdAtEpoch, current.categoryIds);
+        }
+    }
+
+    /**
+     * Ids of the {@code limit} lowest-priced sweets, cheapest first.
+     */
+    public List<Long> cheapest(int limit, boolean onlyAvailable) {
+        Snapshot s = snapshot;
+        return top(s, s.priceCents, false, limit, Long.MIN_VALUE, Long.MAX_VALUE, -1, onlyAvailable);
+    }
+
+    /**
+     * Ids of the {@code limit} most recently added sweets, newest first.
+     */
+    public List<Long> newest(int limit, boolean onlyAvailable) {
+        Snapshot s = snapshot;
+        return top(s, s.createdAtEpoch, true, limit, Long.MIN_VALUE, Long.MAX_VALUE, -1, onlyAvailable);
+    }
+
+    /**
+     * Ids of the sweets priced within the inclusive range, cheapest first; a null bound or
+     * category is not applied.
+     */
+    public List<Long> priceRange(BigDecimal minPrice, BigDecimal maxPrice, Long categoryId, boolean onlyAvailable) {
+        Snapshot s = snapshot;
+        int category = -1;
+        if (categoryId != null) {
+            category = s.categoryOrdinal(categoryId);
+            if (category < 0) {
+                return List.of();
+            }
+        }
+        long low = minPrice == null ? Long.MIN_VALUE : cents(minPrice);
+        long high = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice);
+        return top(s, s.priceCents, false, s.size(), low, high, category, onlyAvailable);
+    }
+
+    /*
+     * Best `limit` rows by `key` among those passing the filters. The heap holds row numbers
+     * with the worst kept row at the root, so most rows cost one comparison against it; the
+     * heap is sorted in place at the end. Ties go to the lower id.
+     */
+    private static List<Long> top(Snapshot s, long[] key, boolean descending, int limit,
+                                  long minPrice, long maxPrice, int category, boolean onlyAvailable) {
+        int[] heap = new int[Math.max(0, Math.min(limit, s.size()))];
+        int size = 0;
+        long[] price = s.priceCents;
+        int[] quantity = s.quantity;
+        int[] categoryOrdinal = s.categoryOrdinal;
+        for (int r = 0; r < price.length; r++) {
+            if (price[r] < minPrice || price[r] > maxPrice
+                || (category >= 0 && categoryOrdinal[r] != category)
+                || (onlyAvailable && quantity[r] <= 0)) {
+                continue;
+            }
+            if (size < heap.length) {
+                heap[size] = r;
+                siftUp(heap, size++, key, descending);
+            } else if (size > 0 && before(r, heap[0], key, descending)) {
+                heap[0] = r;
+                siftDown(heap, 0, size, key, descending);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) {
+            int worst = heap[0];
+            heap[0] = heap[end];
+            heap[end] = worst;
+            siftDown(heap, 0, end, key, descending);
+        }
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(s.ids[heap[i]]);
+        }
+        return ids;
+    }
+
+    // Whether row a ranks ahead of row b; ids ascend with row numbers, so rows break ties
+    private static boolean before(int a, int b, long[] key, boolean descending) {
+        if (key[a] != key[b]) {
+            return descending ? key[a] > key[b] : key[a] < key[b];
+        }
+        return a < b;
+    }
+
+    private static void siftUp(int[] heap, int at, long[] key, boolean descending) {
+        int row = heap[at];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (!before(heap[parent], row, key, descending)) {
+                break;
+            }
+            heap[at] = heap[parent];
+            at = parent;
+        }
+        heap[at] = row;
+    }
+
+    private static void siftDown(int[] heap, int at, int size, long[] key, boolean descending) {
+        int row = heap[at];
+        while (true) {
+            int child = 2 * at + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child], heap[child + 1], key, descending)) {
+                child++;
+            }
+            if (!before(row, heap[child], key, descending)) {
+                break;
+            }
+            heap[at] = heap[child];
+            at = child;
+        }
+        heap[at] = row;
+    }
+
+    private static Snapshot copy(Snapshot s, long[] categoryIds) {
+        return new Snapshot(s.ids.clone(), s.priceCents.clone(), s.quantity.clone(), s.categoryOrdinal.clone(),
+            s.createdAtEpoch.clone(), categoryIds);
+    }
+
+    // A copy with an unfilled row opened at `at`
+    private static Snapshot with(Snapshot s, int at, long[] categoryIds) {
+        return new Snapshot(insert(s.ids, at), insert(s.priceCents, at), insert(s.quantity, at),
+            insert(s.categoryOrdinal, at), insert(s.createdAtEpoch, at), categoryIds);
+    }
+
+    private static Snapshot without(Snapshot s, int at) {
+        return new Snapshot(delete(s.ids, at), delete(s.priceCents, at), delete(s.quantity, at),
+            delete(s.categoryOrdinal, at), delete(s.createdAtEpoch, at), s.categoryIds);
+    }
+
+    private static long[] insert(long[] column, int at) {
+        long[] out = new long[column.length + 1];
+        System.arraycopy(column, 0, out, 0, at);
+        System.arraycopy(column, at, out, at + 1, column.length - at);
+        return out;
+    }
+
+    private static int[] insert(int[] column, int at) {
+        int[] out = new int[column.length + 1];
+        System.arraycopy(column, 0, out, 0, at);
+        System.arraycopy(column, at, out, at + 1, column.length - at);
+        return out;
+    }
+
+    private static long[] delete(long[] column, int at) {
+        long[] out = new long[column.length - 1];
+        System.arraycopy(column, 0, out, 0, at);
+        System.arraycopy(column, at + 1, out, at, column.length - at - 1);
+        return out;
+    }
+
+    private static int[] delete(int[] column, int at) {
+        int[] out = new int[column.length - 1];
+        System.arraycopy(column, 0, out, 0, at);
+        System.arraycopy(column, at + 1, out, at, column.length - at - 1);
+        return out;
+    }
+
+    // Linear, as there are few categories
+    private static int ordinalOf(long[] categoryIds, Long categoryId) {
+        if (categoryId == null) {
+            return -1;
+        }
+        for (int c = 0; c < categoryIds.length; c++) {
+            if (categoryIds[c] == categoryId) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private static Long categoryId(Sweet sweet) {
+        return sweet.getCategory() == null ? null : sweet.getCategory().getId();
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    // Only the order matters, so the wall-clock timestamp is read as UTC
+    private static long epochMillis(LocalDateTime time) {
+        return time == null ? 0 : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,42 @@
+package com.sweetshop.catalog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Tags public catalog GET responses with a strong ETag from {@link CatalogVersions} and answers a
+ * matching {@code If-None-Match} with 304 before the controller runs, so an unchanged
+ * catalog costs no query and no serialization.
+ *
+ * Sweets of one category and a single category are tagged with that category's version;
+ * every other catalog read uses the catalog version. Responses carry
+ * {@code Cache-Control: no-cache} so browsers revalidate instead of guessing a lifetime.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.etag", name = "enabled", havingValue = "true")
+public class CatalogEtagInterceptor implements HandlerInterceptor {
+
+    private final CatalogVersions versions;
+
+    public CatalogEtagInterceptor(CatalogVersions versions) {
+        this.versions = versions;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())
+                || !CatalogVersions.isPublicRead(path)) {
+            return true;
+        }
+        String etag = versions.etag(path);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Sets the ETag header, and the 304 status when If-None-Match matches
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
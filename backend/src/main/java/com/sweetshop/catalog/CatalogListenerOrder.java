@@ -0,0 +1,25 @@
+package com.sweetshop.catalog;
+
+import org.springframework.core.Ordered;
+
+/**
+ * Orders of the listeners that keep in-memory catalog structures up to date after a commit.
+ *
+ * A reader trusts the version it reads to describe the data it then reads, so every
+ * structure a catalog read can touch must have applied a change before anything marking
+ * that change visible moves on. Spring runs the listeners for one event lowest order first,
+ * both after a commit and without a transaction.
+ */
+public final class CatalogListenerOrder {
+
+    /** Indexes, near-caches and the change log, which readers query directly. */
+    public static final int INDEXES = 0;
+
+    /** The search result cache, whose generation guards pages computed from the indexes. */
+    public static final int RESULTS = 100;
+
+    /** Catalog versions, the ETags and cached response bodies are keyed by; moved last. */
+    public static final int VERSIONS = Ordered.LOWEST_PRECEDENCE;
+
+    private CatalogListenerOrder() {}
+}
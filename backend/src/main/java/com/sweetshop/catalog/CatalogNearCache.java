@@ -0,0 +1,137 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.cache.NearCache;
+import com.sweetshop.cache.TinyLfuCache;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockFlushedEvent;
+import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Optional;
+
+/**
+ * Sweets and categories by id, kept in memory in front of the repositories.
+ *
+ * Each is a {@link NearCache}: size-bounded with W-TinyLFU eviction, and concurrent misses
+ * for one id share a single query. Entries are dropped once a change commits: a sweet on
+ * its catalog or stock events, a category on its category events, along with the cached
+ * sweets that embed it. With the inventory ledger enabled, a sweet is dropped again when the
+ * ledger flushes its stock, since a load in between read the row before the sale reached it. The values are detached entities shared between requests, so
+ * callers must treat them as read-only and load their own copy to change one.
+ *
+ * Hits, misses, evictions and coalesced loads are published as
+ * {@code sweetshop.near.cache.*} meters tagged with the cache name. Enabled with
+ * {@code app.catalog.near-cache.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.near-cache", name = "enabled", havingValue = "true")
+public class CatalogNearCache {
+
+    private final SweetRepository sweetRepository;
+    private final CategoryRepository categoryRepository;
+    private final NearCache<Long, Sweet> sweets;
+    private final NearCache<Long, Category> categories;
+
+    public CatalogNearCache(SweetRepository sweetRepository,
+                            CategoryRepository categoryRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.catalog.near-cache.max-sweets:10000}") long maxSweets,
+                            @Value("${app.catalog.near-cache.max-categories:1000}") long maxCategories) {
+        this.sweetRepository = sweetRepository;
+        this.categoryRepository = categoryRepository;
+        this.sweets = new NearCache<>(maxSweets);
+        this.categories = new NearCache<>(maxCategories);
+        register(meterRegistry, "sweet", sweets);
+        register(meterRegistry, "category", categories);
+    }
+
+    public Optional<Sweet> sweet(Long id) {
+        return sweets.get(id, sweetRepository::findById);
+    }
+
+    public Optional<Category> category(Long id) {
+        return categories.get(id, categoryRepository::findById);
+    }
+
+    /**
+     * Drops a sweet whose change publishes no catalog or stock event.
+     */
+    public void evictSweet(Long id) {
+        sweets.invalidate(id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        sweets.invalidate(event.getSweetId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getDelta() != 0 || event.getCause() == StockChangedEvent.Cause.DELETED) {
+            sweets.invalidate(event.getSweetId());
+        }
+    }
+
+    // Already committed when published, so there is no transaction to wait for
+    @EventListener
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onStockFlushed(StockFlushedEvent event) {
+        event.getSweetIds().forEach(sweets::invalidate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        Long categoryId = event.getCategoryId();
+        categories.invalidate(categoryId);
+        if (event.getType() != CategoryChangedEvent.Type.CREATED) {
+            sweets.invalidateIf((id, sweet) -> categoryId.equals(sweet.getCategory().getId()));
+        }
+    }
+
+    private static void register(MeterRegistry meterRegistry, String name, NearCache<Long, ?> cache) {
+        TinyLfuCache<Long, ?> entries = cache.entries();
+        FunctionCounter.builder("sweetshop.near.cache.requests", entries, TinyLfuCache::hitCount)
+            .tags("cache", name, "result", "hit")
+            .description("Lookups by id answered from the near-cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.near.cache.requests", entries, TinyLfuCache::missCount)
+            .tags("cache", name, "result", "miss")
+            .description("Lookups by id that were not in the near-cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.near.cache.coalesced", cache, NearCache::coalescedCount)
+            .tag("cache", name)
+            .description("Misses that waited for a load of the same id already in flight")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.near.cache.evictions", entries, TinyLfuCache::evictionCount)
+            .tag("cache", name)
+            .description("Entries evicted, or turned away, to stay within the size limit")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.near.cache.size", entries, TinyLfuCache::size)
+            .tag("cache", name)
+            .description("Entities held by the near-cache")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.near.cache.hit.ratio", entries, CatalogNearCache::hitRatio)
+            .tag("cache", name)
+            .description("Share of lookups by id answered from the near-cache")
+            .register(meterRegistry);
+    }
+
+    private static double hitRatio(TinyLfuCache<Long, ?> entries) {
+        long hits = entries.hitCount();
+        long total = hits + entries.missCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
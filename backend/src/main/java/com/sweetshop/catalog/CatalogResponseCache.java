@@ -0,0 +1,188 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.cache.NearCache;
+import com.sweetshop.cache.TinyLfuCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves repeated catalog GETs from response bodies that were already serialized.
+ *
+ * A successful JSON response is kept as UTF-8 bytes and as gzipped bytes, keyed by the
+ * request's path and query and the {@link CatalogVersions} ETag it was served under. Later
+ * requests with the same key get the bytes written straight to the output stream, gzipped
+ * when the client accepts it, with no controller, query or Jackson work. Once the version
+ * moves, requests carry a new key, so each body is rendered once per version; concurrent
+ * requests that miss on the same key wait for the first one's rendering. Bodies of older
+ * versions are never asked for again and age out of the {@link NearCache}, which is
+ * bounded by the kilobytes held.
+ *
+ * A cached body is served as it was rendered, so {@code ApiResponse.timestamp} is the
+ * time the data for that version was read, not the time of the request.
+ *
+ * Only the public catalog reads listed by {@link CatalogVersions#isPublicRead} are cached.
+ * Admin-only reads such as low stock are authorized by method security inside the
+ * controller, after this filter, so a body cached for an admin could otherwise be served
+ * to anyone. Enabled with {@code app.catalog.response-cache.enabled=true}; needs the catalog
+ * versions from {@code app.catalog.etag.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.response-cache", name = "enabled", havingValue = "true")
+public class CatalogResponseCache extends OncePerRequestFilter {
+
+    private final CatalogVersions versions;
+    private final NearCache<String, CachedBody> bodies;
+
+    public CatalogResponseCache(CatalogVersions versions,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.catalog.response-cache.max-kilobytes:65536}") long maxKilobytes) {
+        this.versions = versions;
+        this.bodies = new NearCache<>(maxKilobytes, CachedBody::kilobytes);
+
+        TinyLfuCache<String, CachedBody> entries = bodies.entries();
+        FunctionCounter.builder("sweetshop.response.cache.requests", entries, TinyLfuCache::hitCount)
+            .tag("result", "hit")
+            .description("Catalog responses written from cached bytes")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.response.cache.requests", entries, TinyLfuCache::missCount)
+            .tag("result", "miss")
+            .description("Catalog responses that had to be rendered")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.response.cache.coalesced", bodies, NearCache::coalescedCount)
+            .description("Requests that waited for another request's rendering of the same body")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.response.cache.size", entries, TinyLfuCache::size)
+            .description("Cached catalog response bodies")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.response.cache.kilobytes", entries, TinyLfuCache::weight)
+            .description("Kilobytes held by cached catalog response bodies")
+            .register(meterRegistry);
+    }
+
+    static final class CachedBody {
+        final String contentType;
+        final byte[] json;
+        final byte[] gzip;
+
+        CachedBody(String contentType, byte[] json) {
+            this.contentType = contentType;
+            this.json = json;
+            this.gzip = gzip(json);
+        }
+
+        int kilobytes() {
+            return (json.length + gzip.length + 1023) / 1024;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !CatalogVersions.isPublicRead(path(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String etag = versions.etag(path(request));
+        String key = etag + " " + path(request) + "?" + (request.getQueryString() == null ? "" : request.getQueryString());
+        ContentCachingResponseWrapper[] rendered = new ContentCachingResponseWrapper[1];
+        Optional<CachedBody> body;
+        try {
+            body = bodies.get(key, k -> {
+                rendered[0] = new ContentCachingResponseWrapper(response);
+                return render(request, rendered[0], chain);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RenderException e) {
+            throw e.servletException;
+        }
+        if (rendered[0] != null) {
+            // Written only now, so requests waiting on this rendering do not wait on this client too
+            rendered[0].copyBodyToResponse();
+            return;
+        }
+        if (body.isEmpty()) {
+            // The response this request waited on was not cacheable; produce our own
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        write(request, response, body.get());
+    }
+
+    // Runs the request into the buffering wrapper and keeps the body if it is a successful JSON one
+    private Optional<CachedBody> render(HttpServletRequest request, ContentCachingResponseWrapper wrapper, FilterChain chain) {
+        try {
+            chain.doFilter(request, wrapper);
+            byte[] json = wrapper.getContentAsByteArray();
+            String contentType = wrapper.getContentType();
+            int status = wrapper.getStatus();
+            if (status != HttpServletResponse.SC_OK || contentType == null || !contentType.contains("json")) {
+                return Optional.empty();
+            }
+            return Optional.of(new CachedBody(contentType, json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ServletException e) {
+            throw new RenderException(e);
+        }
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, CachedBody body)
+            throws IOException {
+        response.setContentType(body.contentType);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        byte[] bytes = body.json;
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            bytes = body.gzip;
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class RenderException extends RuntimeException {
+        final ServletException servletException;
+
+        RenderException(ServletException servletException) {
+            super(servletException);
+            this.servletException = servletException;
+        }
+    }
+}
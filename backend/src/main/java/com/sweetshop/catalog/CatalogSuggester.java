@@ -0,0 +1,150 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.dto.SuggestionDto;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead suggestions over sweet and category names.
+ *
+ * Lookups read the current {@link SuggestionTrie} snapshot and never touch the database.
+ * Catalog and category changes, and sales that shift popularity, only mark the snapshot
+ * stale; a background rebuild reloads names and units sold, builds a new trie and swaps it
+ * in with a single volatile write, so readers never see a half-built trie.
+ *
+ * Sweets rank by units sold; a category ranks by the units sold across its sweets.
+ */
+@Component
+public class CatalogSuggester {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSuggester.class);
+    private static final String UNITS_SOLD_SQL = "SELECT sweet_id, SUM(quantity) FROM orders GROUP BY sweet_id";
+
+    private final SweetRepository sweetRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxResults;
+
+    private volatile Snapshot snapshot = new Snapshot(SuggestionTrie.EMPTY, new SuggestionDto[0]);
+    private volatile boolean stale = true;
+
+    public CatalogSuggester(SweetRepository sweetRepository,
+                            CategoryRepository categoryRepository,
+                            JdbcTemplate jdbcTemplate,
+                            @Value("${app.catalog.suggest.max-results:10}") int maxResults) {
+        this.sweetRepository = sweetRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxResults = maxResults;
+    }
+
+    private static final class Snapshot {
+        final SuggestionTrie trie;
+        final SuggestionDto[] entries;
+
+        Snapshot(SuggestionTrie trie, SuggestionDto[] entries) {
+            this.trie = trie;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Up to {@code limit} (capped at {@code app.catalog.suggest.max-results}) suggestions
+     * for {@code prefix}, most popular first.
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        Snapshot current = snapshot;
+        int[] hits = current.trie.lookup(prefix.trim(), Math.min(limit, maxResults));
+        List<SuggestionDto> suggestions = new ArrayList<>(hits.length);
+        for (int hit : hits) {
+            suggestions.add(current.entries[hit]);
+        }
+        return suggestions;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getCause() == StockChangedEvent.Cause.PURCHASE || event.getCause() == StockChangedEvent.Cause.CHECKOUT) {
+            stale = true;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.suggest.rebuild-interval-ms:10000}")
+    public void rebuildIfStale() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        // Cleared first, so a change that lands during the rebuild triggers another one
+        stale = false;
+        long started = System.currentTimeMillis();
+        Map<Long, Long> unitsSold = new HashMap<>();
+        jdbcTemplate.query(UNITS_SOLD_SQL, rs -> {
+            unitsSold.put(rs.getLong(1), rs.getLong(2));
+        });
+
+        List<String> texts = new ArrayList<>();
+        List<SuggestionDto> entries = new ArrayList<>();
+        List<Long> scores = new ArrayList<>();
+        Map<Long, Long> categoryUnits = new HashMap<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            long sold = unitsSold.getOrDefault(sweet.getId(), 0L);
+            texts.add(sweet.getName());
+            entries.add(new SuggestionDto(sweet.getName(), SuggestionDto.Type.SWEET, sweet.getId()));
+            scores.add(sold);
+            if (sweet.getCategory() != null) {
+                categoryUnits.merge(sweet.getCategory().getId(), sold, Long::sum);
+            }
+        }
+        for (Category category : categoryRepository.findAll()) {
+            texts.add(category.getName());
+            entries.add(new SuggestionDto(category.getName(), SuggestionDto.Type.CATEGORY, category.getId()));
+            scores.add(categoryUnits.getOrDefault(category.getId(), 0L));
+        }
+
+        SuggestionTrie trie = SuggestionTrie.build(texts, maxResults, scores.stream().mapToLong(Long::longValue).toArray());
+        snapshot = new Snapshot(trie, entries.toArray(new SuggestionDto[0]));
+        log.debug("Suggestion trie rebuilt: {} entries, {} nodes in {} ms",
+            trie.entryCount(), trie.nodeCount(), System.currentTimeMillis() - started);
+    }
+}
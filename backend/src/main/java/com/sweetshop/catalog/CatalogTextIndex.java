@@ -0,0 +1,330 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over sweet names and descriptions.
+ *
+ * Each sweet gets a dense int ordinal. Every three-character window of its lower-cased name
+ * and description maps to a posting list: a sorted {@code int[]} of ordinals. A query term
+ * of three or more characters intersects the posting lists of its trigrams, smallest first,
+ * then checks each candidate with a plain substring match, so results are exactly those of
+ * {@code LIKE %term%} on either field. One- and two-character terms have no trigram and are
+ * answered by scanning the stored text.
+ *
+ * Hits are ranked name prefix first, then a match at the start of a word in the name, then
+ * anywhere in the name, then description only; shorter names win ties.
+ *
+ * Kept current from {@link CatalogChangedEvent}s after commit. Enabled with
+ * {@code app.catalog.text-index.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.text-index", name = "enabled", havingValue = "true")
+public class CatalogTextIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogTextIndex.class);
+    private static final long[] NO_GRAMS = new long[0];
+
+    private final SweetRepository sweetRepository;
+    private final int maxCandidates;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] descriptions = new String[1024];
+    private long[][] grams = new long[1024][];
+    private int nextOrdinal;
+    private int live;
+    private volatile boolean ready;
+
+    public CatalogTextIndex(SweetRepository sweetRepository,
+                            @Value("${app.catalog.text-index.max-candidates:1000}") int maxCandidates) {
+        this.sweetRepository = sweetRepository;
+        this.maxCandidates = maxCandidates;
+    }
+
+    // Sorted, duplicate-free ordinals of the sweets containing one trigram
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            int at = Arrays.binarySearch(docs, 0, size, ordinal);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, at, docs, at + 1, size - at);
+            docs[at] = ordinal;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            int at = Arrays.binarySearch(docs, 0, size, ordinal);
+            if (at >= 0) {
+                System.arraycopy(docs, at + 1, docs, at, size - at - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int ordinal) {
+            return Arrays.binarySearch(docs, 0, size, ordinal) >= 0;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            postings.clear();
+            nextOrdinal = 0;
+            live = 0;
+            for (Sweet sweet : sweetRepository.findAll()) {
+                index(sweet);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Catalog text index built: {} sweets, {} trigrams in {} ms",
+            live, postings.size(), System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getType() == CatalogChangedEvent.Type.DELETED) {
+            remove(event.getSweetId());
+        } else {
+            put(event.getSweet());
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return live;
+    }
+
+    public void put(Sweet sweet) {
+        lock.writeLock().lock();
+        try {
+            index(sweet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long sweetId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(sweetId);
+            if (ordinal != null) {
+                unindex(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} ids of sweets whose name or description contains
+     * {@code term}, best match first.
+     */
+    public List<Long> search(String term, int limit) {
+        String needle = normalize(term);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            long[] scored = needle.length() < 3 ? scan(needle) : lookup(needle);
+            int count = (int) scored[scored.length - 1];
+            // Packed as (score, name length, ordinal) so one primitive sort ranks them
+            Arrays.sort(scored, 0, count);
+            List<Long> hits = new ArrayList<>(Math.min(count, limit));
+            for (int i = 0; i < count && hits.size() < limit; i++) {
+                hits.add(ids[(int) (scored[i] & 0xFFFFFFFFL)]);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked ids of every sweet matching {@code term}, or empty when there are more than
+     * {@code app.catalog.text-index.max-candidates} of them and the term is too broad to
+     * narrow a query by id.
+     */
+    public Optional<List<Long>> match(String term) {
+        List<Long> hits = search(term, maxCandidates + 1);
+        return hits.size() > maxCandidates ? Optional.empty() : Optional.of(hits);
+    }
+
+    private long[] lookup(String needle) {
+        long[] queryGrams = trigrams(needle);
+        Postings[] lists = new Postings[queryGrams.length];
+        for (int i = 0; i < queryGrams.length; i++) {
+            lists[i] = postings.get(queryGrams[i]);
+            if (lists[i] == null) {
+                return new long[] {0};
+            }
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        Postings smallest = lists[0];
+        long[] scored = new long[smallest.size + 1];
+        int count = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            int ordinal = smallest.docs[i];
+            boolean inAll = true;
+            for (int j = 1; j < lists.length && inAll; j++) {
+                inAll = lists[j].contains(ordinal);
+            }
+            if (inAll) {
+                count = score(needle, ordinal, scored, count);
+            }
+        }
+        scored[scored.length - 1] = count;
+        return scored;
+    }
+
+    private long[] scan(String needle) {
+        long[] scored = new long[live + 1];
+        int count = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (names[ordinal] != null) {
+                count = score(needle, ordinal, scored, count);
+            }
+        }
+        scored[scored.length - 1] = count;
+        return scored;
+    }
+
+    // Verifies a candidate and, on a real match, appends its packed rank
+    private int score(String needle, int ordinal, long[] scored, int count) {
+        String name = names[ordinal];
+        int at = name.indexOf(needle);
+        long rank;
+        if (at == 0) {
+            rank = 0;
+        } else if (at > 0 && !Character.isLetterOrDigit(name.charAt(at - 1))) {
+            rank = 1;
+        } else if (at > 0) {
+            rank = 2;
+        } else if (descriptions[ordinal].contains(needle)) {
+            rank = 3;
+        } else {
+            return count;
+        }
+        long length = Math.min(name.length(), 0x1FFFFFFF);
+        scored[count] = (rank << 61) | (length << 32) | ordinal;
+        return count + 1;
+    }
+
+    private void index(Sweet sweet) {
+        Integer existing = ordinals.get(sweet.getId());
+        int ordinal;
+        if (existing != null) {
+            ordinal = existing;
+            unindex(ordinal);
+        } else {
+            ordinal = nextOrdinal++;
+            ensureCapacity(ordinal);
+            ordinals.put(sweet.getId(), ordinal);
+        }
+        ids[ordinal] = sweet.getId();
+        names[ordinal] = normalize(sweet.getName());
+        descriptions[ordinal] = normalize(sweet.getDescription());
+        long[] nameGrams = trigrams(names[ordinal]);
+        long[] descriptionGrams = trigrams(descriptions[ordinal]);
+        long[] all = Arrays.copyOf(nameGrams, nameGrams.length + descriptionGrams.length);
+        System.arraycopy(descriptionGrams, 0, all, nameGrams.length, descriptionGrams.length);
+        grams[ordinal] = distinct(all);
+        for (long gram : grams[ordinal]) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(ordinal);
+        }
+        live++;
+    }
+
+    private void unindex(int ordinal) {
+        for (long gram : grams[ordinal]) {
+            Postings list = postings.get(gram);
+            list.remove(ordinal);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        grams[ordinal] = NO_GRAMS;
+        names[ordinal] = null;
+        descriptions[ordinal] = null;
+        live--;
+    }
+
+    private void ensureCapacity(int ordinal) {
+        if (ordinal == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            grams = Arrays.copyOf(grams, capacity);
+        }
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Three UTF-16 chars packed into the low 48 bits of a long
+    static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return NO_GRAMS;
+        }
+        long[] result = new long[text.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return distinct(result);
+    }
+
+    private static long[] distinct(long[] values) {
+        if (values.length == 0) {
+            return values;
+        }
+        Arrays.sort(values);
+        int unique = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, unique);
+    }
+}
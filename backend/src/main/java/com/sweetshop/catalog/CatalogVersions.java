@@ -0,0 +1,164 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockFlushedEvent;
+import com.sweetshop.repository.SweetRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Version numbers for the catalog as a whole and for each category, bumped once every
+ * change to sweets, stock or categories has committed.
+ *
+ * A category's version moves when one of its sweets is created, edited, moved in or out,
+ * deleted or sold or restocked, and when the category itself changes. The catalog version
+ * moves on all of them. With the inventory ledger enabled, a sale or restock reaches the row
+ * only when the ledger flushes, so the versions of the sweets it wrote move again then. Versions only grow; the epoch, taken at startup, tells versions
+ * handed out before a restart apart from the ones after it.
+ *
+ * Readers take the version before reading the data, so a response is never tagged with a
+ * version newer than what it shows. For that to hold, the listeners here run after those of
+ * every index and near-cache the reads go through; see {@link CatalogListenerOrder}. The sweet-to-category map behind the per-category
+ * versions is seeded at startup and resynced periodically. Enabled with
+ * {@code app.catalog.etag.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.etag", name = "enabled", havingValue = "true")
+public class CatalogVersions {
+
+    // Sweets of one category, and one category, follow that category's version
+    private static final Pattern CATEGORY_PATH = Pattern.compile("^/api/(?:sweets/category|categories)/(\\d+)$");
+    // Catalog reads open to everyone; admin-only reads are checked inside the controller, too late for a filter.
+    // Suggestions are left out: they come from a trie rebuilt in the background, which no version tracks
+    private static final Pattern PUBLIC_READ = Pattern.compile(
+        "^/api/sweets(?:/(?:\\d+|changes|search|category/\\d+|top-selling|cheapest|newest|price-range))?$"
+        + "|^/api/categories(?:/(?:\\d+|with-sweets))?$");
+
+    private final SweetRepository sweetRepository;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong catalog = new AtomicLong();
+    private final Map<Long, AtomicLong> categories = new ConcurrentHashMap<>();
+    private final Map<Long, Long> sweetCategories = new ConcurrentHashMap<>();
+
+    public CatalogVersions(SweetRepository sweetRepository) {
+        this.sweetRepository = sweetRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.etag.resync-interval-ms:300000}",
+               initialDelayString = "${app.catalog.etag.resync-interval-ms:300000}")
+    public void resync() {
+        Map<Long, Long> loaded = new HashMap<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            loaded.put(sweet.getId(), sweet.getCategory().getId());
+        }
+        sweetCategories.keySet().retainAll(loaded.keySet());
+        sweetCategories.putAll(loaded);
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    public long catalogVersion() {
+        return catalog.get();
+    }
+
+    public long categoryVersion(Long categoryId) {
+        AtomicLong version = categories.get(categoryId);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Whether {@code path} is a catalog read that every caller gets the same answer to, and
+     * so may be tagged and served from shared caches.
+     */
+    public static boolean isPublicRead(String path) {
+        return PUBLIC_READ.matcher(path).matches();
+    }
+
+    /**
+     * Strong ETag for a catalog GET of {@code path}: the category version for a category's
+     * sweets or a single category, the catalog version for everything else.
+     */
+    public String etag(String path) {
+        Matcher category = CATEGORY_PATH.matcher(path);
+        if (category.matches()) {
+            Long categoryId = Long.valueOf(category.group(1));
+            return "\"" + epoch + "-c" + categoryId + "-" + categoryVersion(categoryId) + "\"";
+        }
+        return "\"" + epoch + "-" + catalogVersion() + "\"";
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.VERSIONS)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Long sweetId = event.getSweetId();
+        Long categoryId = event.getSweet().getCategory().getId();
+        Long previous = event.getType() == CatalogChangedEvent.Type.DELETED
+            ? sweetCategories.remove(sweetId)
+            : sweetCategories.put(sweetId, categoryId);
+        if (previous != null && !previous.equals(categoryId)) {
+            bumpCategory(previous);
+        }
+        bumpCategory(categoryId);
+        catalog.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.VERSIONS)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getDelta() == 0) {
+            return;
+        }
+        // A sweet not seen yet gets its category bumped by its catalog event
+        Long categoryId = sweetCategories.get(event.getSweetId());
+        if (categoryId != null) {
+            bumpCategory(categoryId);
+        }
+        catalog.incrementAndGet();
+    }
+
+    // Already committed when published, so there is no transaction to wait for
+    @EventListener
+    @Order(CatalogListenerOrder.VERSIONS)
+    public void onStockFlushed(StockFlushedEvent event) {
+        Set<Long> bumped = new HashSet<>();
+        for (Long sweetId : event.getSweetIds()) {
+            Long categoryId = sweetCategories.get(sweetId);
+            if (categoryId != null && bumped.add(categoryId)) {
+                bumpCategory(categoryId);
+            }
+        }
+        catalog.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.VERSIONS)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bumpCategory(event.getCategoryId());
+        catalog.incrementAndGet();
+    }
+
+    private void bumpCategory(Long categoryId) {
+        categories.computeIfAbsent(categoryId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,28 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+
+/**
+ * Published when a category is created, renamed or deleted.
+ */
+public class CategoryChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Category category;
+
+    public CategoryChangedEvent(Type type, Category category) {
+        this.type = type;
+        this.category = category;
+    }
+
+    public Type getType() { return type; }
+    public Category getCategory() { return category; }
+    public Long getCategoryId() { return category.getId(); }
+
+    @Override
+    public String toString() {
+        return "CategoryChangedEvent{" + type + " categoryId=" + category.getId() + '}';
+    }
+}
@@ -0,0 +1,281 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typo-tolerant matching of search terms against sweet and category names.
+ *
+ * The dictionary holds every distinct word of the sweet and category names, plus each name
+ * with its spaces removed, so "gulabjamun" and "gulab jamun" meet. Terms are indexed by
+ * their padded trigrams ({@code $ra, ras, ..., la$}). A query term's similarity to a
+ * dictionary term is shared trigrams over the union of both sets, counted by walking only
+ * the posting lists of the query's own trigrams, so the work grows with how common those
+ * trigrams are rather than with the catalog.
+ *
+ * A sweet scores the better of its whole-name similarity and the average, over query words,
+ * of each word's best match among its name words. Category terms count at a discount.
+ *
+ * The dictionary is an immutable snapshot rebuilt when the catalog changes and swapped in
+ * atomically. Enabled with {@code app.catalog.fuzzy.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.fuzzy", name = "enabled", havingValue = "true")
+public class FuzzyMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(FuzzyMatcher.class);
+
+    private static final int NAME_WORD = 0;
+    private static final int NAME = 1;
+    private static final int CATEGORY = 2;
+    private static final double CATEGORY_WEIGHT = 0.8;
+
+    private final SweetRepository sweetRepository;
+    private final double minSimilarity;
+    private final int maxResults;
+
+    private volatile Dictionary dictionary = Dictionary.build(List.of());
+    private volatile boolean stale = true;
+
+    public FuzzyMatcher(SweetRepository sweetRepository,
+                        @Value("${app.catalog.fuzzy.min-similarity:0.35}") double minSimilarity,
+                        @Value("${app.catalog.fuzzy.max-results:1000}") int maxResults) {
+        this.sweetRepository = sweetRepository;
+        this.minSimilarity = minSimilarity;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Ids of sweets resembling {@code query}, most similar first.
+     */
+    public List<Long> match(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Dictionary current = dictionary;
+        String[] words = normalized.split(" ");
+        String compact = normalized.replace(" ", "");
+
+        // Per sweet: [whole-name score, best score for each query word...]
+        Map<Integer, double[]> scores = new LinkedHashMap<>();
+        double floor = minSimilarity / 2;
+        current.visit(compact, floor, (sweet, role, similarity) -> {
+            if (role == NAME || role == CATEGORY) {
+                double[] s = scores.computeIfAbsent(sweet, k -> new double[words.length + 1]);
+                s[0] = Math.max(s[0], role == CATEGORY ? similarity * CATEGORY_WEIGHT : similarity);
+            }
+        });
+        for (int w = 0; w < words.length; w++) {
+            int slot = w + 1;
+            current.visit(words[w], floor, (sweet, role, similarity) -> {
+                if (role == NAME_WORD || role == CATEGORY) {
+                    double[] s = scores.computeIfAbsent(sweet, k -> new double[words.length + 1]);
+                    s[slot] = Math.max(s[slot], role == CATEGORY ? similarity * CATEGORY_WEIGHT : similarity);
+                }
+            });
+        }
+
+        List<long[]> ranked = new ArrayList<>();
+        for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+            double[] s = entry.getValue();
+            double perWord = 0;
+            for (int w = 1; w < s.length; w++) {
+                perWord += s[w];
+            }
+            double score = Math.max(s[0], perWord / words.length);
+            if (score >= minSimilarity) {
+                // Score scaled to an integer so ranking is a primitive compare
+                ranked.add(new long[] {Math.round(score * 1_000_000), entry.getKey()});
+            }
+        }
+        ranked.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+        List<Long> ids = new ArrayList<>(Math.min(ranked.size(), maxResults));
+        for (int i = 0; i < ranked.size() && i < maxResults; i++) {
+            ids.add(current.sweetIds[(int) ranked.get(i)[1]]);
+        }
+        return ids;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.INDEXES)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.fuzzy.rebuild-interval-ms:5000}")
+    public void rebuildIfStale() {
+        if (stale) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        stale = false;
+        long started = System.currentTimeMillis();
+        Dictionary built = Dictionary.build(sweetRepository.findAll());
+        dictionary = built;
+        log.debug("Fuzzy dictionary rebuilt: {} terms for {} sweets in {} ms",
+            built.termCount(), built.sweetIds.length, System.currentTimeMillis() - started);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean space = true;
+        for (char c : text.toLowerCase(Locale.ROOT).toCharArray()) {
+            if (Character.isLetterOrDigit(c)) {
+                out.append(c);
+                space = false;
+            } else if (!space) {
+                out.append(' ');
+                space = true;
+            }
+        }
+        return out.toString().trim();
+    }
+
+    // Padded with '$' so short terms still have trigrams and word edges weigh in
+    static long[] trigrams(String term) {
+        String padded = "$" + term + "$";
+        long[] grams = new long[Math.max(1, padded.length() - 2)];
+        for (int i = 0; i + 2 < padded.length(); i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    interface MatchVisitor {
+        void visit(int sweet, int role, double similarity);
+    }
+
+    /**
+     * Immutable term dictionary: trigram to term ordinals, and term to the sweets (with the
+     * role the term plays for them) it came from.
+     */
+    static final class Dictionary {
+
+        final long[] sweetIds;
+        private final int[] termGramCounts;
+        private final Map<Long, int[]> gramTerms;
+        // Each entry is (sweetOrdinal << 2 | role)
+        private final long[][] termSweets;
+
+        private Dictionary(long[] sweetIds, int[] termGramCounts, Map<Long, int[]> gramTerms, long[][] termSweets) {
+            this.sweetIds = sweetIds;
+            this.termGramCounts = termGramCounts;
+            this.gramTerms = gramTerms;
+            this.termSweets = termSweets;
+        }
+
+        int termCount() {
+            return termGramCounts.length;
+        }
+
+        static Dictionary build(List<Sweet> sweets) {
+            Map<String, List<Long>> terms = new LinkedHashMap<>();
+            long[] sweetIds = new long[sweets.size()];
+            for (int ordinal = 0; ordinal < sweets.size(); ordinal++) {
+                Sweet sweet = sweets.get(ordinal);
+                sweetIds[ordinal] = sweet.getId();
+                String name = normalize(sweet.getName());
+                add(terms, name.replace(" ", ""), ordinal, NAME);
+                for (String word : name.split(" ")) {
+                    add(terms, word, ordinal, NAME_WORD);
+                }
+                if (sweet.getCategory() != null) {
+                    String category = normalize(sweet.getCategory().getName());
+                    add(terms, category.replace(" ", ""), ordinal, CATEGORY);
+                    for (String word : category.split(" ")) {
+                        add(terms, word, ordinal, CATEGORY);
+                    }
+                }
+            }
+
+            int[] termGramCounts = new int[terms.size()];
+            long[][] termSweets = new long[terms.size()][];
+            Map<Long, List<Integer>> postings = new HashMap<>();
+            int term = 0;
+            for (Map.Entry<String, List<Long>> entry : terms.entrySet()) {
+                long[] grams = trigrams(entry.getKey());
+                termGramCounts[term] = grams.length;
+                for (long gram : grams) {
+                    postings.computeIfAbsent(gram, g -> new ArrayList<>()).add(term);
+                }
+                termSweets[term] = entry.getValue().stream().mapToLong(Long::longValue).distinct().toArray();
+                term++;
+            }
+            Map<Long, int[]> gramTerms = new HashMap<>(postings.size() * 2);
+            postings.forEach((gram, list) -> gramTerms.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+            return new Dictionary(sweetIds, termGramCounts, gramTerms, termSweets);
+        }
+
+        private static void add(Map<String, List<Long>> terms, String term, int ordinal, int role) {
+            if (!term.isEmpty()) {
+                terms.computeIfAbsent(term, t -> new ArrayList<>()).add(((long) ordinal << 2) | role);
+            }
+        }
+
+        /**
+         * Calls {@code visitor} for every sweet reached through a term at least {@code floor}
+         * similar to {@code query}. Terms below the floor are the bulk of those sharing a
+         * trigram and could not lift a sweet over the threshold on their own.
+         */
+        void visit(String query, double floor, MatchVisitor visitor) {
+            if (query.isEmpty()) {
+                return;
+            }
+            long[] grams = trigrams(query);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (long gram : grams) {
+                int[] terms = gramTerms.get(gram);
+                if (terms != null) {
+                    for (int term : terms) {
+                        shared.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                int term = entry.getKey();
+                int common = entry.getValue();
+                double similarity = (double) common / (grams.length + termGramCounts[term] - common);
+                if (similarity < floor) {
+                    continue;
+                }
+                for (long packed : termSweets[term]) {
+                    visitor.visit((int) (packed >>> 2), (int) (packed & 3), similarity);
+                }
+            }
+        }
+    }
+}
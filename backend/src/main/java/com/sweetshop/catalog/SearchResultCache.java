@@ -0,0 +1,279 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.cache.TinyLfuCache;
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Remembers the ids and total of recently served search pages.
+ *
+ * Entries are keyed by a canonical form of the criteria and page, so "Fudge " and "fudge",
+ * or a price of 2.0 and 2.00, share one entry, and are held in a {@link TinyLfuCache}
+ * bounded by the number of ids stored.
+ *
+ * A write drops only the entries it could change. The cache tracks each sweet's category,
+ * price and stock. An entry is dropped when the sweet is on the cached page, or when the
+ * sweet's old or new state passes the entry's category, price and stock filters. A stock
+ * movement only matters to entries sorted by quantity, or to in-stock-only entries when
+ * the sweet sells out or comes back. The name term is not checked, so every named search
+ * matching the other filters is dropped too. Every write bumps a generation number, and a
+ * page computed across a write is not stored. The bump comes after the indexes searches
+ * run on have applied the write, so a search that saw the new generation also saw the
+ * write.
+ *
+ * The periodic resync reloads the tracked state and clears the cache, which bounds the life
+ * of an entry that a missed event left stale. Enabled with
+ * {@code app.catalog.search-cache.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.catalog.search-cache", name = "enabled", havingValue = "true")
+public class SearchResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private final SweetRepository sweetRepository;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final TinyLfuCache<String, CachedPage> cache;
+    private final Counter invalidations;
+    private final Map<Long, SweetState> sweets = new ConcurrentHashMap<>();
+    private long generation;
+
+    public SearchResultCache(SweetRepository sweetRepository,
+                             Optional<InventoryLedger> inventoryLedger,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.catalog.search-cache.max-ids:200000}") long maxIds) {
+        this.sweetRepository = sweetRepository;
+        this.inventoryLedger = inventoryLedger;
+        // Each entry also weighs one for its key and total, so empty pages are not free
+        this.cache = new TinyLfuCache<>(maxIds, page -> page.ids.size() + 1);
+
+        FunctionCounter.builder("sweetshop.search.cache.requests", cache, TinyLfuCache::hitCount)
+            .tag("result", "hit")
+            .description("Searches answered from the result cache")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.search.cache.requests", cache, TinyLfuCache::missCount)
+            .tag("result", "miss")
+            .description("Searches that ran because no cached result was found")
+            .register(meterRegistry);
+        FunctionCounter.builder("sweetshop.search.cache.evictions", cache, TinyLfuCache::evictionCount)
+            .description("Cached searches evicted, or turned away, to stay within the size limit")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.search.cache.size", cache, TinyLfuCache::size)
+            .description("Cached search pages")
+            .register(meterRegistry);
+        Gauge.builder("sweetshop.search.cache.weight", cache, TinyLfuCache::weight)
+            .description("Sweet ids held by the search result cache")
+            .register(meterRegistry);
+        this.invalidations = Counter.builder("sweetshop.search.cache.invalidations")
+            .description("Cached searches dropped because a write could have changed them")
+            .register(meterRegistry);
+    }
+
+    /**
+     * One cached page: the ids in result order, the total across all pages, and the
+     * filters it was computed with.
+     */
+    public static final class CachedPage {
+        private final List<Long> ids;
+        private final long total;
+        private final Long categoryId;
+        private final long minCents;
+        private final long maxCents;
+        private final boolean onlyAvailable;
+        private final boolean sortedByQuantity;
+
+        CachedPage(List<Long> ids, long total, SweetSearchCriteria criteria, Sort sort) {
+            this.ids = ids;
+            this.total = total;
+            this.categoryId = criteria.getCategoryId();
+            this.minCents = criteria.getMinPrice() == null ? Long.MIN_VALUE : cents(criteria.getMinPrice());
+            this.maxCents = criteria.getMaxPrice() == null ? Long.MAX_VALUE : cents(criteria.getMaxPrice());
+            this.onlyAvailable = criteria.isOnlyAvailable();
+            this.sortedByQuantity = sort.getOrderFor("quantity") != null;
+        }
+
+        public List<Long> getIds() { return ids; }
+        public long getTotal() { return total; }
+
+        // Whether a sweet in this state passes the filters; the name term is not checked
+        boolean admits(SweetState sweet, boolean checkStock) {
+            return (categoryId == null || categoryId.equals(sweet.categoryId))
+                && sweet.priceCents >= minCents && sweet.priceCents <= maxCents
+                && (!checkStock || !onlyAvailable || sweet.quantity > 0);
+        }
+    }
+
+    static final class SweetState {
+        final Long categoryId;
+        final long priceCents;
+        final int quantity;
+
+        SweetState(Long categoryId, long priceCents, int quantity) {
+            this.categoryId = categoryId;
+            this.priceCents = priceCents;
+            this.quantity = quantity;
+        }
+
+        SweetState withQuantity(int quantity) {
+            return new SweetState(categoryId, priceCents, quantity);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        resync();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.search-cache.resync-interval-ms:300000}",
+               initialDelayString = "${app.catalog.search-cache.resync-interval-ms:300000}")
+    public void resync() {
+        Map<Long, SweetState> loaded = new HashMap<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            loaded.put(sweet.getId(), state(sweet, quantity(sweet)));
+        }
+        synchronized (this) {
+            sweets.clear();
+            sweets.putAll(loaded);
+            generation++;
+            cache.invalidateAll();
+        }
+        log.debug("Search result cache resynced: {} sweets tracked", loaded.size());
+    }
+
+    /**
+     * The cached page for this search, or null.
+     */
+    public CachedPage get(SweetSearchCriteria criteria, Pageable pageable) {
+        return cache.get(key(criteria, pageable));
+    }
+
+    /**
+     * Read before running a search and handed back to {@link #put}, which skips the page if
+     * a write landed in between.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(SweetSearchCriteria criteria, Pageable pageable, Page<Long> page, long seenGeneration) {
+        if (seenGeneration != generation) {
+            return;
+        }
+        cache.put(key(criteria, pageable),
+            new CachedPage(List.copyOf(page.getContent()), page.getTotalElements(), criteria, pageable.getSort()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.RESULTS)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        Long sweetId = event.getSweetId();
+        SweetState before = sweets.get(sweetId);
+        SweetState after = null;
+        if (event.getType() == CatalogChangedEvent.Type.DELETED) {
+            sweets.remove(sweetId);
+        } else {
+            after = state(event.getSweet(), quantity(event.getSweet()));
+            sweets.put(sweetId, after);
+        }
+        SweetState old = before;
+        SweetState current = after;
+        invalidate(page -> page.ids.contains(sweetId)
+            || (old != null && page.admits(old, true))
+            || (current != null && page.admits(current, true)));
+    }
+
+    // Sweets not seen yet are added by their catalog event, which carries the full row
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.RESULTS)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        if (event.getCause() == StockChangedEvent.Cause.DELETED || event.getDelta() == 0) {
+            return;
+        }
+        SweetState before = sweets.get(event.getSweetId());
+        if (before == null) {
+            return;
+        }
+        SweetState after = before.withQuantity(before.quantity + event.getDelta());
+        sweets.put(event.getSweetId(), after);
+        boolean availabilityChanged = (before.quantity > 0) != (after.quantity > 0);
+        invalidate(page -> page.admits(before, false)
+            && (page.sortedByQuantity || (page.onlyAvailable && availabilityChanged)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(CatalogListenerOrder.RESULTS)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getType() == CategoryChangedEvent.Type.DELETED) {
+            invalidate(page -> event.getCategoryId().equals(page.categoryId));
+        }
+    }
+
+    // The ledger holds stock not yet written back to the row
+    private int quantity(Sweet sweet) {
+        return inventoryLedger.map(ledger -> ledger.available(sweet.getId())).orElse(sweet.getQuantity());
+    }
+
+    private void invalidate(Predicate<CachedPage> affected) {
+        generation++;
+        int removed = cache.invalidateIf((key, page) -> affected.test(page));
+        invalidations.increment(removed);
+    }
+
+    /**
+     * Canonical cache key: the name trimmed and lower-cased, prices without trailing zeros,
+     * fuzzy matching only when there is a name, then the sort and the page.
+     */
+    static String key(SweetSearchCriteria criteria, Pageable pageable) {
+        String name = criteria.getName() == null ? "" : criteria.getName().trim().toLowerCase(Locale.ROOT);
+        return "n=" + name
+            + "|c=" + criteria.getCategoryId()
+            + "|lo=" + plain(criteria.getMinPrice())
+            + "|hi=" + plain(criteria.getMaxPrice())
+            + "|a=" + criteria.isOnlyAvailable()
+            + "|f=" + (criteria.isFuzzy() && !name.isEmpty())
+            + "|s=" + pageable.getSort()
+            + "|p=" + pageable.getPageNumber()
+            + "|z=" + pageable.getPageSize();
+    }
+
+    private static String plain(BigDecimal amount) {
+        return amount == null ? "" : amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static SweetState state(Sweet sweet, int quantity) {
+        Long categoryId = sweet.getCategory() == null ? null : sweet.getCategory().getId();
+        return new SweetState(categoryId, cents(sweet.getPrice()), quantity);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+}
@@ -0,0 +1,235 @@
+package com.sweetshop.catalog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * Immutable radix trie answering "top K suggestions for this prefix".
+ *
+ * Built once from a list of entries and then flattened into primitive arrays: each node has
+ * an edge label (a slice of {@code labels}), a contiguous run of children sorted by their
+ * first label char, and its precomputed top-K entry list. A lookup walks at most
+ * {@code prefix.length()} chars and copies the K entries it finds, without allocating nodes
+ * or touching the entries it does not return.
+ *
+ * Every entry is reachable from the start of each word of its text, so "fudge" finds
+ * "Chocolate Fudge".
+ */
+final class SuggestionTrie {
+
+    static final SuggestionTrie EMPTY = build(List.of(), 1);
+
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    private final char[] firstChar;
+    private final int[] childStart;
+    private final int[] childCount;
+    private final int[] topStart;
+    private final int[] topCount;
+    private final int[] top;
+    private final int entryCount;
+
+    private SuggestionTrie(char[] labels, int[] labelStart, int[] labelLength, char[] firstChar,
+                           int[] childStart, int[] childCount, int[] topStart, int[] topCount,
+                           int[] top, int entryCount) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.firstChar = firstChar;
+        this.childStart = childStart;
+        this.childCount = childCount;
+        this.topStart = topStart;
+        this.topCount = topCount;
+        this.top = top;
+        this.entryCount = entryCount;
+    }
+
+    int nodeCount() {
+        return labelStart.length;
+    }
+
+    int entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Indexes of the best entries under {@code prefix}, best first, at most {@code limit}.
+     */
+    int[] lookup(String prefix, int limit) {
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int node = 0;
+        int matched = 0;
+        while (matched < key.length()) {
+            int child = findChild(node, key.charAt(matched));
+            if (child < 0) {
+                return new int[0];
+            }
+            int start = labelStart[child];
+            int length = labelLength[child];
+            for (int i = 0; i < length && matched < key.length(); i++, matched++) {
+                if (labels[start + i] != key.charAt(matched)) {
+                    return new int[0];
+                }
+            }
+            node = child;
+        }
+        return Arrays.copyOfRange(top, topStart[node], topStart[node] + Math.min(topCount[node], limit));
+    }
+
+    private int findChild(int node, char c) {
+        int low = childStart[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstChar[mid] < c) {
+                low = mid + 1;
+            } else if (firstChar[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // Mutable node used only while building
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        final List<Integer> terminals = new ArrayList<>(1);
+        StringBuilder label = new StringBuilder();
+        int[] top;
+    }
+
+    /**
+     * Builds a trie over {@code texts}; {@code scores} ranks them (higher first, then lower
+     * index) and each node keeps its best {@code k}.
+     */
+    static SuggestionTrie build(List<String> texts, int k, long... scores) {
+        Node root = new Node();
+        for (int entry = 0; entry < texts.size(); entry++) {
+            String text = texts.get(entry).toLowerCase(Locale.ROOT).trim();
+            for (int start = 0; start < text.length(); start++) {
+                boolean wordStart = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+                if (wordStart && Character.isLetterOrDigit(text.charAt(start))) {
+                    insert(root, text, start, entry);
+                }
+            }
+        }
+        rank(root, k, scores);
+        compress(root);
+        return flatten(root, texts.size());
+    }
+
+    private static void insert(Node root, String text, int from, int entry) {
+        Node node = root;
+        for (int i = from; i < text.length(); i++) {
+            node = node.children.computeIfAbsent(text.charAt(i), c -> new Node());
+        }
+        node.terminals.add(entry);
+    }
+
+    private static void rank(Node root, int k, long[] scores) {
+        // Post-order without recursion, since names can make the tree deep
+        Deque<Node> stack = new ArrayDeque<>();
+        List<Node> order = new ArrayList<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            order.add(node);
+            node.children.values().forEach(stack::push);
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            Node node = order.get(i);
+            List<Integer> candidates = new ArrayList<>(node.terminals);
+            for (Node child : node.children.values()) {
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+            }
+            node.top = candidates.stream()
+                .distinct()
+                .sorted((a, b) -> {
+                    long sa = a < scores.length ? scores[a] : 0;
+                    long sb = b < scores.length ? scores[b] : 0;
+                    return sa != sb ? Long.compare(sb, sa) : Integer.compare(a, b);
+                })
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+    }
+
+    // Merges chains of single-child nodes without terminals into one labelled edge
+    private static void compress(Node root) {
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            TreeMap<Character, Node> merged = new TreeMap<>();
+            for (var edge : node.children.entrySet()) {
+                Node child = edge.getValue();
+                StringBuilder label = new StringBuilder().append(edge.getKey());
+                while (child.children.size() == 1 && child.terminals.isEmpty()) {
+                    var only = child.children.firstEntry();
+                    label.append(only.getKey());
+                    child = only.getValue();
+                }
+                child.label = label;
+                merged.put(edge.getKey(), child);
+                stack.push(child);
+            }
+            node.children.clear();
+            node.children.putAll(merged);
+        }
+    }
+
+    private static SuggestionTrie flatten(Node root, int entryCount) {
+        // Breadth-first, so each node's children get consecutive slots
+        List<Node> nodes = new ArrayList<>();
+        nodes.add(root);
+        int labelChars = 0;
+        int topEntries = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            nodes.addAll(node.children.values());
+            labelChars += node.label.length();
+            topEntries += node.top.length;
+        }
+        int n = nodes.size();
+        char[] labels = new char[labelChars];
+        int[] labelStart = new int[n];
+        int[] labelLength = new int[n];
+        char[] firstChar = new char[n];
+        int[] childStart = new int[n];
+        int[] childCount = new int[n];
+        int[] topStart = new int[n];
+        int[] topCount = new int[n];
+        int[] top = new int[topEntries];
+        int nextChild = 1;
+        int labelAt = 0;
+        int topAt = 0;
+        for (int i = 0; i < n; i++) {
+            Node node = nodes.get(i);
+            labelStart[i] = labelAt;
+            labelLength[i] = node.label.length();
+            node.label.getChars(0, node.label.length(), labels, labelAt);
+            labelAt += node.label.length();
+            firstChar[i] = node.label.length() == 0 ? 0 : node.label.charAt(0);
+            childStart[i] = nextChild;
+            childCount[i] = node.children.size();
+            nextChild += node.children.size();
+            topStart[i] = topAt;
+            topCount[i] = node.top.length;
+            System.arraycopy(node.top, 0, top, topAt, node.top.length);
+            topAt += node.top.length;
+        }
+        return new SuggestionTrie(labels, labelStart, labelLength, firstChar, childStart, childCount,
+            topStart, topCount, top, entryCount);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sweetshop.config;
+
+import com.sweetshop.cache.EmbeddedRegionFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns on Hibernate's second-level and query caches, backed by an
+ * {@link EmbeddedRegionFactory} so no cache server or provider library is needed.
+ *
+ * Only entities marked {@code @Cache} (categories and roles) and queries hinted as
+ * cacheable use it. Writes through JPA update the entity regions and invalidate the
+ * affected query results when they commit. Enabled with
+ * {@code app.hibernate-cache.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.hibernate-cache", name = "enabled", havingValue = "true")
+public class HibernateCacheConfig {
+
+    @Bean
+    public EmbeddedRegionFactory embeddedRegionFactory(MeterRegistry meterRegistry,
+            @Value("${app.hibernate-cache.max-entries-per-region:10000}") long maxEntriesPerRegion) {
+        return new EmbeddedRegionFactory(maxEntriesPerRegion, meterRegistry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(EmbeddedRegionFactory regionFactory) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+        };
+    }
+}
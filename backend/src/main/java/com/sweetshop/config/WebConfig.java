@@ -0,0 +1,24 @@
+package com.sweetshop.config;
+
+import com.sweetshop.catalog.CatalogEtagInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import java.util.Optional;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final Optional<CatalogEtagInterceptor> catalogEtagInterceptor;
+
+    public WebConfig(Optional<CatalogEtagInterceptor> catalogEtagInterceptor) {
+        this.catalogEtagInterceptor = catalogEtagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // The interceptor itself skips everything but public catalog reads
+        catalogEtagInterceptor.ifPresent(interceptor -> registry.addInterceptor(interceptor)
+            .addPathPatterns("/api/sweets", "/api/sweets/**", "/api/categories", "/api/categories/**"));
+    }
+}
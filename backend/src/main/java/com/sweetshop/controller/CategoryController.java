@@ -4,6 +4,8 @@ import com.sweetshop.service.CategoryService;
 import com.sweetshop.entity.Category;
 import com.sweetshop.dto.CategoryDto;
 import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.CursorPage;
+import com.sweetshop.util.KeysetCursor;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -21,8 +23,10 @@ public class CategoryController {
     private CategoryService categoryService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Category>>> getAllCategories() {
-        List<Category> categories = categoryService.findAllCategories();
+    public ResponseEntity<ApiResponse<CursorPage<Category>>> getAllCategories(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit) {
+        CursorPage<Category> categories = categoryService.findCategories(cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Categories retrieved successfully", categories));
     }
 
@@ -0,0 +1,40 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.service.InventoryAuditService;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.JournalPageDto;
+import com.sweetshop.dto.StockDiscrepancyDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+public class InventoryController {
+
+    @Autowired
+    private InventoryAuditService inventoryAuditService;
+
+    @GetMapping("/journal")
+    public ResponseEntity<ApiResponse<JournalPageDto>> getJournal(@RequestParam(defaultValue = "0") long fromOffset,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        JournalPageDto page = inventoryAuditService.readJournal(fromOffset, limit);
+        return ResponseEntity.ok(ApiResponse.success("Inventory journal retrieved successfully", page));
+    }
+
+    @GetMapping("/journal/verify")
+    public ResponseEntity<ApiResponse<List<StockDiscrepancyDto>>> verifyStock() {
+        List<StockDiscrepancyDto> discrepancies = inventoryAuditService.verifyStock();
+        long gaps = discrepancies.stream().filter(StockDiscrepancyDto::isJournalGap).count();
+        String message = discrepancies.isEmpty()
+            ? "Journal matches current stock"
+            : gaps > 0
+                ? "Journal is incomplete: changes to " + gaps + " sweets were not journaled individually"
+                : "Journal differs from current stock for " + discrepancies.size() + " sweets";
+        return ResponseEntity.ok(ApiResponse.success(message, discrepancies));
+    }
+}
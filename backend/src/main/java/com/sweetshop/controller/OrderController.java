@@ -0,0 +1,42 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.service.IdempotencyService;
+import com.sweetshop.service.OrderService;
+import com.sweetshop.entity.User;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.CheckoutRequest;
+import com.sweetshop.dto.CheckoutResponse;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/orders")
+@CrossOrigin(origins = "*")
+public class OrderController {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@AuthenticationPrincipal User user,
+                                      @Valid @RequestBody CheckoutRequest request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return placeOrder(user, request);
+        }
+        return idempotencyService.execute("checkout", user, idempotencyKey, request, () -> placeOrder(user, request));
+    }
+
+    private ResponseEntity<ApiResponse<CheckoutResponse>> placeOrder(User user, CheckoutRequest request) {
+        CheckoutResponse response = orderService.checkout(user, request.getItems());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Order placed successfully", response));
+    }
+}
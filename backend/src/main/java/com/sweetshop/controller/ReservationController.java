@@ -0,0 +1,52 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.service.ReservationService;
+import com.sweetshop.entity.User;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.CheckoutResponse;
+import com.sweetshop.dto.ConfirmReservationsRequest;
+import com.sweetshop.dto.ReservationDto;
+import com.sweetshop.dto.ReservationRequest;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/reservations")
+@CrossOrigin(origins = "*")
+public class ReservationController {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<ReservationDto>> reserve(@AuthenticationPrincipal User user,
+                                                               @Valid @RequestBody ReservationRequest request) {
+        ReservationDto reservation = reservationService.reserve(user, request.getSweetId(), request.getQuantity());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Stock reserved successfully", reservation));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<String>> release(@AuthenticationPrincipal User user, @PathVariable String id) {
+        reservationService.release(user, id);
+        return ResponseEntity.ok(ApiResponse.success("Reservation released successfully", "Reservation released"));
+    }
+
+    @PostMapping("/confirm")
+    public ResponseEntity<ApiResponse<CheckoutResponse>> confirm(@AuthenticationPrincipal User user,
+                                                                 @Valid @RequestBody ConfirmReservationsRequest request) {
+        CheckoutResponse response = reservationService.confirm(user, request.getReservationIds());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Order placed successfully", response));
+    }
+
+    @GetMapping("/availability/{sweetId}")
+    public ResponseEntity<ApiResponse<Integer>> getAvailableStock(@PathVariable Long sweetId) {
+        int available = reservationService.availableStock(sweetId);
+        return ResponseEntity.ok(ApiResponse.success("Available stock retrieved successfully", available));
+    }
+}
@@ -1,16 +1,24 @@
 package com.sweetshop.controller;
 
+import com.sweetshop.catalog.CatalogSuggester;
+import com.sweetshop.service.IdempotencyService;
+import com.sweetshop.service.RestockService;
 import com.sweetshop.service.SweetService;
 import com.sweetshop.entity.Sweet;
+import com.sweetshop.entity.User;
 import com.sweetshop.dto.*;
+import com.sweetshop.util.KeysetCursor;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/sweets")
@@ -20,12 +28,36 @@ public class SweetController {
     @Autowired
     private SweetService sweetService;
 
+    @Autowired
+    private RestockService restockService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private CatalogSuggester catalogSuggester;
+
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Sweet>>> getAllSweets() {
-        List<Sweet> sweets = sweetService.findAvailableSweets();
+    public ResponseEntity<ApiResponse<CursorPage<SweetCardDto>>> getAllSweets(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit) {
+        CursorPage<SweetCardDto> sweets = sweetService.findAvailableSweets(cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Sweets retrieved successfully", sweets));
     }
 
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<CatalogChangesDto>> getChanges(@RequestParam(defaultValue = "0") long since) {
+        CatalogChangesDto changes = sweetService.findChanges(since);
+        return ResponseEntity.ok(ApiResponse.success("Changes retrieved successfully", changes));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionDto>>> suggest(@RequestParam String prefix,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        List<SuggestionDto> suggestions = catalogSuggester.suggest(prefix, limit);
+        return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully", suggestions));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<Sweet>> getSweetById(@PathVariable Long id) {
         Sweet sweet = sweetService.findById(id);
@@ -33,12 +65,18 @@ public class SweetController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<ApiResponse<List<Sweet>>> searchSweets(
+    public ResponseEntity<ApiResponse<Page<SweetCardDto>>> searchSweets(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
-            @RequestParam(defaultValue = "true") boolean onlyAvailable) {
+            @RequestParam(defaultValue = "true") boolean onlyAvailable,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean fuzzy) {
         
         SweetSearchCriteria criteria = new SweetSearchCriteria();
         criteria.setName(name);
@@ -46,8 +84,12 @@ public class SweetController {
         criteria.setMinPrice(minPrice);
         criteria.setMaxPrice(maxPrice);
         criteria.setOnlyAvailable(onlyAvailable);
+        criteria.setFuzzy(fuzzy);
         
-        List<Sweet> sweets = sweetService.searchSweets(criteria);
+        Page<SweetCardDto> sweets = sweetService.searchSweets(criteria, SweetService.searchPage(page, size, sort, direction));
+        if (facets) {
+            sweets = new FacetedPage<>(sweets, sweetService.facetSweets(criteria));
+        }
         return ResponseEntity.ok(ApiResponse.success("Search results retrieved successfully", sweets));
     }
 
@@ -74,43 +116,128 @@ public class SweetController {
     }
 
     @PostMapping("/{id}/purchase")
-    public ResponseEntity<ApiResponse<Sweet>> purchaseSweet(@PathVariable Long id, 
-                                                           @Valid @RequestBody PurchaseRequest request) {
-        Sweet sweet = sweetService.purchaseSweet(id, request.getQuantity());
-        return ResponseEntity.ok(ApiResponse.success("Sweet purchased successfully", sweet));
+    public ResponseEntity<?> purchaseSweet(@AuthenticationPrincipal User user,
+                                           @PathVariable Long id, 
+                                           @Valid @RequestBody PurchaseRequest request,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("purchase:" + id, user, idempotencyKey, request, () -> {
+            Sweet sweet = sweetService.purchaseSweet(user, id, request.getQuantity());
+            return ResponseEntity.ok(ApiResponse.success("Sweet purchased successfully", sweet));
+        });
     }
 
     @PostMapping("/{id}/restock")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<Sweet>> restockSweet(@PathVariable Long id, 
-                                                          @Valid @RequestBody PurchaseRequest request) {
-        Sweet sweet = sweetService.restockSweet(id, request.getQuantity());
-        return ResponseEntity.ok(ApiResponse.success("Sweet restocked successfully", sweet));
+    public ResponseEntity<?> restockSweet(@AuthenticationPrincipal User user,
+                                          @PathVariable Long id, 
+                                          @Valid @RequestBody PurchaseRequest request,
+                                          @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("restock:" + id, user, idempotencyKey, request, () -> {
+            Sweet sweet = sweetService.restockSweet(id, request.getQuantity());
+            return ResponseEntity.ok(ApiResponse.success("Sweet restocked successfully", sweet));
+        });
+    }
+
+    @PostMapping("/restock/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> restockSweets(@AuthenticationPrincipal User user,
+                                           @RequestBody List<RestockItem> items,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotent("restock:bulk", user, idempotencyKey, items, () -> {
+            BulkRestockResponse response = restockService.restock(items);
+            return ResponseEntity.ok(ApiResponse.success("Bulk restock processed", response));
+        });
+    }
+
+    @GetMapping("/flash-sales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<List<FlashSaleDto>>> getActiveFlashSales() {
+        List<FlashSaleDto> sales = sweetService.findActiveFlashSales();
+        return ResponseEntity.ok(ApiResponse.success("Flash sales retrieved successfully", sales));
+    }
+
+    @PostMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FlashSaleDto>> startFlashSale(@PathVariable Long id,
+                                                                    @Valid @RequestBody PurchaseRequest request) {
+        FlashSaleDto sale = sweetService.startFlashSale(id, request.getQuantity());
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(ApiResponse.success("Flash sale started successfully", sale));
+    }
+
+    @DeleteMapping("/{id}/flash-sale")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<FlashSaleDto>> endFlashSale(@PathVariable Long id) {
+        FlashSaleDto sale = sweetService.endFlashSale(id);
+        return ResponseEntity.ok(ApiResponse.success("Flash sale ended successfully", sale));
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<List<Sweet>>> getSweetsByCategory(@PathVariable Long categoryId) {
-        List<Sweet> sweets = sweetService.findSweetsByCategory(categoryId);
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getSweetsByCategory(@PathVariable Long categoryId) {
+        List<SweetCardDto> sweets = sweetService.findSweetsByCategory(categoryId);
         return ResponseEntity.ok(ApiResponse.success("Sweets by category retrieved successfully", sweets));
     }
 
     @GetMapping("/top-selling")
-    public ResponseEntity<ApiResponse<List<Sweet>>> getTopSellingSweets(@RequestParam(defaultValue = "10") int limit) {
-        List<Sweet> sweets = sweetService.findTopSellingSweets(limit);
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getTopSellingSweets(@RequestParam(defaultValue = "10") int limit) {
+        List<SweetCardDto> sweets = sweetService.findTopSellingSweets(limit);
         return ResponseEntity.ok(ApiResponse.success("Top selling sweets retrieved successfully", sweets));
     }
 
+    @GetMapping("/cheapest")
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getCheapestSweets(@RequestParam(defaultValue = "10") int limit,
+                                                                      @RequestParam(defaultValue = "false") boolean onlyAvailable) {
+        List<SweetCardDto> sweets = sweetService.findCheapestSweets(limit, onlyAvailable);
+        return ResponseEntity.ok(ApiResponse.success("Cheapest sweets retrieved successfully", sweets));
+    }
+
+    @GetMapping("/newest")
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getNewestSweets(@RequestParam(defaultValue = "10") int limit,
+                                                                    @RequestParam(defaultValue = "false") boolean onlyAvailable) {
+        List<SweetCardDto> sweets = sweetService.findNewestSweets(limit, onlyAvailable);
+        return ResponseEntity.ok(ApiResponse.success("Newest sweets retrieved successfully", sweets));
+    }
+
+    @GetMapping("/price-range")
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getSweetsByPriceRange(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean onlyAvailable) {
+        List<SweetCardDto> sweets = sweetService.findSweetsByPriceRange(minPrice, maxPrice, categoryId, onlyAvailable);
+        return ResponseEntity.ok(ApiResponse.success("Sweets by price range retrieved successfully", sweets));
+    }
+
     @GetMapping("/low-stock")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<Sweet>>> getLowStockSweets(@RequestParam(defaultValue = "5") int threshold) {
-        List<Sweet> sweets = sweetService.findLowStockSweets(threshold);
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getLowStockSweets(@RequestParam(required = false) Integer threshold) {
+        // Without an explicit threshold each sweet is judged against its own
+        List<SweetCardDto> sweets = threshold == null
+            ? sweetService.findLowStockSweets()
+            : sweetService.findLowStockSweets(threshold);
         return ResponseEntity.ok(ApiResponse.success("Low stock sweets retrieved successfully", sweets));
     }
 
     @GetMapping("/out-of-stock")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<Sweet>>> getOutOfStockSweets() {
-        List<Sweet> sweets = sweetService.findOutOfStockSweets();
+    public ResponseEntity<ApiResponse<List<SweetCardDto>>> getOutOfStockSweets() {
+        List<SweetCardDto> sweets = sweetService.findOutOfStockSweets();
         return ResponseEntity.ok(ApiResponse.success("Out of stock sweets retrieved successfully", sweets));
     }
+
+    @PutMapping("/{id}/low-stock-threshold")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Sweet>> updateLowStockThreshold(@PathVariable Long id,
+                                                                      @Valid @RequestBody LowStockThresholdRequest request) {
+        Sweet sweet = sweetService.updateLowStockThreshold(id, request.getThreshold());
+        return ResponseEntity.ok(ApiResponse.success("Low stock threshold updated successfully", sweet));
+    }
+
+    private ResponseEntity<?> idempotent(String scope, User user, String idempotencyKey, Object request,
+                                         Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        return idempotencyService.execute(scope, user, idempotencyKey, request, action);
+    }
 }
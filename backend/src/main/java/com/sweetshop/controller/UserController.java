@@ -3,12 +3,13 @@ package com.sweetshop.controller;
 import com.sweetshop.service.UserService;
 import com.sweetshop.entity.User;
 import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.CursorPage;
+import com.sweetshop.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/users")
@@ -26,8 +27,10 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ApiResponse<List<User>>> getAllUsers() {
-        List<User> users = userService.findAllUsers();
+    public ResponseEntity<ApiResponse<CursorPage<User>>> getAllUsers(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + KeysetCursor.DEFAULT_LIMIT) int limit) {
+        CursorPage<User> users = userService.findUsers(cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Users retrieved successfully", users));
     }
 
@@ -7,6 +7,7 @@ public class ApiResponse<T> {
     private boolean success;
     private String message;
     private T data;
+    // When the response was built; a cached catalog response keeps the time it was rendered
     private LocalDateTime timestamp;
 
     public ApiResponse() {
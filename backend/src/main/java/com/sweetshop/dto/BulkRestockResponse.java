@@ -0,0 +1,28 @@
+package com.sweetshop.dto;
+
+import java.util.List;
+
+public class BulkRestockResponse {
+    
+    private List<RestockResult> results;
+    private int restocked;
+    private int failed;
+
+    public BulkRestockResponse() {}
+
+    public BulkRestockResponse(List<RestockResult> results, int restocked, int failed) {
+        this.results = results;
+        this.restocked = restocked;
+        this.failed = failed;
+    }
+
+    // Getters and Setters
+    public List<RestockResult> getResults() { return results; }
+    public void setResults(List<RestockResult> results) { this.results = results; }
+
+    public int getRestocked() { return restocked; }
+    public void setRestocked(int restocked) { this.restocked = restocked; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+}
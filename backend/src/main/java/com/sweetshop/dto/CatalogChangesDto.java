@@ -0,0 +1,39 @@
+package com.sweetshop.dto;
+
+import java.util.List;
+
+public class CatalogChangesDto {
+
+    // Passed back as "since" on the next poll
+    private long version;
+    // The changes could not be worked out; the client must reload the whole catalog
+    private boolean fullResync;
+    private List<SweetCardDto> upserted;
+    private List<Long> deleted;
+
+    public CatalogChangesDto() {}
+
+    public CatalogChangesDto(long version, boolean fullResync, List<SweetCardDto> upserted, List<Long> deleted) {
+        this.version = version;
+        this.fullResync = fullResync;
+        this.upserted = upserted;
+        this.deleted = deleted;
+    }
+
+    public static CatalogChangesDto fullResync(long version) {
+        return new CatalogChangesDto(version, true, List.of(), List.of());
+    }
+
+    // Getters and Setters
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public boolean isFullResync() { return fullResync; }
+    public void setFullResync(boolean fullResync) { this.fullResync = fullResync; }
+
+    public List<SweetCardDto> getUpserted() { return upserted; }
+    public void setUpserted(List<SweetCardDto> upserted) { this.upserted = upserted; }
+
+    public List<Long> getDeleted() { return deleted; }
+    public void setDeleted(List<Long> deleted) { this.deleted = deleted; }
+}
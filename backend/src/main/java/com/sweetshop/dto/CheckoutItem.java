@@ -0,0 +1,31 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class CheckoutItem {
+
+    public static final int MAX_QUANTITY = 10_000;
+    
+    @NotNull(message = "Sweet is required")
+    private Long sweetId;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = MAX_QUANTITY, message = "Quantity must be at most " + MAX_QUANTITY)
+    private Integer quantity;
+
+    public CheckoutItem() {}
+
+    public CheckoutItem(Long sweetId, Integer quantity) {
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+    }
+
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,24 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckoutRequest {
+    
+    @NotEmpty(message = "Cart is empty")
+    @Size(max = 200, message = "A checkout can contain at most 200 lines")
+    @Valid
+    private List<CheckoutItem> items = new ArrayList<>();
+
+    public CheckoutRequest() {}
+
+    public CheckoutRequest(List<CheckoutItem> items) {
+        this.items = items;
+    }
+
+    public List<CheckoutItem> getItems() { return items; }
+    public void setItems(List<CheckoutItem> items) { this.items = items; }
+}
@@ -0,0 +1,30 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CheckoutResponse {
+    
+    private List<OrderDto> orders;
+    private BigDecimal totalAmount;
+    private LocalDateTime orderDate;
+
+    public CheckoutResponse() {}
+
+    public CheckoutResponse(List<OrderDto> orders, BigDecimal totalAmount, LocalDateTime orderDate) {
+        this.orders = orders;
+        this.totalAmount = totalAmount;
+        this.orderDate = orderDate;
+    }
+
+    // Getters and Setters
+    public List<OrderDto> getOrders() { return orders; }
+    public void setOrders(List<OrderDto> orders) { this.orders = orders; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    public LocalDateTime getOrderDate() { return orderDate; }
+    public void setOrderDate(LocalDateTime orderDate) { this.orderDate = orderDate; }
+}
@@ -0,0 +1,20 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConfirmReservationsRequest {
+    
+    @NotEmpty(message = "No reservations to confirm")
+    private List<String> reservationIds = new ArrayList<>();
+
+    public ConfirmReservationsRequest() {}
+
+    public ConfirmReservationsRequest(List<String> reservationIds) {
+        this.reservationIds = reservationIds;
+    }
+
+    public List<String> getReservationIds() { return reservationIds; }
+    public void setReservationIds(List<String> reservationIds) { this.reservationIds = reservationIds; }
+}
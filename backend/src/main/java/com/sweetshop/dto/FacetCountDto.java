@@ -0,0 +1,26 @@
+package com.sweetshop.dto;
+
+public class FacetCountDto {
+    
+    private String key;
+    private String label;
+    private long count;
+
+    public FacetCountDto() {}
+
+    public FacetCountDto(String key, String label, long count) {
+        this.key = key;
+        this.label = label;
+        this.count = count;
+    }
+
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getLabel() { return label; }
+    public void setLabel(String label) { this.label = label; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,22 @@
+package com.sweetshop.dto;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * A page of search results with facet counts alongside; serializes like a plain page plus
+ * a {@code facets} field.
+ */
+public class FacetedPage<T> extends PageImpl<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SearchFacetsDto facets;
+
+    public FacetedPage(Page<T> page, SearchFacetsDto facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.facets = facets;
+    }
+
+    public SearchFacetsDto getFacets() { return facets; }
+}
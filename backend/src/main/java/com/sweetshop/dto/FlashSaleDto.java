@@ -0,0 +1,44 @@
+package com.sweetshop.dto;
+
+import java.time.Instant;
+
+public class FlashSaleDto {
+    
+    private Long sweetId;
+    private Integer allocated;
+    private Integer remaining;
+    private Integer pendingWrites;
+    private Instant startedAt;
+    private boolean active;
+
+    public FlashSaleDto() {}
+
+    public FlashSaleDto(Long sweetId, Integer allocated, Integer remaining, Integer pendingWrites,
+                        Instant startedAt, boolean active) {
+        this.sweetId = sweetId;
+        this.allocated = allocated;
+        this.remaining = remaining;
+        this.pendingWrites = pendingWrites;
+        this.startedAt = startedAt;
+        this.active = active;
+    }
+
+    // Getters and Setters
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getAllocated() { return allocated; }
+    public void setAllocated(Integer allocated) { this.allocated = allocated; }
+
+    public Integer getRemaining() { return remaining; }
+    public void setRemaining(Integer remaining) { this.remaining = remaining; }
+
+    public Integer getPendingWrites() { return pendingWrites; }
+    public void setPendingWrites(Integer pendingWrites) { this.pendingWrites = pendingWrites; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public boolean isActive() { return active; }
+    public void setActive(boolean active) { this.active = active; }
+}
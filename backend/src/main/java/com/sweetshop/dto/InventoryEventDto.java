@@ -0,0 +1,43 @@
+package com.sweetshop.dto;
+
+import java.time.Instant;
+
+public class InventoryEventDto {
+    
+    private long offset;
+    private Long sweetId;
+    private int delta;
+    private String cause;
+    private Long userId;
+    private Instant timestamp;
+
+    public InventoryEventDto() {}
+
+    public InventoryEventDto(long offset, Long sweetId, int delta, String cause, Long userId, Instant timestamp) {
+        this.offset = offset;
+        this.sweetId = sweetId;
+        this.delta = delta;
+        this.cause = cause;
+        this.userId = userId;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and Setters
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public int getDelta() { return delta; }
+    public void setDelta(int delta) { this.delta = delta; }
+
+    public String getCause() { return cause; }
+    public void setCause(String cause) { this.cause = cause; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
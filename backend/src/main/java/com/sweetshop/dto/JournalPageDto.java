@@ -0,0 +1,28 @@
+package com.sweetshop.dto;
+
+import java.util.List;
+
+public class JournalPageDto {
+    
+    private List<InventoryEventDto> events;
+    private long nextOffset;
+    private long endOffset;
+
+    public JournalPageDto() {}
+
+    public JournalPageDto(List<InventoryEventDto> events, long nextOffset, long endOffset) {
+        this.events = events;
+        this.nextOffset = nextOffset;
+        this.endOffset = endOffset;
+    }
+
+    // Getters and Setters
+    public List<InventoryEventDto> getEvents() { return events; }
+    public void setEvents(List<InventoryEventDto> events) { this.events = events; }
+
+    public long getNextOffset() { return nextOffset; }
+    public void setNextOffset(long nextOffset) { this.nextOffset = nextOffset; }
+
+    public long getEndOffset() { return endOffset; }
+    public void setEndOffset(long endOffset) { this.endOffset = endOffset; }
+}
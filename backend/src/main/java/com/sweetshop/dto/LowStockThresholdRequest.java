@@ -0,0 +1,19 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Min;
+
+public class LowStockThresholdRequest {
+    
+    // Null resets the sweet to the shop-wide default
+    @Min(value = 0, message = "Threshold cannot be negative")
+    private Integer threshold;
+
+    public LowStockThresholdRequest() {}
+
+    public LowStockThresholdRequest(Integer threshold) {
+        this.threshold = threshold;
+    }
+
+    public Integer getThreshold() { return threshold; }
+    public void setThreshold(Integer threshold) { this.threshold = threshold; }
+}
@@ -0,0 +1,38 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+
+public class OrderDto {
+    
+    private Long sweetId;
+    private String sweetName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal totalAmount;
+
+    public OrderDto() {}
+
+    public OrderDto(Long sweetId, String sweetName, Integer quantity, BigDecimal unitPrice, BigDecimal totalAmount) {
+        this.sweetId = sweetId;
+        this.sweetName = sweetName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.totalAmount = totalAmount;
+    }
+
+    // Getters and Setters
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public String getSweetName() { return sweetName; }
+    public void setSweetName(String sweetName) { this.sweetName = sweetName; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) { this.unitPrice = unitPrice; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+}
@@ -1,12 +1,17 @@
 package com.sweetshop.dto;
 
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
 public class PurchaseRequest {
+
+    // Also the bound for single restocks and flash-sale allocations, which share this body
+    public static final int MAX_QUANTITY = 100_000;
     
     @NotNull(message = "Quantity is required")
     @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = MAX_QUANTITY, message = "Quantity must be at most " + MAX_QUANTITY)
     private Integer quantity;
 
     public PurchaseRequest() {}
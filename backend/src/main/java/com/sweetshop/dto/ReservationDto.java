@@ -0,0 +1,33 @@
+package com.sweetshop.dto;
+
+import java.time.Instant;
+
+public class ReservationDto {
+    
+    private String id;
+    private Long sweetId;
+    private Integer quantity;
+    private Instant expiresAt;
+
+    public ReservationDto() {}
+
+    public ReservationDto(String id, Long sweetId, Integer quantity, Instant expiresAt) {
+        this.id = id;
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
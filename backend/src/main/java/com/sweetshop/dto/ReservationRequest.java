@@ -0,0 +1,27 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class ReservationRequest {
+    
+    @NotNull(message = "Sweet is required")
+    private Long sweetId;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    public ReservationRequest() {}
+
+    public ReservationRequest(Long sweetId, Integer quantity) {
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+    }
+
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,20 @@
+package com.sweetshop.dto;
+
+public class RestockItem {
+    
+    private Long sweetId;
+    private Integer quantity;
+
+    public RestockItem() {}
+
+    public RestockItem(Long sweetId, Integer quantity) {
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+    }
+
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+}
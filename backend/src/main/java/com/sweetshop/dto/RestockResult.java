@@ -0,0 +1,38 @@
+package com.sweetshop.dto;
+
+public class RestockResult {
+    
+    public enum Status { RESTOCKED, NOT_FOUND, INVALID }
+
+    private Long sweetId;
+    private Integer quantity;
+    private Status status;
+    private Integer newQuantity;
+    private String message;
+
+    public RestockResult() {}
+
+    public RestockResult(Long sweetId, Integer quantity, Status status, Integer newQuantity, String message) {
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+        this.status = status;
+        this.newQuantity = newQuantity;
+        this.message = message;
+    }
+
+    // Getters and Setters
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Integer getNewQuantity() { return newQuantity; }
+    public void setNewQuantity(Integer newQuantity) { this.newQuantity = newQuantity; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
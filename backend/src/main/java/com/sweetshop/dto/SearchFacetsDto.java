@@ -0,0 +1,34 @@
+package com.sweetshop.dto;
+
+import java.util.List;
+
+public class SearchFacetsDto {
+    
+    // Each facet ignores its own filter, so the other values stay selectable
+    private List<FacetCountDto> categories;
+    private List<FacetCountDto> priceBuckets;
+    private long available;
+    private long total;
+
+    public SearchFacetsDto() {}
+
+    public SearchFacetsDto(List<FacetCountDto> categories, List<FacetCountDto> priceBuckets, long available, long total) {
+        this.categories = categories;
+        this.priceBuckets = priceBuckets;
+        this.available = available;
+        this.total = total;
+    }
+
+    // Getters and Setters
+    public List<FacetCountDto> getCategories() { return categories; }
+    public void setCategories(List<FacetCountDto> categories) { this.categories = categories; }
+
+    public List<FacetCountDto> getPriceBuckets() { return priceBuckets; }
+    public void setPriceBuckets(List<FacetCountDto> priceBuckets) { this.priceBuckets = priceBuckets; }
+
+    public long getAvailable() { return available; }
+    public void setAvailable(long available) { this.available = available; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+}
@@ -0,0 +1,31 @@
+package com.sweetshop.dto;
+
+public class StockDiscrepancyDto {
+    
+    private Long sweetId;
+    private Integer journalQuantity;
+    private Integer databaseQuantity;
+    private boolean journalGap;
+
+    public StockDiscrepancyDto() {}
+
+    public StockDiscrepancyDto(Long sweetId, Integer journalQuantity, Integer databaseQuantity, boolean journalGap) {
+        this.sweetId = sweetId;
+        this.journalQuantity = journalQuantity;
+        this.databaseQuantity = databaseQuantity;
+        this.journalGap = journalGap;
+    }
+
+    // Getters and Setters
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getJournalQuantity() { return journalQuantity; }
+    public void setJournalQuantity(Integer journalQuantity) { this.journalQuantity = journalQuantity; }
+
+    public Integer getDatabaseQuantity() { return databaseQuantity; }
+    public void setDatabaseQuantity(Integer databaseQuantity) { this.databaseQuantity = databaseQuantity; }
+
+    public boolean isJournalGap() { return journalGap; }
+    public void setJournalGap(boolean journalGap) { this.journalGap = journalGap; }
+}
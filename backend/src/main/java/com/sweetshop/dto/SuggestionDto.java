@@ -0,0 +1,28 @@
+package com.sweetshop.dto;
+
+public class SuggestionDto {
+    
+    public enum Type { SWEET, CATEGORY }
+
+    private String text;
+    private Type type;
+    private Long id;
+
+    public SuggestionDto() {}
+
+    public SuggestionDto(String text, Type type, Long id) {
+        this.text = text;
+        this.type = type;
+        this.id = id;
+    }
+
+    // Getters and Setters
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+}
@@ -0,0 +1,62 @@
+package com.sweetshop.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * What a sweet card in a listing shows. Selected column by column in
+ * {@link com.sweetshop.repository.SweetRepository}, so lists neither load the category
+ * entity nor the full description; {@code GET /api/sweets/{id}} has the full detail.
+ */
+public class SweetCardDto {
+
+    // Cards show at most two lines of description
+    public static final int SUMMARY_LENGTH = 160;
+
+    private Long id;
+    private String name;
+    private String summary;
+    private BigDecimal price;
+    private Integer quantity;
+    private Long categoryId;
+    private String categoryName;
+    private String thumbnailUrl;
+
+    public SweetCardDto() {}
+
+    public SweetCardDto(Long id, String name, String summary, BigDecimal price, Integer quantity,
+                        Long categoryId, String categoryName, String thumbnailUrl) {
+        this.id = id;
+        this.name = name;
+        this.summary = summary;
+        this.price = price;
+        this.quantity = quantity;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+
+    public String getCategoryName() { return categoryName; }
+    public void setCategoryName(String categoryName) { this.categoryName = categoryName; }
+
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+}
@@ -9,6 +9,8 @@ public class SweetSearchCriteria {
     private BigDecimal minPrice;
     private BigDecimal maxPrice;
     private boolean onlyAvailable = true;
+    // Match the name by similarity instead of as a substring
+    private boolean fuzzy;
 
     public SweetSearchCriteria() {}
 
@@ -27,4 +29,7 @@ public class SweetSearchCriteria {
 
     public boolean isOnlyAvailable() { return onlyAvailable; }
     public void setOnlyAvailable(boolean onlyAvailable) { this.onlyAvailable = onlyAvailable; }
+
+    public boolean isFuzzy() { return fuzzy; }
+    public void setFuzzy(boolean fuzzy) { this.fuzzy = fuzzy; }
 }
@@ -0,0 +1,59 @@
+package com.sweetshop.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Stock moved into a running flash sale, and how much of it has been written as orders.
+ * The row lives as long as the sale; one left over after a restart is reconciled by
+ * {@code FlashSales}.
+ */
+@Entity
+@Table(name = "flash_sale_allocations")
+public class FlashSaleAllocation {
+
+    @Id
+    @Column(name = "sweet_id")
+    private Long sweetId;
+
+    @Column(nullable = false)
+    private Integer allocated;
+
+    @Column(nullable = false)
+    private Integer sold;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    // Constructors
+    public FlashSaleAllocation() {}
+
+    public FlashSaleAllocation(Long sweetId, Integer allocated, Integer sold, LocalDateTime startedAt) {
+        this.sweetId = sweetId;
+        this.allocated = allocated;
+        this.sold = sold;
+        this.startedAt = startedAt;
+    }
+
+    // Getters and Setters
+    public Long getSweetId() { return sweetId; }
+    public void setSweetId(Long sweetId) { this.sweetId = sweetId; }
+
+    public Integer getAllocated() { return allocated; }
+    public void setAllocated(Integer allocated) { this.allocated = allocated; }
+
+    public Integer getSold() { return sold; }
+    public void setSold(Integer sold) { this.sold = sold; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    @Override
+    public String toString() {
+        return "FlashSaleAllocation{" +
+                "sweetId=" + sweetId +
+                ", allocated=" + allocated +
+                ", sold=" + sold +
+                '}';
+    }
+}
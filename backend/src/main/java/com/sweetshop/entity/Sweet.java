@@ -7,7 +7,12 @@ import java.time.LocalDateTime;
 
 
 @Entity
-@Table(name = "sweets")
+@Table(name = "sweets", indexes = {
+    @Index(name = "idx_sweets_category_price", columnList = "category_id, price"),
+    @Index(name = "idx_sweets_price", columnList = "price"),
+    @Index(name = "idx_sweets_name", columnList = "name"),
+    @Index(name = "idx_sweets_updated_at", columnList = "updated_at")
+})
 public class Sweet {
     
     @Id
@@ -36,6 +41,11 @@ public class Sweet {
     
     @Column(name = "image_url", columnDefinition = "TEXT")
     private String imageUrl;
+    
+    // Null means the shop-wide default applies
+    @Column(name = "low_stock_threshold")
+    @Min(value = 0, message = "Low stock threshold cannot be negative")
+    private Integer lowStockThreshold;
 
     
     @Column(name = "created_at", nullable = false)
@@ -44,8 +54,13 @@ public class Sweet {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(columnDefinition = "BIGINT DEFAULT 0 NOT NULL")
+    private Long version;
+    
     
-    @ManyToOne(fetch = FetchType.EAGER) // <-- Change LAZY to EAGER
+    // Loaded by the repository's entity graphs where it is needed; list endpoints use card projections
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     @NotNull(message = "Category is required")
     private Category category;
@@ -97,6 +112,12 @@ public class Sweet {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
     
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public Integer getLowStockThreshold() { return lowStockThreshold; }
+    public void setLowStockThreshold(Integer lowStockThreshold) { this.lowStockThreshold = lowStockThreshold; }
+    
     public Category getCategory() { return category; }
     public void setCategory(Category category) { this.category = category; }
     
@@ -45,7 +45,8 @@ public class User {
     @Column(name = "enabled", nullable = false)
     private boolean enabled = true;
     
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Fetched with the user by UserRepository's entity graphs, or in batches for paged lists
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -0,0 +1,12 @@
+package com.sweetshop.exception;
+
+public class IdempotencyConflictException extends RuntimeException {
+    /**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
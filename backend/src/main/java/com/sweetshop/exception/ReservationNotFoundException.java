@@ -0,0 +1,12 @@
+package com.sweetshop.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+    /**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,429 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.FlashSaleAllocation;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for limited drops of a single sweet.
+ *
+ * Starting a sale moves the allocated quantity out of {@code sweets.quantity} into an atomic
+ * counter, so each purchase attempt is accepted or turned away with one CAS and a sold-out
+ * answer never reaches the database. Accepted orders go through a bounded queue to a single
+ * writer that inserts them in batches. Ending a sale waits for those writes and puts any
+ * unsold quantity back on the shelf.
+ *
+ * A batch that keeps failing is retried {@code app.flash-sale.max-write-attempts} times,
+ * then written one order at a time; orders that still fail go to
+ * {@code flash_sale_dead_letters} and the writer moves on, so one bad order cannot hold
+ * back every sale. Each sale is recorded in {@code flash_sale_allocations} along with the
+ * quantity written so far; a row still there at startup belongs to a sale cut off by a
+ * restart, and its unwritten quantity is returned to stock.
+ */
+@Component
+public class FlashSales {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSales.class);
+
+    private static final String ALLOCATE_SQL =
+        "UPDATE sweets SET quantity = quantity - ?, version = version + 1, updated_at = ? WHERE id = ? AND quantity >= ?";
+    private static final String RETURN_SQL =
+        "UPDATE sweets SET quantity = quantity + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    private static final String INSERT_ORDER_SQL =
+        "INSERT INTO orders (user_id, sweet_id, quantity, total_amount, order_date) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_ALLOCATION_SQL =
+        "INSERT INTO flash_sale_allocations (sweet_id, allocated, sold, started_at) VALUES (?, ?, 0, ?)";
+    private static final String COUNT_SOLD_SQL =
+        "UPDATE flash_sale_allocations SET sold = sold + ? WHERE sweet_id = ?";
+    private static final String DELETE_ALLOCATION_SQL =
+        "DELETE FROM flash_sale_allocations WHERE sweet_id = ?";
+    private static final String SELECT_ALLOCATIONS_SQL =
+        "SELECT sweet_id, allocated, sold, started_at FROM flash_sale_allocations";
+    private static final String INSERT_DEAD_LETTER_SQL =
+        "INSERT INTO flash_sale_dead_letters (user_id, sweet_id, quantity, total_amount, order_date, error) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final SweetRepository sweetRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final StockReservations stockReservations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxWriteAttempts;
+    private final long drainTimeoutMillis;
+
+    private final ConcurrentHashMap<Long, FlashSale> sales = new ConcurrentHashMap<>();
+    private final BlockingQueue<AcceptedOrder> writeQueue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final Counter accepted;
+    private final Counter soldOut;
+    private final Counter deadLetters;
+
+    public FlashSales(SweetRepository sweetRepository,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      Optional<InventoryLedger> inventoryLedger,
+                      StockReservations stockReservations,
+                      ApplicationEventPublisher eventPublisher,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.flash-sale.queue-capacity:50000}") int queueCapacity,
+                      @Value("${app.flash-sale.batch-size:500}") int batchSize,
+                      @Value("${app.flash-sale.max-write-attempts:5}") int maxWriteAttempts,
+                      @Value("${app.flash-sale.drain-timeout-seconds:30}") long drainTimeoutSeconds) {
+        this.sweetRepository = sweetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.inventoryLedger = inventoryLedger;
+        this.stockReservations = stockReservations;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxWriteAttempts = maxWriteAttempts;
+        this.drainTimeoutMillis = TimeUnit.SECONDS.toMillis(drainTimeoutSeconds);
+        this.writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("sweetshop.flashsale.write.queue.depth", writeQueue, BlockingQueue::size)
+            .description("Accepted flash-sale orders waiting to be written")
+            .register(meterRegistry);
+        this.accepted = Counter.builder("sweetshop.flashsale.accepted")
+            .description("Flash-sale purchases accepted")
+            .register(meterRegistry);
+        this.soldOut = Counter.builder("sweetshop.flashsale.sold.out")
+            .description("Flash-sale purchases turned away without touching the database")
+            .register(meterRegistry);
+        this.deadLetters = Counter.builder("sweetshop.flashsale.dead.letters")
+            .description("Accepted flash-sale orders that could not be written")
+            .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "flash-sale-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static final class FlashSale {
+        private final Sweet sweet;
+        private final int allocated;
+        private final Instant startedAt;
+        private final AtomicInteger remaining;
+        // Purchases between admission and their order being written
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean closed;
+
+        private FlashSale(Sweet sweet, int allocated) {
+            this.sweet = sweet;
+            this.allocated = allocated;
+            this.startedAt = Instant.now();
+            this.remaining = new AtomicInteger(allocated);
+        }
+
+        public Long getSweetId() { return sweet.getId(); }
+        public int getAllocated() { return allocated; }
+        public int getRemaining() { return remaining.get(); }
+        public int getPendingWrites() { return pending.get(); }
+        public Instant getStartedAt() { return startedAt; }
+        public boolean isActive() { return !closed; }
+    }
+
+    private static final class AcceptedOrder {
+        final FlashSale sale;
+        final Long userId;
+        final int quantity;
+        final Timestamp orderDate;
+
+        AcceptedOrder(FlashSale sale, Long userId, int quantity) {
+            this.sale = sale;
+            this.userId = userId;
+            this.quantity = quantity;
+            this.orderDate = Timestamp.valueOf(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Moves {@code quantity} of the sweet's stock into a flash sale.
+     */
+    public synchronized FlashSale start(Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (sales.containsKey(sweetId)) {
+            throw new IllegalStateException("A flash sale is already running for sweet id: " + sweetId);
+        }
+        inventoryLedger.ifPresent(ledger -> ledger.beforeExternalWrite(sweetId));
+        Sweet sweet = sweetRepository.findById(sweetId)
+            .orElseThrow(() -> new SweetNotFoundException("Sweet not found with id: " + sweetId));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(ALLOCATE_SQL, quantity, now, sweetId, quantity) == 0) {
+                throw new InsufficientStockException("Not enough stock available. Available: " + sweet.getQuantity() + ", Requested: " + quantity);
+            }
+            jdbcTemplate.update(INSERT_ALLOCATION_SQL, sweetId, quantity, now);
+        });
+        stockReservations.refresh(sweetId);
+        eventPublisher.publishEvent(new StockChangedEvent(sweetId, -quantity, StockChangedEvent.Cause.FLASH_SALE, null));
+
+        FlashSale sale = new FlashSale(sweet, quantity);
+        sales.put(sweetId, sale);
+        log.info("Flash sale started for sweet {} with {} units", sweetId, quantity);
+        return sale;
+    }
+
+    /**
+     * Closes the sale, waits for its accepted orders to be written and returns the unsold
+     * quantity to stock.
+     */
+    public synchronized FlashSale end(Long sweetId) {
+        FlashSale sale = sales.get(sweetId);
+        if (sale == null) {
+            throw new IllegalStateException("No flash sale is running for sweet id: " + sweetId);
+        }
+        sale.closed = true;
+
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        while (sale.pending.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                // The sale stays closed; ending it again resumes from here
+                throw new IllegalStateException("Flash sale orders are still being written, please retry");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while ending the flash sale");
+            }
+        }
+
+        int unsold = sale.remaining.getAndSet(0);
+        returnToStock(sweetId, unsold);
+        sales.remove(sweetId);
+        log.info("Flash sale ended for sweet {}: {} of {} units sold", sweetId, sale.allocated - unsold, sale.allocated);
+        return sale;
+    }
+
+    /**
+     * Returns the stock of sales that were running when the application last stopped.
+     * Orders accepted but not yet written at that point were lost with the process, so
+     * everything not recorded as written goes back on the shelf.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reconcile() {
+        List<FlashSaleAllocation> leftOver = jdbcTemplate.query(SELECT_ALLOCATIONS_SQL, (rs, row) -> new FlashSaleAllocation(
+            rs.getLong("sweet_id"), rs.getInt("allocated"), rs.getInt("sold"), rs.getTimestamp("started_at").toLocalDateTime()));
+        for (FlashSaleAllocation allocation : leftOver) {
+            if (sales.containsKey(allocation.getSweetId())) {
+                continue;
+            }
+            int unsold = Math.max(0, allocation.getAllocated() - allocation.getSold());
+            returnToStock(allocation.getSweetId(), unsold);
+            log.warn("Flash sale for sweet {} started at {} was cut off by a restart: {} of {} units written as orders, {} returned to stock",
+                allocation.getSweetId(), allocation.getStartedAt(), allocation.getSold(), allocation.getAllocated(), unsold);
+        }
+    }
+
+    public Optional<FlashSale> find(Long sweetId) {
+        return Optional.ofNullable(sales.get(sweetId));
+    }
+
+    public Collection<FlashSale> active() {
+        return sales.values();
+    }
+
+    /**
+     * Admits a purchase against a running sale and returns a view of the sweet with the
+     * sale's remaining quantity, or empty if no sale is running for the sweet.
+     *
+     * @throws InsufficientStockException when the sale is sold out; no database call is made
+     */
+    public Optional<Sweet> purchase(Long userId, Long sweetId, int quantity) {
+        FlashSale sale = sales.get(sweetId);
+        if (sale == null) {
+            return Optional.empty();
+        }
+        // Counted before the closed check, so end() waits for every purchase that got past it
+        sale.pending.incrementAndGet();
+        boolean queued = false;
+        try {
+            if (sale.closed) {
+                return Optional.empty();
+            }
+            int current;
+            do {
+                current = sale.remaining.get();
+                if (current < quantity) {
+                    soldOut.increment();
+                    throw new InsufficientStockException(current == 0
+                        ? "Sold out"
+                        : "Not enough stock available. Available: " + current + ", Requested: " + quantity);
+                }
+            } while (!sale.remaining.compareAndSet(current, current - quantity));
+
+            if (!writeQueue.offer(new AcceptedOrder(sale, userId, quantity))) {
+                sale.remaining.addAndGet(quantity);
+                throw new IllegalStateException("Too many pending purchases for this sweet, please retry");
+            }
+            queued = true;
+            accepted.increment();
+            return Optional.of(view(sale.sweet, current - quantity));
+        } finally {
+            if (!queued) {
+                sale.pending.decrementAndGet();
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(drainTimeoutMillis);
+    }
+
+    private void writeLoop() {
+        List<AcceptedOrder> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+        while (running || !writeQueue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (failures > 0) {
+                    // Back off before retrying the same batch
+                    Thread.sleep(200);
+                }
+                if (batch.isEmpty()) {
+                    AcceptedOrder first = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    writeQueue.drainTo(batch, batchSize - 1);
+                }
+                persist(batch);
+            } catch (InterruptedException e) {
+                writeRemaining(batch);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Data access and transaction failures alike, e.g. no connection while the database is
+                // down: the orders are already promised to customers, so the one writer must outlive it
+                if (++failures < maxWriteAttempts) {
+                    log.warn("Flash sale order write failed (attempt {} of {}), retrying {} orders: {}",
+                        failures, maxWriteAttempts, batch.size(), e.getMessage());
+                    continue;
+                }
+                persistOneByOne(batch);
+            }
+            batch.forEach(order -> order.sale.pending.decrementAndGet());
+            batch.clear();
+            failures = 0;
+        }
+    }
+
+    // The writer is stopping early; nothing accepted may stay only in memory
+    private void writeRemaining(List<AcceptedOrder> batch) {
+        writeQueue.drainTo(batch);
+        log.warn("Flash sale writer interrupted, writing {} accepted orders one by one", batch.size());
+        persistOneByOne(batch);
+        batch.forEach(order -> order.sale.pending.decrementAndGet());
+        batch.clear();
+    }
+
+    private void persist(List<AcceptedOrder> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        Map<Long, Integer> sold = new LinkedHashMap<>();
+        for (AcceptedOrder order : batch) {
+            rows.add(new Object[] { order.userId, order.sale.getSweetId(), order.quantity, amount(order), order.orderDate });
+            sold.merge(order.sale.getSweetId(), order.quantity, Integer::sum);
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, rows);
+            sold.forEach((sweetId, quantity) -> jdbcTemplate.update(COUNT_SOLD_SQL, quantity, sweetId));
+        });
+    }
+
+    // Keeps the orders that can be written apart from the ones that cannot
+    private void persistOneByOne(List<AcceptedOrder> batch) {
+        for (AcceptedOrder order : batch) {
+            try {
+                persist(List.of(order));
+            } catch (RuntimeException e) {
+                deadLetter(order, e);
+            }
+        }
+    }
+
+    private void deadLetter(AcceptedOrder order, RuntimeException cause) {
+        deadLetters.increment();
+        Long sweetId = order.sale.getSweetId();
+        log.error("Flash sale order dead-lettered: user {}, sweet {}, quantity {}, amount {}, accepted at {}: {}",
+            order.userId, sweetId, order.quantity, amount(order), order.orderDate, cause.getMessage());
+        String error = String.valueOf(cause.getMessage());
+        try {
+            // Counted as sold: the customer was told the purchase went through
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(INSERT_DEAD_LETTER_SQL, order.userId, sweetId, order.quantity, amount(order),
+                    order.orderDate, error.length() > 1000 ? error.substring(0, 1000) : error);
+                jdbcTemplate.update(COUNT_SOLD_SQL, order.quantity, sweetId);
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not record the dead-lettered order for sweet {}; the line above is its only record: {}",
+                sweetId, e.getMessage());
+        }
+    }
+
+    private void returnToStock(Long sweetId, int unsold) {
+        if (unsold > 0) {
+            inventoryLedger.ifPresent(ledger -> ledger.beforeExternalWrite(sweetId));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (unsold > 0) {
+                jdbcTemplate.update(RETURN_SQL, unsold, Timestamp.valueOf(LocalDateTime.now()), sweetId);
+            }
+            jdbcTemplate.update(DELETE_ALLOCATION_SQL, sweetId);
+        });
+        if (unsold > 0) {
+            stockReservations.refresh(sweetId);
+            eventPublisher.publishEvent(new StockChangedEvent(sweetId, unsold, StockChangedEvent.Cause.FLASH_SALE, null));
+        }
+    }
+
+    private static BigDecimal amount(AcceptedOrder order) {
+        return order.sale.sweet.getPrice().multiply(BigDecimal.valueOf(order.quantity));
+    }
+
+    private Sweet view(Sweet sweet, int remaining) {
+        Sweet view = new Sweet(sweet.getName(), sweet.getDescription(), sweet.getPrice(), remaining, sweet.getCategory());
+        view.setId(sweet.getId());
+        view.setImageUrl(sweet.getImageUrl());
+        return view;
+    }
+}
@@ -0,0 +1,88 @@
+package com.sweetshop.inventory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel: scheduling is O(1), and each tick only visits the one bucket
+ * whose slot is due, never the whole set of pending timeouts.
+ *
+ * A deadline far in the future lands in its slot modulo the wheel size and is simply
+ * skipped on each lap until its tick arrives. Cancellation is lazy.
+ */
+class HashedTimerWheel<T> {
+
+    static final class Timeout<T> {
+        private final T task;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<ArrayDeque<Timeout<T>>> buckets;
+    private long currentTick;
+
+    HashedTimerWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    synchronized Timeout<T> schedule(T task, long deadlineMillis) {
+        // Round up so a timeout never fires before its deadline, and never into a slot already passed
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        Timeout<T> timeout = new Timeout<>(task, deadlineTick);
+        buckets.get((int) (deadlineTick & mask)).add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}, handing every due task to {@code expired}.
+     * Returns the number of tasks expired.
+     */
+    int advance(long nowMillis, Consumer<T> expired) {
+        ArrayDeque<T> due = new ArrayDeque<>();
+        synchronized (this) {
+            long targetTick = nowMillis / tickMillis;
+            // After a long pause, one full lap visits every slot, so there is no need to go further
+            long from = Math.max(currentTick + 1, targetTick - mask);
+            for (long tick = from; tick <= targetTick; tick++) {
+                Iterator<Timeout<T>> it = buckets.get((int) (tick & mask)).iterator();
+                while (it.hasNext()) {
+                    Timeout<T> timeout = it.next();
+                    if (timeout.cancelled) {
+                        it.remove();
+                    } else if (timeout.deadlineTick <= targetTick) {
+                        it.remove();
+                        due.add(timeout.task);
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        // Run callbacks outside the lock so they are free to schedule new timeouts
+        due.forEach(expired);
+        return due.size();
+    }
+}
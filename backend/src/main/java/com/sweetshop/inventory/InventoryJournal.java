@@ -0,0 +1,259 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of every change to shelf stock.
+ *
+ * Committed {@link StockChangedEvent}s are handed to a bounded queue on the request thread
+ * and written to {@link JournalLog} segments by a single background writer, which forces
+ * the mapped pages to disk every {@code app.inventory.journal.force-interval-ms}. A fresh
+ * journal opens with one balance entry per sweet, so summing the deltas per sweet rebuilds
+ * current stock.
+ *
+ * A full queue makes the request thread wait up to {@code app.inventory.journal.offer-timeout-ms}.
+ * A change that still does not fit, or that the writer fails to append, is folded into a
+ * per-sweet {@link StockChangedEvent.Cause#GAP GAP} entry written on the writer's next pass,
+ * so the totals stay right and {@link #replay()} reports which sweets' history is incomplete.
+ *
+ * Enabled with {@code app.inventory.journal.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory.journal", name = "enabled", havingValue = "true")
+public class InventoryJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryJournal.class);
+    private static final int WRITE_BATCH = 1024;
+
+    private final SweetRepository sweetRepository;
+    private final JournalLog journalLog;
+    private final BlockingQueue<StockChangedEvent> queue;
+    private final long forceIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final ConcurrentHashMap<Long, Integer> missed = new ConcurrentHashMap<>();
+    private final Counter dropped;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public InventoryJournal(SweetRepository sweetRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.inventory.journal.dir:./data/journal}") String directory,
+                            @Value("${app.inventory.journal.segment-bytes:67108864}") int segmentBytes,
+                            @Value("${app.inventory.journal.queue-capacity:100000}") int queueCapacity,
+                            @Value("${app.inventory.journal.force-interval-ms:1000}") long forceIntervalMillis,
+                            @Value("${app.inventory.journal.offer-timeout-ms:50}") long offerTimeoutMillis) {
+        this.sweetRepository = sweetRepository;
+        this.journalLog = new JournalLog(Paths.get(directory), segmentBytes);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.forceIntervalMillis = forceIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+
+        Gauge.builder("sweetshop.journal.queue.depth", queue, BlockingQueue::size)
+            .description("Stock changes waiting to be written to the journal")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("sweetshop.journal.dropped")
+            .description("Stock changes journaled only as a gap because the queue was full or the write failed")
+            .register(meterRegistry);
+
+        this.writer = new Thread(this::writeLoop, "inventory-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    public static final class Entry {
+        private final long offset;
+        private final Long sweetId;
+        private final int delta;
+        private final StockChangedEvent.Cause cause;
+        private final Long userId;
+        private final Instant timestamp;
+
+        private Entry(long offset, long sweetId, int delta, byte cause, long userId, long timestamp) {
+            this.offset = offset;
+            this.sweetId = sweetId;
+            this.delta = delta;
+            this.cause = StockChangedEvent.Cause.fromCode(cause);
+            this.userId = userId == 0 ? null : userId;
+            this.timestamp = Instant.ofEpochMilli(timestamp);
+        }
+
+        public long getOffset() { return offset; }
+        public Long getSweetId() { return sweetId; }
+        public int getDelta() { return delta; }
+        public StockChangedEvent.Cause getCause() { return cause; }
+        public Long getUserId() { return userId; }
+        public Instant getTimestamp() { return timestamp; }
+    }
+
+    public static final class Replay {
+        private final Map<Long, Integer> stock;
+        private final Set<Long> gapSweetIds;
+
+        private Replay(Map<Long, Integer> stock, Set<Long> gapSweetIds) {
+            this.stock = stock;
+            this.gapSweetIds = gapSweetIds;
+        }
+
+        // Stock per sweet that the journal adds up to
+        public Map<Long, Integer> getStock() { return stock; }
+        // Sweets with changes the journal holds only as a GAP total, or has yet to write one for
+        public Set<Long> getGapSweetIds() { return gapSweetIds; }
+        public boolean isComplete() { return gapSweetIds.isEmpty(); }
+    }
+
+    @PostConstruct
+    void open() {
+        long end = journalLog.open();
+        if (end == 0) {
+            // Stock that predates the journal enters it as one opening entry per sweet
+            long now = System.currentTimeMillis();
+            for (Sweet sweet : sweetRepository.findAll()) {
+                journalLog.append(new StockChangedEvent(sweet.getId(), sweet.getQuantity(),
+                    StockChangedEvent.Cause.OPENING_BALANCE, null, now));
+            }
+            journalLog.force();
+        }
+        log.info("Inventory journal open at offset {}", journalLog.endOffset());
+        writer.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.getDelta() == 0) {
+            return;
+        }
+        boolean queued;
+        try {
+            queued = queue.offer(event, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            recordGap(event);
+            log.warn("Inventory journal queue is full, journaling {} as a gap", event);
+        }
+    }
+
+    /**
+     * Offset that the next entry will get; entries below it can be read.
+     */
+    public long endOffset() {
+        return journalLog.endOffset();
+    }
+
+    public int pendingWrites() {
+        return queue.size();
+    }
+
+    /**
+     * Reads up to {@code limit} entries from {@code fromOffset}, for tailing the journal.
+     */
+    public List<Entry> read(long fromOffset, int limit) {
+        List<Entry> entries = new ArrayList<>(Math.min(limit, 1024));
+        journalLog.read(fromOffset, limit, (offset, sweetId, delta, cause, userId, timestamp) ->
+            entries.add(new Entry(offset, sweetId, delta, cause, userId, timestamp)));
+        return entries;
+    }
+
+    /**
+     * Replays the whole journal, returning the stock it adds up to per sweet and the sweets
+     * whose history has gaps.
+     */
+    public Replay replay() {
+        Map<Long, Integer> stock = new HashMap<>();
+        Set<Long> gapSweetIds = new HashSet<>(missed.keySet());
+        byte gap = StockChangedEvent.Cause.GAP.getCode();
+        journalLog.read(0, Integer.MAX_VALUE, (offset, sweetId, delta, cause, userId, timestamp) -> {
+            stock.merge(sweetId, delta, Integer::sum);
+            if (cause == gap) {
+                gapSweetIds.add(sweetId);
+            }
+        });
+        return new Replay(stock, gapSweetIds);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        journalLog.close();
+    }
+
+    private void writeLoop() {
+        List<StockChangedEvent> batch = new ArrayList<>(WRITE_BATCH);
+        int written = 0;
+        long lastForce = System.currentTimeMillis();
+        while (running || !queue.isEmpty() || !missed.isEmpty()) {
+            try {
+                StockChangedEvent first = queue.poll(forceIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, WRITE_BATCH - 1);
+                    for (; written < batch.size(); written++) {
+                        journalLog.append(batch.get(written));
+                    }
+                    batch.clear();
+                    written = 0;
+                }
+                writeGaps();
+                long now = System.currentTimeMillis();
+                if (now - lastForce >= forceIntervalMillis) {
+                    journalLog.force();
+                    lastForce = now;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Inventory journal write failed, {} entries kept as gaps: {}", batch.size() - written, e.getMessage());
+                batch.subList(written, batch.size()).forEach(this::recordGap);
+                batch.clear();
+                written = 0;
+            }
+        }
+    }
+
+    private void recordGap(StockChangedEvent event) {
+        missed.merge(event.getSweetId(), event.getDelta(), Integer::sum);
+        dropped.increment();
+    }
+
+    private void writeGaps() {
+        for (Long sweetId : missed.keySet()) {
+            Integer delta = missed.remove(sweetId);
+            if (delta == null) {
+                continue;
+            }
+            try {
+                journalLog.append(new StockChangedEvent(sweetId, delta, StockChangedEvent.Cause.GAP, null));
+            } catch (RuntimeException e) {
+                missed.merge(sweetId, delta, Integer::sum);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.InventoryCheckpoint;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.repository.InventoryCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Authoritative in-memory stock counters with write-behind to {@code sweets.quantity}.
+ *
+ * Purchases and restocks are admitted with a CAS on the sweet's cell and acknowledged once
+ * their delta is in the {@link LedgerLog}. A scheduled flush coalesces the net delta per
+ * sweet into one batched UPDATE and records the last flushed log sequence in the same
+ * transaction, so replay after a restart applies exactly the deltas the database is missing.
+ *
+ * Appends take the read lock of one of {@value #STRIPES} stripes, picked by sweet, so
+ * purchases of different sweets share no lock word. A flush takes every stripe's write lock
+ * only for the moment it drains the cells and rolls the log; that cut has to be atomic with
+ * the log sequence it checkpoints, or replay would apply a delta twice or not at all. The
+ * database write then runs with no lock that appends or cell loads wait on. A cell is loaded
+ * from one consistent read of the row and the checkpoint, and the deltas still on their way
+ * to the database are added according to which flush that read saw. Each committed flush
+ * publishes a {@link StockFlushedEvent} for the sweets it wrote.
+ *
+ * Enabled with {@code app.inventory.ledger.enabled=true}. While enabled, list endpoints read
+ * stock from the database and may trail the ledger by one flush interval.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.inventory.ledger", name = "enabled", havingValue = "true")
+public class InventoryLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryLedger.class);
+    private static final String CHECKPOINT = "inventory-ledger";
+    private static final int STRIPES = 64;
+    static final String FLUSH_SQL =
+        "UPDATE sweets SET quantity = quantity + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    // One statement, so the quantity and the checkpoint come from the same snapshot
+    static final String LOAD_SQL =
+        "SELECT quantity, (SELECT last_sequence FROM inventory_checkpoints WHERE name = ?) FROM sweets WHERE id = ?";
+
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LedgerLog ledgerLog;
+
+    private final ConcurrentHashMap<Long, StockCell> cells = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[STRIPES];
+    // Serializes flushes and invalidations with each other; appends and loads never take it
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Guards the maps and sequences below; held only for in-memory work
+    private final ReentrantLock stateLock = new ReentrantLock();
+    // Net deltas that are logged but not yet part of a flush
+    private Map<Long, Integer> carry = new HashMap<>();
+    // Net deltas being written by the running flush, which checkpoints flushingThrough
+    private Map<Long, Integer> flushing = Map.of();
+    private long flushingThrough;
+    private long checkpointed;
+    // Last sequence handed out by a roll; nothing to cut while the log has not moved past it
+    private long rolled;
+
+    public InventoryLedger(InventoryCheckpointRepository checkpointRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${app.inventory.ledger.dir:./data/ledger}") String directory,
+                           @Value("${app.inventory.ledger.fsync:true}") boolean fsync) {
+        this(checkpointRepository, jdbcTemplate, transactionManager, eventPublisher, new LedgerLog(Paths.get(directory), fsync));
+    }
+
+    InventoryLedger(InventoryCheckpointRepository checkpointRepository,
+                    JdbcTemplate jdbcTemplate,
+                    PlatformTransactionManager transactionManager,
+                    ApplicationEventPublisher eventPublisher,
+                    LedgerLog ledgerLog) {
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A flush must commit on its own, never with the caller's transaction
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.ledgerLog = ledgerLog;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private static final class StockCell {
+        final AtomicInteger available;
+        final AtomicInteger pending = new AtomicInteger();
+
+        StockCell(int available) {
+            this.available = new AtomicInteger(available);
+        }
+    }
+
+    @PostConstruct
+    void recover() {
+        long flushed = checkpointRepository.findById(CHECKPOINT)
+            .map(InventoryCheckpoint::getLastSequence)
+            .orElse(0L);
+        flushLock.lock();
+        try {
+            ledgerLog.startAfter(flushed);
+            stateLock.lock();
+            try {
+                checkpointed = flushed;
+                rolled = flushed;
+                ledgerLog.replay((sequence, sweetId, delta) -> {
+                    if (sequence > flushed) {
+                        mergeCarry(sweetId, delta);
+                    }
+                });
+                if (!carry.isEmpty()) {
+                    log.info("Replaying unflushed inventory deltas for {} sweets after sequence {}", carry.size(), flushed);
+                }
+            } finally {
+                stateLock.unlock();
+            }
+            // Nothing has read the catalog yet, so there is no one to tell
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Admits a purchase in memory and returns the remaining stock.
+     */
+    public int purchase(Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        return apply(sweetId, -quantity);
+    }
+
+    public int restock(Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        return apply(sweetId, quantity);
+    }
+
+    public int available(Long sweetId) {
+        return cell(sweetId).available.get();
+    }
+
+    /**
+     * Flushes and drops the cell for a sweet whose stock was overwritten or deleted
+     * outside the ledger, so the next access reloads it from the database.
+     */
+    public void invalidate(Long sweetId) {
+        invalidate(List.of(sweetId));
+    }
+
+    /**
+     * {@link #invalidate(Long)} for many sweets at once, with a single flush.
+     */
+    public void invalidate(Collection<Long> sweetIds) {
+        Set<Long> flushed;
+        flushLock.lock();
+        try {
+            lockStripes();
+            stateLock.lock();
+            try {
+                for (Long sweetId : sweetIds) {
+                    StockCell cell = cells.remove(sweetId);
+                    if (cell != null) {
+                        mergeCarry(sweetId, cell.pending.getAndSet(0));
+                    }
+                }
+            } finally {
+                stateLock.unlock();
+                unlockStripes();
+            }
+            flushed = flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+        publishFlushed(flushed);
+    }
+
+    /**
+     * Hands a sweet's stock back to the database for a write that bypasses the ledger.
+     * Pending deltas are flushed now and the cell is dropped again once the caller's
+     * transaction commits, so the next access sees the written value.
+     */
+    public void beforeExternalWrite(Long sweetId) {
+        beforeExternalWrite(List.of(sweetId));
+    }
+
+    /**
+     * {@link #beforeExternalWrite(Long)} for a write that touches many sweets: one flush now
+     * and one after the commit, however many sweets there are.
+     */
+    public void beforeExternalWrite(Collection<Long> sweetIds) {
+        List<Long> ids = List.copyOf(sweetIds);
+        invalidate(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(ids);
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        publishFlushed(flushPending());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+        ledgerLog.close();
+    }
+
+    // Writes the pending deltas and returns the sweets whose rows changed, none if the write failed
+    private Set<Long> flushPending() {
+        flushLock.lock();
+        try {
+            long sequence = cut();
+            Map<Long, Integer> batch;
+            stateLock.lock();
+            try {
+                if (carry.isEmpty() && sequence == checkpointed) {
+                    return Set.of();
+                }
+                batch = carry;
+                carry = new HashMap<>();
+                flushing = batch;
+                flushingThrough = sequence;
+            } finally {
+                stateLock.unlock();
+            }
+
+            boolean written = false;
+            try {
+                write(batch, sequence);
+                written = true;
+            } catch (RuntimeException e) {
+                // The deltas go back to carry and the segments stay on disk, so the next flush retries them
+                log.warn("Inventory ledger flush failed: {}", e.getMessage());
+            } finally {
+                stateLock.lock();
+                try {
+                    if (written) {
+                        checkpointed = sequence;
+                    } else {
+                        batch.forEach(this::mergeCarry);
+                    }
+                    flushing = Map.of();
+                } finally {
+                    stateLock.unlock();
+                }
+            }
+            if (!written) {
+                return Set.of();
+            }
+            try {
+                ledgerLog.truncateThrough(sequence);
+            } catch (UncheckedIOException e) {
+                // Replay skips records at or below the checkpoint, so the next flush can delete them
+                log.warn("Failed to truncate inventory ledger: {}", e.getMessage());
+            }
+            return batch.keySet();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void publishFlushed(Set<Long> flushed) {
+        if (!flushed.isEmpty()) {
+            eventPublisher.publishEvent(new StockFlushedEvent(flushed));
+        }
+    }
+
+    private int apply(Long sweetId, int delta) {
+        ReentrantReadWriteLock.ReadLock append = stripe(sweetId).readLock();
+        while (true) {
+            StockCell cell = cell(sweetId);
+            append.lock();
+            try {
+                if (cells.get(sweetId) != cell) {
+                    continue; // invalidated while we were waiting
+                }
+                int current;
+                int updated;
+                do {
+                    current = cell.available.get();
+                    updated = current + delta;
+                    if (updated < 0) {
+                        throw new InsufficientStockException("Not enough stock available. Available: " + current + ", Requested: " + -delta);
+                    }
+                } while (!cell.available.compareAndSet(current, updated));
+
+                try {
+                    ledgerLog.append(sweetId, delta);
+                } catch (RuntimeException e) {
+                    cell.available.addAndGet(-delta);
+                    throw e;
+                }
+                cell.pending.addAndGet(delta);
+                return updated;
+            } finally {
+                append.unlock();
+            }
+        }
+    }
+
+    // Drains every cell's pending delta into carry and rolls the log, with no append half done
+    private long cut() {
+        long last = ledgerLog.lastSequence();
+        if (last == rolled) {
+            // Nothing appended since the last cut, so no cell has anything pending
+            return last;
+        }
+        lockStripes();
+        try {
+            stateLock.lock();
+            try {
+                cells.forEach((sweetId, cell) -> mergeCarry(sweetId, cell.pending.getAndSet(0)));
+            } finally {
+                stateLock.unlock();
+            }
+            rolled = ledgerLog.roll();
+            return rolled;
+        } finally {
+            unlockStripes();
+        }
+    }
+
+    private void write(Map<Long, Integer> batch, long sequence) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        batch.forEach((sweetId, delta) -> rows.add(new Object[] { delta, now, sweetId }));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+            }
+            checkpointRepository.save(new InventoryCheckpoint(CHECKPOINT, sequence));
+        });
+    }
+
+    private StockCell cell(Long sweetId) {
+        StockCell cell = cells.get(sweetId);
+        while (cell == null) {
+            long[] row = jdbcTemplate.query(LOAD_SQL,
+                rs -> rs.next() ? new long[] { rs.getInt(1), rs.getLong(2) } : null,
+                CHECKPOINT, sweetId);
+            if (row == null) {
+                throw new SweetNotFoundException("Sweet not found with id: " + sweetId);
+            }
+            cell = load(sweetId, (int) row[0], row[1]);
+        }
+        return cell;
+    }
+
+    // Null when a flush committed after the read and already left the in-memory state; read again
+    private StockCell load(Long sweetId, int quantity, long readThrough) {
+        stateLock.lock();
+        try {
+            StockCell cell = cells.get(sweetId);
+            if (cell != null) {
+                return cell;
+            }
+            int unflushed = carry.getOrDefault(sweetId, 0);
+            if (readThrough == checkpointed) {
+                // The read predates the running flush, if any
+                unflushed += flushing.getOrDefault(sweetId, 0);
+            } else if (flushing.isEmpty() || readThrough != flushingThrough) {
+                return null;
+            }
+            cell = new StockCell(quantity + unflushed);
+            cells.put(sweetId, cell);
+            return cell;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    private ReentrantReadWriteLock stripe(Long sweetId) {
+        int hash = Long.hashCode(sweetId);
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private void lockStripes() {
+        for (ReentrantReadWriteLock stripe : stripes) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    private void unlockStripes() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].writeLock().unlock();
+        }
+    }
+
+    private void mergeCarry(Long sweetId, int delta) {
+        if (delta != 0) {
+            carry.merge(sweetId, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
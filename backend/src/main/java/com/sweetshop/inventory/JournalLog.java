@@ -0,0 +1,228 @@
+package com.sweetshop.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped, size-rolled segment files holding the inventory journal.
+ *
+ * Each record is {@code sweetId(8) delta(4) cause(1) userId(8) timestamp(8) crc(4)}. Records
+ * are addressed by offset, their position in the journal, and every segment holds the same
+ * number of records, so the segment and file position of any offset are plain arithmetic.
+ * Segments are preallocated and zero-filled; recovery stops at the first record whose
+ * checksum does not match.
+ *
+ * Appends come from a single writer thread. Reads use their own file channels and only see
+ * records below {@link #endOffset()}, which is published after the record is in the mapping.
+ */
+class JournalLog implements AutoCloseable {
+
+    static final int RECORD_SIZE = 33;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int recordsPerSegment;
+    private final byte[] record = new byte[RECORD_SIZE];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long activeBase = -1;
+    private volatile long endOffset;
+
+    JournalLog(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.recordsPerSegment = Math.max(1, segmentBytes / RECORD_SIZE);
+    }
+
+    interface EntryVisitor {
+        void visit(long offset, long sweetId, int delta, byte cause, long userId, long timestamp);
+    }
+
+    /**
+     * Finds the end of the journal and maps the segment that receives the next append.
+     */
+    synchronized long open() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            endOffset = 0;
+            return 0;
+        }
+        Path last = segments.get(segments.size() - 1);
+        long base = baseOffset(last);
+        long end = base;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        try (FileChannel in = FileChannel.open(last, StandardOpenOption.READ)) {
+            for (int i = 0; i < recordsPerSegment; i++) {
+                buffer.clear();
+                if (!readFully(in, buffer, (long) i * RECORD_SIZE) || !intact(buffer.array())) {
+                    break;
+                }
+                end++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        endOffset = end;
+        return end;
+    }
+
+    long endOffset() {
+        return endOffset;
+    }
+
+    synchronized void append(StockChangedEvent event) {
+        long offset = endOffset;
+        long base = offset - offset % recordsPerSegment;
+        if (base != activeBase) {
+            map(base);
+        }
+        recordBuffer.clear();
+        recordBuffer.putLong(event.getSweetId());
+        recordBuffer.putInt(event.getDelta());
+        recordBuffer.put(event.getCause().getCode());
+        recordBuffer.putLong(event.getUserId() == null ? 0 : event.getUserId());
+        recordBuffer.putLong(event.getOccurredAt());
+        crc.reset();
+        crc.update(record, 0, RECORD_SIZE - 4);
+        recordBuffer.putInt((int) crc.getValue());
+
+        active.put((int) ((offset - base) * RECORD_SIZE), record);
+        endOffset = offset + 1;
+    }
+
+    /**
+     * Flushes the active segment's dirty pages to disk.
+     */
+    synchronized void force() {
+        if (active != null) {
+            active.force();
+        }
+    }
+
+    /**
+     * Visits up to {@code maxEntries} records starting at {@code fromOffset} and returns the
+     * offset to continue from.
+     */
+    long read(long fromOffset, int maxEntries, EntryVisitor visitor) {
+        long end = Math.min(endOffset, fromOffset + maxEntries);
+        long offset = Math.max(fromOffset, 0);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * Math.min(recordsPerSegment, 1024));
+        while (offset < end) {
+            long base = offset - offset % recordsPerSegment;
+            Path segment = directory.resolve(segmentName(base));
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                long segmentEnd = Math.min(end, base + recordsPerSegment);
+                while (offset < segmentEnd) {
+                    int count = (int) Math.min(segmentEnd - offset, buffer.capacity() / RECORD_SIZE);
+                    buffer.clear().limit(count * RECORD_SIZE);
+                    if (!readFully(in, buffer, (offset - base) * RECORD_SIZE)) {
+                        throw new IllegalStateException("Journal segment " + segment + " is shorter than expected");
+                    }
+                    buffer.flip();
+                    for (int i = 0; i < count; i++, offset++) {
+                        long sweetId = buffer.getLong();
+                        int delta = buffer.getInt();
+                        byte cause = buffer.get();
+                        long userId = buffer.getLong();
+                        long timestamp = buffer.getLong();
+                        buffer.getInt(); // checked on recovery
+                        visitor.visit(offset, sweetId, delta, cause, userId, timestamp);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return offset;
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        closeActive();
+    }
+
+    private void map(long base) {
+        force();
+        closeActive();
+        try {
+            activeChannel = FileChannel.open(directory.resolve(segmentName(base)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, (long) recordsPerSegment * RECORD_SIZE);
+            activeBase = base;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeActive() {
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            activeChannel = null;
+            active = null;
+            activeBase = -1;
+        }
+    }
+
+    private boolean intact(byte[] bytes) {
+        crc.reset();
+        crc.update(bytes, 0, RECORD_SIZE - 4);
+        int stored = ByteBuffer.wrap(bytes, RECORD_SIZE - 4, 4).getInt();
+        long timestamp = ByteBuffer.wrap(bytes, 21, 8).getLong();
+        return timestamp != 0 && stored == (int) crc.getValue();
+    }
+
+    private static boolean readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Path> segments() {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Zero-padded names sort in offset order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static String segmentName(long base) {
+        return String.format(PREFIX + "%020d" + SUFFIX, base);
+    }
+
+    private static long baseOffset(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,298 @@
+package com.sweetshop.inventory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append log of acknowledged stock deltas.
+ *
+ * Each record is {@code seq(8) sweetId(8) delta(4) crc(4)}. A record is only acknowledged
+ * once it is written (and forced, when fsync is on), so replay after a crash stops at the
+ * first torn or corrupt record and never loses an acknowledged delta.
+ *
+ * Forces are group-committed. Appenders write their record under the lock and then wait
+ * for it to be durable; the first one to find no force running forces the segment once, on
+ * behalf of every record written so far, and wakes the others together. Records written
+ * while a force runs are covered by the next one, so the number of forces follows the disk's
+ * speed rather than the number of appends.
+ */
+class LedgerLog implements AutoCloseable {
+
+    static final int RECORD_SIZE = 24;
+
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+    private Path activeSegment;
+    private long lastSequence;
+    // Highest sequence known to be on disk, and whether an appender is forcing right now
+    private long forcedThrough;
+    private boolean forcing;
+    private long forces;
+
+    LedgerLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    interface RecordVisitor {
+        void visit(long sequence, long sweetId, int delta);
+    }
+
+    /**
+     * Makes sure new records are numbered after {@code sequence} even if its segments are gone.
+     */
+    synchronized void startAfter(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    /**
+     * Replays every intact record in sequence order and returns the highest sequence seen.
+     */
+    synchronized long replay(RecordVisitor visitor) {
+        long highest = 0;
+        for (Path segment : segments()) {
+            try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+                while (true) {
+                    record.clear();
+                    while (record.hasRemaining() && in.read(record) > 0) {
+                        // keep filling the record
+                    }
+                    if (record.hasRemaining()) {
+                        break;
+                    }
+                    record.flip();
+                    long sequence = record.getLong();
+                    long sweetId = record.getLong();
+                    int delta = record.getInt();
+                    int checksum = record.getInt();
+                    if (checksum != checksum(sequence, sweetId, delta)) {
+                        break;
+                    }
+                    visitor.visit(sequence, sweetId, delta);
+                    highest = Math.max(highest, sequence);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to replay inventory ledger segment " + segment, e);
+            }
+        }
+        lastSequence = Math.max(lastSequence, highest);
+        return highest;
+    }
+
+    /**
+     * Appends a record and returns its sequence once it is written, and forced when fsync
+     * is on.
+     */
+    long append(long sweetId, int delta) {
+        long sequence = write(sweetId, delta);
+        if (fsync) {
+            awaitForced(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Starts a new segment and returns the last sequence written to the previous ones.
+     * Called while appends are quiesced so the returned sequence is a clean cut.
+     */
+    synchronized long roll() {
+        awaitNoForce();
+        closeChannel();
+        return lastSequence;
+    }
+
+    synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Forces made for appends; with concurrent appenders, fewer than the appends.
+     */
+    synchronized long forceCount() {
+        return forces;
+    }
+
+    // Overridden by tests to hold a force open
+    void force(FileChannel target) throws IOException {
+        target.force(false);
+    }
+
+    private synchronized long write(long sweetId, int delta) {
+        long sequence = lastSequence + 1;
+        buffer.clear();
+        buffer.putLong(sequence).putLong(sweetId).putInt(delta).putInt(checksum(sequence, sweetId, delta));
+        buffer.flip();
+        try {
+            ensureOpen();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to inventory ledger", e);
+        }
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    private void awaitForced(long sequence) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                FileChannel target;
+                long through;
+                synchronized (this) {
+                    while (forcing && forcedThrough < sequence) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            // The record is written; the caller still has to learn whether it is durable
+                            interrupted = true;
+                        }
+                    }
+                    if (forcedThrough >= sequence) {
+                        return;
+                    }
+                    if (channel == null) {
+                        // Only a failed close leaves the record neither forced nor in an open segment
+                        throw new UncheckedIOException(new IOException("Inventory ledger segment closed before record " + sequence + " was forced"));
+                    }
+                    forcing = true;
+                    target = channel;
+                    through = lastSequence;
+                }
+                IOException failure = null;
+                try {
+                    force(target);
+                } catch (IOException e) {
+                    failure = e;
+                }
+                synchronized (this) {
+                    forcing = false;
+                    if (failure == null) {
+                        forcedThrough = Math.max(forcedThrough, through);
+                        forces++;
+                    }
+                    notifyAll();
+                }
+                if (failure != null) {
+                    throw new UncheckedIOException("Failed to force inventory ledger", failure);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // The segment must not be closed under a running force
+    private void awaitNoForce() {
+        boolean interrupted = false;
+        while (forcing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deletes the sealed segments whose records are all at or below {@code sequence}.
+     * Sequences inside a segment are contiguous, so its last sequence follows from its size.
+     */
+    synchronized void truncateThrough(long sequence) {
+        for (Path segment : segments()) {
+            if (segment.equals(activeSegment)) {
+                continue;
+            }
+            try {
+                long lastInSegment = firstSequence(segment) + Files.size(segment) / RECORD_SIZE - 1;
+                if (lastInSegment <= sequence) {
+                    Files.deleteIfExists(segment);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete inventory ledger segment " + segment, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        awaitNoForce();
+        closeChannel();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(directory);
+            activeSegment = directory.resolve(String.format("%s%020d%s", PREFIX, lastSequence + 1, SUFFIX));
+            // A leftover file with this name can only hold a torn, unacknowledged record
+            channel = FileChannel.open(activeSegment, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.force(true);
+                channel.close();
+                forcedThrough = lastSequence;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close inventory ledger segment " + activeSegment, e);
+            } finally {
+                channel = null;
+                activeSegment = null;
+            }
+        }
+    }
+
+    private List<Path> segments() {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list inventory ledger segments in " + directory, e);
+        }
+        // Zero-padded names sort in sequence order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private int checksum(long sequence, long sweetId, int delta) {
+        ByteBuffer bytes = ByteBuffer.allocate(RECORD_SIZE - 4);
+        bytes.putLong(sequence).putLong(sweetId).putInt(delta);
+        crc.reset();
+        crc.update(bytes.array());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,255 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group commit for purchases of the same sweet.
+ *
+ * Purchases are queued per sweet and drained in micro-batches, so a hot sweet pays one
+ * row lock, one conditional UPDATE and one multi-row order INSERT per batch instead of per
+ * purchase. When the batch as a whole does not fit, the row is locked and read once and
+ * purchases are admitted greedily in arrival order. Each caller's future completes with
+ * the outcome of its own purchase.
+ *
+ * Enabled with {@code app.purchase.pipeline.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.purchase.pipeline", name = "enabled", havingValue = "true")
+public class PurchasePipeline {
+
+    // Same bound as PurchaseRequest; a batch total is summed as a long on top of it
+    static final int MAX_QUANTITY = 100_000;
+    static final String DECREMENT_SQL =
+        "UPDATE sweets SET quantity = quantity - ?, version = version + 1, updated_at = ? WHERE id = ? AND quantity >= ?";
+    static final String LOCK_SQL = "SELECT quantity FROM sweets WHERE id = ? FOR UPDATE";
+    // Priced from the row itself, so the whole batch is written by one INSERT ... SELECT
+    private static final String INSERT_ORDERS_SQL =
+        "INSERT INTO orders (user_id, sweet_id, quantity, total_amount, order_date) ";
+    private static final String ORDER_ROW_SQL = "SELECT ?, id, ?, price * ?, ? FROM sweets WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService drainers;
+    private final int batchSize;
+    private final long lingerMillis;
+    private final int maxQueueDepth;
+
+    private final ConcurrentHashMap<Long, SweetQueue> queues = new ConcurrentHashMap<>();
+    private final AtomicInteger totalDepth = new AtomicInteger();
+    private final DistributionSummary batchSizes;
+    private final DistributionSummary queueDepths;
+
+    public PurchasePipeline(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.purchase.pipeline.batch-size:64}") int batchSize,
+                            @Value("${app.purchase.pipeline.linger-ms:2}") long lingerMillis,
+                            @Value("${app.purchase.pipeline.max-queue-depth:10000}") int maxQueueDepth,
+                            @Value("${app.purchase.pipeline.drain-threads:4}") int drainThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.drainers = Executors.newFixedThreadPool(drainThreads);
+        this.batchSize = batchSize;
+        this.lingerMillis = lingerMillis;
+        this.maxQueueDepth = maxQueueDepth;
+
+        Gauge.builder("sweetshop.purchase.pipeline.queue.depth", totalDepth, AtomicInteger::get)
+            .description("Purchases waiting in the pipeline across all sweets")
+            .register(meterRegistry);
+        this.queueDepths = DistributionSummary.builder("sweetshop.purchase.pipeline.queue.depth.sampled")
+            .description("Per-sweet queue depth seen by each submitted purchase")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("sweetshop.purchase.pipeline.batch.size")
+            .description("Purchases committed together in one batch")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    private static final class PendingPurchase {
+        final Long userId;
+        final int quantity;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        boolean admitted;
+
+        PendingPurchase(Long userId, int quantity) {
+            this.userId = userId;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class SweetQueue {
+        final Long sweetId;
+        final ConcurrentLinkedQueue<PendingPurchase> pending = new ConcurrentLinkedQueue<>();
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        SweetQueue(Long sweetId) {
+            this.sweetId = sweetId;
+        }
+    }
+
+    /**
+     * Queues a purchase; the future fails with {@link InsufficientStockException} or
+     * {@link SweetNotFoundException} when the purchase cannot be admitted.
+     */
+    public CompletableFuture<Void> submit(Long userId, Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        if (quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Amount must be at most " + MAX_QUANTITY);
+        }
+        SweetQueue queue = queues.computeIfAbsent(sweetId, SweetQueue::new);
+        int depth = queue.depth.incrementAndGet();
+        if (depth > maxQueueDepth) {
+            queue.depth.decrementAndGet();
+            throw new IllegalStateException("Too many pending purchases for this sweet, please retry");
+        }
+        totalDepth.incrementAndGet();
+        queueDepths.record(depth);
+
+        PendingPurchase purchase = new PendingPurchase(userId, quantity);
+        queue.pending.add(purchase);
+        scheduleDrain(queue);
+        return purchase.result;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        drainers.shutdown();
+        drainers.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void scheduleDrain(SweetQueue queue) {
+        if (queue.draining.compareAndSet(false, true)) {
+            drainers.execute(() -> drain(queue));
+        }
+    }
+
+    private void drain(SweetQueue queue) {
+        try {
+            if (lingerMillis > 0 && queue.depth.get() < batchSize) {
+                // Give concurrent purchases a moment to join this batch
+                Thread.sleep(lingerMillis);
+            }
+            List<PendingPurchase> batch = new ArrayList<>(batchSize);
+            PendingPurchase purchase;
+            while (batch.size() < batchSize && (purchase = queue.pending.poll()) != null) {
+                batch.add(purchase);
+            }
+            queue.depth.addAndGet(-batch.size());
+            totalDepth.addAndGet(-batch.size());
+            if (!batch.isEmpty()) {
+                commit(queue.sweetId, batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.draining.set(false);
+            // A purchase may have arrived after the last poll but before the flag was cleared
+            if (!queue.pending.isEmpty()) {
+                scheduleDrain(queue);
+            }
+        }
+    }
+
+    private void commit(Long sweetId, List<PendingPurchase> batch) {
+        int remaining;
+        try {
+            remaining = transactionTemplate.execute(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                // A total past int range cannot fit any stock level, so it goes straight to the greedy pass
+                long total = batch.stream().mapToLong(p -> p.quantity).sum();
+
+                if (total <= Integer.MAX_VALUE
+                        && jdbcTemplate.update(DECREMENT_SQL, (int) total, now, sweetId, (int) total) == 1) {
+                    batch.forEach(purchase -> purchase.admitted = true);
+                    insertOrders(sweetId, batch, now);
+                    return -1;
+                }
+
+                int available = lockedQuantity(sweetId);
+                List<PendingPurchase> admitted = new ArrayList<>(batch.size());
+                int admittedTotal = 0;
+                for (PendingPurchase purchase : batch) {
+                    purchase.admitted = purchase.quantity <= available - admittedTotal;
+                    if (purchase.admitted) {
+                        admitted.add(purchase);
+                        admittedTotal += purchase.quantity;
+                    }
+                }
+                if (admittedTotal > 0) {
+                    jdbcTemplate.update(DECREMENT_SQL, admittedTotal, now, sweetId, admittedTotal);
+                    insertOrders(sweetId, admitted, now);
+                }
+                return available - admittedTotal;
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(purchase -> purchase.result.completeExceptionally(e));
+            return;
+        }
+
+        int committed = 0;
+        // Complete in arrival order
+        for (PendingPurchase purchase : batch) {
+            if (purchase.admitted) {
+                committed++;
+                purchase.result.complete(null);
+            } else {
+                purchase.result.completeExceptionally(new InsufficientStockException(
+                    "Not enough stock available. Available: " + remaining + ", Requested: " + purchase.quantity));
+            }
+        }
+        batchSizes.record(committed);
+    }
+
+    private int lockedQuantity(Long sweetId) {
+        try {
+            return jdbcTemplate.queryForObject(LOCK_SQL, Integer.class, sweetId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new SweetNotFoundException("Sweet not found with id: " + sweetId);
+        }
+    }
+
+    private void insertOrders(Long sweetId, List<PendingPurchase> admitted, Timestamp now) {
+        StringBuilder sql = new StringBuilder(INSERT_ORDERS_SQL);
+        List<Object> args = new ArrayList<>(admitted.size() * 5);
+        for (int i = 0; i < admitted.size(); i++) {
+            PendingPurchase purchase = admitted.get(i);
+            sql.append(i == 0 ? ORDER_ROW_SQL : " UNION ALL " + ORDER_ROW_SQL);
+            args.add(purchase.userId);
+            args.add(purchase.quantity);
+            args.add(purchase.quantity);
+            args.add(now);
+            args.add(sweetId);
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+}
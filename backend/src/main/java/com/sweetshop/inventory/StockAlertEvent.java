@@ -0,0 +1,38 @@
+package com.sweetshop.inventory;
+
+/**
+ * Published when a sweet's stock crosses its low-stock threshold or runs out, in either direction.
+ */
+public class StockAlertEvent {
+
+    private final Long sweetId;
+    private final StockAlerts.Level previous;
+    private final StockAlerts.Level current;
+    private final int quantity;
+    private final int threshold;
+
+    public StockAlertEvent(Long sweetId, StockAlerts.Level previous, StockAlerts.Level current,
+                           int quantity, int threshold) {
+        this.sweetId = sweetId;
+        this.previous = previous;
+        this.current = current;
+        this.quantity = quantity;
+        this.threshold = threshold;
+    }
+
+    public Long getSweetId() { return sweetId; }
+    public StockAlerts.Level getPrevious() { return previous; }
+    public StockAlerts.Level getCurrent() { return current; }
+    public int getQuantity() { return quantity; }
+    public int getThreshold() { return threshold; }
+
+    @Override
+    public String toString() {
+        return "StockAlertEvent{" +
+                "sweetId=" + sweetId +
+                ", " + previous + " -> " + current +
+                ", quantity=" + quantity +
+                ", threshold=" + threshold +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live low-stock and out-of-stock sets, kept up to date from {@link StockChangedEvent}s.
+ *
+ * Each tracked sweet carries its quantity and threshold; a stock change re-classifies only
+ * that sweet, and a change of level is published as a {@link StockAlertEvent}. Readers get
+ * the current sets without a table scan. A periodic resync from the database corrects any
+ * drift, such as a change that raced the previous resync.
+ */
+@Component
+public class StockAlerts {
+
+    public enum Level { IN_STOCK, LOW, OUT }
+
+    private static final Logger log = LoggerFactory.getLogger(StockAlerts.class);
+
+    private final SweetRepository sweetRepository;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultThreshold;
+
+    private final ConcurrentHashMap<Long, Tracked> tracked = new ConcurrentHashMap<>();
+    private final Set<Long> lowStock = ConcurrentHashMap.newKeySet();
+    private final Set<Long> outOfStock = ConcurrentHashMap.newKeySet();
+
+    public StockAlerts(SweetRepository sweetRepository,
+                       Optional<InventoryLedger> inventoryLedger,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${app.alerts.default-low-stock-threshold:5}") int defaultThreshold) {
+        this.sweetRepository = sweetRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.defaultThreshold = defaultThreshold;
+    }
+
+    private static final class Tracked {
+        final int quantity;
+        final int threshold;
+        final Level level;
+
+        Tracked(int quantity, int threshold) {
+            this.quantity = quantity;
+            this.threshold = threshold;
+            this.level = quantity <= 0 ? Level.OUT : quantity <= threshold ? Level.LOW : Level.IN_STOCK;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        resync();
+    }
+
+    /**
+     * Reloads every sweet's stock and threshold from the source of truth.
+     */
+    @Scheduled(fixedDelayString = "${app.alerts.resync-interval-ms:300000}",
+               initialDelayString = "${app.alerts.resync-interval-ms:300000}")
+    public void resync() {
+        Set<Long> seen = new HashSet<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            seen.add(sweet.getId());
+            set(sweet.getId(), new Tracked(currentQuantity(sweet), threshold(sweet)));
+        }
+        for (Long sweetId : tracked.keySet()) {
+            if (!seen.contains(sweetId)) {
+                remove(sweetId);
+            }
+        }
+        log.debug("Stock alerts resynced: {} low, {} out of stock", lowStock.size(), outOfStock.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        Long sweetId = event.getSweetId();
+        if (event.getCause() == StockChangedEvent.Cause.DELETED) {
+            remove(sweetId);
+            return;
+        }
+        Tracked[] previous = new Tracked[1];
+        Tracked current = tracked.computeIfPresent(sweetId, (id, old) -> {
+            previous[0] = old;
+            Tracked updated = new Tracked(old.quantity + event.getDelta(), old.threshold);
+            index(id, updated);
+            return updated;
+        });
+        if (current == null) {
+            // Not seen yet, e.g. just created; the committed row already includes this change
+            sweetRepository.findById(sweetId).ifPresent(sweet ->
+                set(sweetId, new Tracked(currentQuantity(sweet), threshold(sweet))));
+        } else {
+            publishIfCrossed(sweetId, previous[0], current);
+        }
+    }
+
+    /**
+     * Applies a sweet's new threshold, or the default when {@code threshold} is null.
+     */
+    public void thresholdChanged(Long sweetId, Integer threshold) {
+        int effective = threshold == null ? defaultThreshold : threshold;
+        Tracked[] previous = new Tracked[1];
+        Tracked current = tracked.computeIfPresent(sweetId, (id, old) -> {
+            previous[0] = old;
+            Tracked updated = new Tracked(old.quantity, effective);
+            index(id, updated);
+            return updated;
+        });
+        if (current != null) {
+            publishIfCrossed(sweetId, previous[0], current);
+        }
+    }
+
+    public List<Long> lowStockIds() {
+        return new ArrayList<>(lowStock);
+    }
+
+    public List<Long> outOfStockIds() {
+        return new ArrayList<>(outOfStock);
+    }
+
+    public Optional<Level> level(Long sweetId) {
+        return Optional.ofNullable(tracked.get(sweetId)).map(t -> t.level);
+    }
+
+    private void set(Long sweetId, Tracked value) {
+        Tracked[] previous = new Tracked[1];
+        tracked.compute(sweetId, (id, old) -> {
+            previous[0] = old;
+            index(id, value);
+            return value;
+        });
+        if (previous[0] != null) {
+            publishIfCrossed(sweetId, previous[0], value);
+        } else if (value.level != Level.IN_STOCK) {
+            publishIfCrossed(sweetId, null, value);
+        }
+    }
+
+    private void remove(Long sweetId) {
+        tracked.computeIfPresent(sweetId, (id, old) -> {
+            lowStock.remove(id);
+            outOfStock.remove(id);
+            return null;
+        });
+    }
+
+    // Called under the map's lock for the sweet, so the sets never disagree with its level
+    private void index(Long sweetId, Tracked value) {
+        if (value.level == Level.LOW) {
+            lowStock.add(sweetId);
+        } else {
+            lowStock.remove(sweetId);
+        }
+        if (value.level == Level.OUT) {
+            outOfStock.add(sweetId);
+        } else {
+            outOfStock.remove(sweetId);
+        }
+    }
+
+    private void publishIfCrossed(Long sweetId, Tracked previous, Tracked current) {
+        Level before = previous == null ? Level.IN_STOCK : previous.level;
+        if (before != current.level) {
+            eventPublisher.publishEvent(new StockAlertEvent(sweetId, before, current.level, current.quantity, current.threshold));
+        }
+    }
+
+    private int currentQuantity(Sweet sweet) {
+        return inventoryLedger.map(ledger -> ledger.available(sweet.getId())).orElse(sweet.getQuantity());
+    }
+
+    private int threshold(Sweet sweet) {
+        return sweet.getLowStockThreshold() == null ? defaultThreshold : sweet.getLowStockThreshold();
+    }
+}
@@ -0,0 +1,75 @@
+package com.sweetshop.inventory;
+
+/**
+ * Published whenever a sweet's shelf stock ({@code sweets.quantity}) changes.
+ *
+ * Listeners that care about committed state receive it after the surrounding transaction
+ * commits; writes made outside a transaction are delivered immediately.
+ */
+public class StockChangedEvent {
+
+    // Stored by code in the journal, so existing codes must never change
+    public enum Cause {
+        OPENING_BALANCE(0),
+        CREATED(1),
+        PURCHASE(2),
+        CHECKOUT(3),
+        RESTOCK(4),
+        ADJUSTMENT(5),
+        DELETED(6),
+        FLASH_SALE(7),
+        // Journal only: changes that never reached the journal, summed into one delta
+        GAP(8);
+
+        private final byte code;
+
+        Cause(int code) {
+            this.code = (byte) code;
+        }
+
+        public byte getCode() { return code; }
+
+        public static Cause fromCode(byte code) {
+            for (Cause cause : values()) {
+                if (cause.code == code) {
+                    return cause;
+                }
+            }
+            throw new IllegalArgumentException("Unknown stock change cause: " + code);
+        }
+    }
+
+    private final Long sweetId;
+    private final int delta;
+    private final Cause cause;
+    private final Long userId;
+    private final long occurredAt;
+
+    public StockChangedEvent(Long sweetId, int delta, Cause cause, Long userId) {
+        this(sweetId, delta, cause, userId, System.currentTimeMillis());
+    }
+
+    public StockChangedEvent(Long sweetId, int delta, Cause cause, Long userId, long occurredAt) {
+        this.sweetId = sweetId;
+        this.delta = delta;
+        this.cause = cause;
+        this.userId = userId;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getSweetId() { return sweetId; }
+    public int getDelta() { return delta; }
+    public Cause getCause() { return cause; }
+    public Long getUserId() { return userId; }
+    public long getOccurredAt() { return occurredAt; }
+
+    @Override
+    public String toString() {
+        return "StockChangedEvent{" +
+                "sweetId=" + sweetId +
+                ", delta=" + delta +
+                ", cause=" + cause +
+                ", userId=" + userId +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package com.sweetshop.inventory;
+
+import java.util.Set;
+
+/**
+ * Published by the {@link InventoryLedger} once a flush has committed, naming the sweets whose
+ * {@code sweets.quantity} it changed.
+ *
+ * With the ledger enabled, the {@link StockChangedEvent} of a purchase or restock arrives before
+ * the row holds the new stock, so anything cached from the row must be refreshed again here.
+ * The write has already committed, so listeners receive it immediately.
+ */
+public class StockFlushedEvent {
+
+    private final Set<Long> sweetIds;
+
+    public StockFlushedEvent(Set<Long> sweetIds) {
+        this.sweetIds = Set.copyOf(sweetIds);
+    }
+
+    public Set<Long> getSweetIds() { return sweetIds; }
+
+    @Override
+    public String toString() {
+        return "StockFlushedEvent{" +
+                "sweetIds=" + sweetIds +
+                '}';
+    }
+}
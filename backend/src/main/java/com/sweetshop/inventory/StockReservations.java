@@ -0,0 +1,241 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.repository.SweetRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory table of time-limited stock holds.
+ *
+ * Holds are indexed by id and summed per sweet, and their expiry is tracked in a
+ * {@link HashedTimerWheel}. Available stock is the on-hand snapshot minus live holds,
+ * so requests for held stock are turned away here without touching the database.
+ * The guarded UPDATE at purchase time remains the final authority on stock.
+ */
+@Component
+public class StockReservations {
+
+    private final SweetRepository sweetRepository;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final Duration holdTtl;
+    private final long stockRefreshMillis;
+    private final HashedTimerWheel<Hold> expiryWheel;
+
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, SweetStock> stock = new ConcurrentHashMap<>();
+
+    public StockReservations(SweetRepository sweetRepository,
+                             Optional<InventoryLedger> inventoryLedger,
+                             @Value("${app.reservations.ttl-minutes:10}") long ttlMinutes,
+                             @Value("${app.reservations.tick-ms:1000}") long tickMillis,
+                             @Value("${app.reservations.wheel-size:512}") int wheelSize,
+                             @Value("${app.reservations.stock-refresh-ms:5000}") long stockRefreshMillis) {
+        this.sweetRepository = sweetRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.holdTtl = Duration.ofMinutes(ttlMinutes);
+        this.stockRefreshMillis = stockRefreshMillis;
+        this.expiryWheel = new HashedTimerWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    public static final class Hold {
+        private final String id;
+        private final Long userId;
+        private final Long sweetId;
+        private final int quantity;
+        private final Instant expiresAt;
+        private final AtomicReference<HoldState> state = new AtomicReference<>(HoldState.HELD);
+        private volatile HashedTimerWheel.Timeout<Hold> timeout;
+
+        private Hold(Long userId, Long sweetId, int quantity, Instant expiresAt) {
+            this.id = UUID.randomUUID().toString();
+            this.userId = userId;
+            this.sweetId = sweetId;
+            this.quantity = quantity;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() { return id; }
+        public Long getUserId() { return userId; }
+        public Long getSweetId() { return sweetId; }
+        public int getQuantity() { return quantity; }
+        public Instant getExpiresAt() { return expiresAt; }
+    }
+
+    // HELD -> CLAIMED -> SETTLED on confirm; HELD -> SETTLED on release or expiry
+    private enum HoldState { HELD, CLAIMED, SETTLED }
+
+    private static final class SweetStock {
+        final AtomicInteger onHand;
+        final AtomicInteger held = new AtomicInteger();
+        volatile long loadedAt;
+
+        SweetStock(int onHand, long loadedAt) {
+            this.onHand = new AtomicInteger(onHand);
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public Hold reserve(Long userId, Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        SweetStock sweetStock = stock(sweetId);
+        int held;
+        do {
+            held = sweetStock.held.get();
+            int available = sweetStock.onHand.get() - held;
+            if (available < quantity) {
+                throw insufficientStock(available, quantity);
+            }
+        } while (!sweetStock.held.compareAndSet(held, held + quantity));
+
+        Hold hold = new Hold(userId, sweetId, quantity, Instant.now().plus(holdTtl));
+        holds.put(hold.id, hold);
+        hold.timeout = expiryWheel.schedule(hold, hold.expiresAt.toEpochMilli());
+        return hold;
+    }
+
+    public Optional<Hold> find(String holdId) {
+        return Optional.ofNullable(holds.get(holdId));
+    }
+
+    /**
+     * Gives the held stock back. Returns false if the hold was already settled or is
+     * claimed by a checkout.
+     */
+    public boolean release(String holdId) {
+        Hold hold = holds.get(holdId);
+        return hold != null && settle(hold, HoldState.HELD);
+    }
+
+    /**
+     * Takes a hold for checkout. Release and expiry leave a claimed hold alone, so its stock
+     * stays held until the checkout either {@link #consume consumes} or {@link #unclaim unclaims} it.
+     * Returns false if the hold was already released, expired or claimed.
+     */
+    public boolean claim(Hold hold) {
+        return hold.state.compareAndSet(HoldState.HELD, HoldState.CLAIMED);
+    }
+
+    /**
+     * Hands a claimed hold back after a failed checkout. A hold whose time ran out while it
+     * was claimed is released straight away, since the wheel has already passed it by.
+     */
+    public void unclaim(Hold hold) {
+        if (!hold.state.compareAndSet(HoldState.CLAIMED, HoldState.HELD)) {
+            return;
+        }
+        if (!hold.expiresAt.isAfter(Instant.now())) {
+            settle(hold, HoldState.HELD);
+        }
+    }
+
+    /**
+     * Settles a claimed hold whose stock has been sold, so it no longer counts against availability.
+     */
+    public void consume(Hold hold) {
+        if (settle(hold, HoldState.CLAIMED)) {
+            recordSale(hold.sweetId, hold.quantity);
+        }
+    }
+
+    public int available(Long sweetId) {
+        SweetStock sweetStock = stock(sweetId);
+        return sweetStock.onHand.get() - sweetStock.held.get();
+    }
+
+    public int held(Long sweetId) {
+        SweetStock sweetStock = stock.get(sweetId);
+        return sweetStock == null ? 0 : sweetStock.held.get();
+    }
+
+    /**
+     * Rejects a purchase of unreserved stock that would eat into other customers' holds.
+     */
+    public void checkUnheld(Long sweetId, int quantity) {
+        SweetStock sweetStock = stock.get(sweetId);
+        if (sweetStock == null || sweetStock.held.get() == 0) {
+            return;
+        }
+        int available = sweetStock.onHand.get() - sweetStock.held.get();
+        if (available < quantity) {
+            throw insufficientStock(available, quantity);
+        }
+    }
+
+    public void recordSale(Long sweetId, int quantity) {
+        SweetStock sweetStock = stock.get(sweetId);
+        if (sweetStock != null) {
+            sweetStock.onHand.addAndGet(-quantity);
+        }
+    }
+
+    /**
+     * Forces the next access to reload on-hand stock, e.g. after a restock or an admin edit.
+     */
+    public void refresh(Long sweetId) {
+        SweetStock sweetStock = stock.get(sweetId);
+        if (sweetStock != null) {
+            sweetStock.loadedAt = 0;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.reservations.tick-ms:1000}")
+    public void expireHolds() {
+        expiryWheel.advance(System.currentTimeMillis(), hold -> settle(hold, HoldState.HELD));
+    }
+
+    private boolean settle(Hold hold, HoldState expected) {
+        if (!hold.state.compareAndSet(expected, HoldState.SETTLED)) {
+            return false;
+        }
+        holds.remove(hold.id);
+        if (hold.timeout != null) {
+            hold.timeout.cancel();
+        }
+        SweetStock sweetStock = stock.get(hold.sweetId);
+        if (sweetStock != null) {
+            sweetStock.held.addAndGet(-hold.quantity);
+        }
+        return true;
+    }
+
+    private SweetStock stock(Long sweetId) {
+        long now = System.currentTimeMillis();
+        SweetStock sweetStock = stock.get(sweetId);
+        if (sweetStock != null && now - sweetStock.loadedAt < stockRefreshMillis) {
+            return sweetStock;
+        }
+        int onHand = loadOnHand(sweetId);
+        if (sweetStock == null) {
+            sweetStock = stock.computeIfAbsent(sweetId, id -> new SweetStock(onHand, now));
+        }
+        sweetStock.onHand.set(onHand);
+        sweetStock.loadedAt = now;
+        return sweetStock;
+    }
+
+    private int loadOnHand(Long sweetId) {
+        if (inventoryLedger.isPresent()) {
+            return inventoryLedger.get().available(sweetId);
+        }
+        return sweetRepository.findById(sweetId)
+            .map(Sweet::getQuantity)
+            .orElseThrow(() -> new SweetNotFoundException("Sweet not found with id: " + sweetId));
+    }
+
+    private InsufficientStockException insufficientStock(int available, int requested) {
+        return new InsufficientStockException("Not enough stock available. Available: " + Math.max(available, 0) + ", Requested: " + requested);
+    }
+}
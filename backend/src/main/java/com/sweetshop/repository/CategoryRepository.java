@@ -1,22 +1,41 @@
 package com.sweetshop.repository;
 
 import com.sweetshop.entity.Category;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+
+    // Query cache regions, used when the second-level cache is enabled
+    String CATEGORIES_REGION = "query.categories";
+    String CATEGORIES_WITH_SWEETS_REGION = "query.categories-with-sweets";
     
     Optional<Category> findByName(String name);
     
     boolean existsByName(String name);
     
     @Query("SELECT DISTINCT c FROM Category c JOIN c.sweets s WHERE s.quantity > 0")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CATEGORIES_WITH_SWEETS_REGION)})
     List<Category> findCategoriesWithSweets();
     
     @Query("SELECT c FROM Category c ORDER BY c.name ASC")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CATEGORIES_REGION)})
     List<Category> findAllOrderByName();
+    
+    @Query("SELECT c FROM Category c ORDER BY c.name ASC, c.id ASC")
+    List<Category> findFirstPage(Pageable pageable);
+    
+    @Query("SELECT c FROM Category c WHERE c.name > :name OR (c.name = :name AND c.id > :id) ORDER BY c.name ASC, c.id ASC")
+    List<Category> findAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
 }
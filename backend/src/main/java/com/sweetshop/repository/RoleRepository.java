@@ -1,13 +1,21 @@
 package com.sweetshop.repository;
 
 import com.sweetshop.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
-    
+
+    // Query cache region, used when the second-level cache is enabled
+    String ROLES_REGION = "query.roles";
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ROLES_REGION)})
     Optional<Role> findByName(String name);
     
     boolean existsByName(String name);
@@ -2,31 +2,73 @@ package com.sweetshop.repository;
 
 import com.sweetshop.entity.Sweet;
 import com.sweetshop.entity.Category;
+import com.sweetshop.dto.SweetCardDto;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SweetRepository extends JpaRepository<Sweet, Long> {
+public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet>, SweetRepositoryCustom {
+
+    // Entity queries fetch the category in the same statement; it is lazy everywhere else
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Optional<Sweet> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Sweet> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Sweet> findAllById(Iterable<Long> ids);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Sweet> findAll(Specification<Sweet> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Sweet> findAll(Specification<Sweet> spec, Sort sort);
     
+    @EntityGraph(attributePaths = "category")
     List<Sweet> findByCategory(Category category);
     
+    @EntityGraph(attributePaths = "category")
     List<Sweet> findByQuantityGreaterThan(Integer quantity);
     
+    @EntityGraph(attributePaths = "category")
     List<Sweet> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice);
     
+    @EntityGraph(attributePaths = "category")
     List<Sweet> findByNameContainingIgnoreCase(String name);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s WHERE s.category.name = :categoryName")
     List<Sweet> findByCategoryName(@Param("categoryName") String categoryName);
     
+    @Query("SELECT s.id FROM Sweet s WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    List<Long> findIdsByNameContaining(@Param("name") String name);
+    
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s WHERE s.name LIKE %:name% OR s.description LIKE %:description%")
     List<Sweet> searchByNameOrDescription(@Param("name") String name, @Param("description") String description);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s WHERE s.price BETWEEN :minPrice AND :maxPrice AND s.category.name = :categoryName")
     List<Sweet> findByPriceRangeAndCategory(
         @Param("minPrice") BigDecimal minPrice, 
@@ -34,21 +76,69 @@ public interface SweetRepository extends JpaRepository<Sweet, Long> {
         @Param("categoryName") String categoryName
     );
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s ORDER BY s.quantity DESC")
     List<Sweet> findTopSellingSweets(Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s WHERE s.quantity <= :threshold AND s.quantity > 0 ORDER BY s.quantity ASC")
     List<Sweet> findLowStockSweets(@Param("threshold") Integer threshold);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s WHERE s.quantity = 0")
     List<Sweet> findOutOfStockSweets();
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s ORDER BY s.createdAt DESC")
     List<Sweet> findNewestSweets(Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT s FROM Sweet s ORDER BY s.price ASC")
     List<Sweet> findCheapestSweets(Pageable pageable);
     
+    // Card projections for list endpoints: one row per sweet, nothing else loaded
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c WHERE s.id IN :ids")
+    List<SweetCardDto> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c WHERE c.id = :categoryId " +
+           "ORDER BY s.name ASC, s.id ASC")
+    List<SweetCardDto> findCardsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c WHERE s.quantity > 0 " +
+           "ORDER BY s.name ASC, s.id ASC")
+    List<SweetCardDto> findAvailableCardsFirstPage(Pageable pageable);
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c WHERE s.quantity > 0 " +
+           "AND (s.name > :name OR (s.name = :name AND s.id > :id)) ORDER BY s.name ASC, s.id ASC")
+    List<SweetCardDto> findAvailableCardsAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c ORDER BY s.quantity DESC, s.id ASC")
+    List<SweetCardDto> findTopSellingCards(Pageable pageable);
+
+    @Query("SELECT new com.sweetshop.dto.SweetCardDto(s.id, s.name, SUBSTRING(s.description, 1, " + SweetCardDto.SUMMARY_LENGTH + "), " +
+           "s.price, s.quantity, c.id, c.name, s.imageUrl) FROM Sweet s JOIN s.category c " +
+           "WHERE s.quantity <= :threshold AND s.quantity > 0 ORDER BY s.quantity ASC, s.id ASC")
+    List<SweetCardDto> findLowStockCards(@Param("threshold") Integer threshold);
+
+    @Query("SELECT s.id FROM Sweet s WHERE s.updatedAt >= :since ORDER BY s.updatedAt ASC, s.id ASC")
+    List<Long> findIdsUpdatedSince(@Param("since") LocalDateTime since, Pageable pageable);
+    
     @Query("SELECT COUNT(s) FROM Sweet s WHERE s.category = :category")
     Long countByCategory(@Param("category") Category category);
-}
\ No newline at end of file
+    
+    // Leaves the new quantity in the connection's LAST_INSERT_ID(), read back by lastInsertId()
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE sweets SET quantity = LAST_INSERT_ID(quantity - :amount), version = version + 1, " +
+                   "updated_at = :now WHERE id = :id AND quantity >= :amount", nativeQuery = true)
+    int decrementQuantityIfAvailable(@Param("id") Long id, @Param("amount") int amount,
+                                     @Param("now") LocalDateTime now);
+    
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    long lastInsertId();
+}
@@ -0,0 +1,19 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.entity.Sweet;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.List;
+
+/**
+ * Specification queries that select only sweet ids, so a list endpoint can page and sort
+ * in SQL and then load just the card columns for the ids on the page.
+ */
+public interface SweetRepositoryCustom {
+
+    Page<Long> findIds(Specification<Sweet> spec, Pageable pageable);
+
+    List<Long> findIds(Specification<Sweet> spec, Sort sort);
+}
@@ -0,0 +1,74 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Sweet;
+import org.springframework.data.jpa.domain.Specification;
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * Building blocks for sweet searches. Every filter that is set becomes part of a single
+ * WHERE clause, so paging and sorting happen in the database as well.
+ */
+public final class SweetSpecifications {
+
+    private SweetSpecifications() {}
+
+    public static Specification<Sweet> matching(SweetSearchCriteria criteria) {
+        Specification<Sweet> spec = filters(criteria);
+        if (criteria.getName() != null && !criteria.getName().trim().isEmpty()) {
+            spec = spec.and(nameContains(criteria.getName().trim()));
+        }
+        return spec;
+    }
+
+    /**
+     * Every criterion except the name, for when the text index has already matched it.
+     */
+    public static Specification<Sweet> filters(SweetSearchCriteria criteria) {
+        Specification<Sweet> spec = Specification.where(null);
+        if (criteria.getCategoryId() != null) {
+            spec = spec.and(inCategory(criteria.getCategoryId()));
+        }
+        if (criteria.getMinPrice() != null) {
+            spec = spec.and(priceAtLeast(criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            spec = spec.and(priceAtMost(criteria.getMaxPrice()));
+        }
+        if (criteria.isOnlyAvailable()) {
+            spec = spec.and(inStock());
+        }
+        return spec;
+    }
+
+    public static Specification<Sweet> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Sweet> nameContains(String name) {
+        String pattern = "%" + escapeLike(name.toLowerCase()) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    // Compares the foreign key column, so no join to categories is needed
+    public static Specification<Sweet> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Sweet> priceAtLeast(BigDecimal minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    public static Specification<Sweet> priceAtMost(BigDecimal maxPrice) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+    }
+
+    public static Specification<Sweet> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.get("quantity"), 0);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
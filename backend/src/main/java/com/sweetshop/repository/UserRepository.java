@@ -1,6 +1,8 @@
 package com.sweetshop.repository;
 
 import com.sweetshop.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,19 +12,40 @@ import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    // Unpaged queries fetch the roles in the same statement. Paged ones must not join a
+    // collection, or the limit would be applied in memory; their roles come in one batch.
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
     
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
     
+    @EntityGraph(attributePaths = "roles")
     List<User> findByEnabled(boolean enabled);
     
-    @Query("SELECT u FROM User u JOIN u.roles r WHERE r.name = :roleName")
+    @Query("SELECT DISTINCT u FROM User u JOIN u.roles r LEFT JOIN FETCH u.roles WHERE r.name = :roleName")
     List<User> findByRolesName(@Param("roleName") String roleName);
     
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.firstName LIKE %:name% OR u.lastName LIKE %:name%")
     List<User> findByNameContaining(@Param("name") String name);
     
+    @Query("SELECT u FROM User u ORDER BY u.email ASC, u.id ASC")
+    List<User> findFirstPage(Pageable pageable);
+    
+    @Query("SELECT u FROM User u WHERE u.email > :email OR (u.email = :email AND u.id > :id) ORDER BY u.email ASC, u.id ASC")
+    List<User> findAfter(@Param("email") String email, @Param("id") Long id, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "roles")
     @Query("SELECT u FROM User u WHERE u.createdAt >= :dateFrom")
     List<User> findRecentUsers(@Param("dateFrom") java.time.LocalDateTime dateFrom);
 }
@@ -1,22 +1,34 @@
 package com.sweetshop.service;
 
+import com.sweetshop.catalog.CatalogNearCache;
+import com.sweetshop.catalog.CategoryChangedEvent;
 import com.sweetshop.entity.Category;
 import com.sweetshop.repository.CategoryRepository;
 import com.sweetshop.dto.CategoryDto;
+import com.sweetshop.dto.CursorPage;
 import com.sweetshop.exception.CategoryNotFoundException;
 import com.sweetshop.exception.CategoryAlreadyExistsException;
+import com.sweetshop.util.KeysetCursor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 @Transactional
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Optional<CatalogNearCache> nearCache;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher,
+                           Optional<CatalogNearCache> nearCache) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.nearCache = nearCache;
     }
 
     public Category createCategory(CategoryDto categoryDto) {
@@ -28,7 +40,9 @@ public class CategoryService {
         category.setName(categoryDto.getName());
         category.setDescription(categoryDto.getDescription());
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.CREATED, saved));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -36,9 +50,23 @@ public class CategoryService {
         return categoryRepository.findAllOrderByName();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<Category> findCategories(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable probe = KeysetCursor.probe(limit);
+        List<Category> rows = after == null
+            ? categoryRepository.findFirstPage(probe)
+            : categoryRepository.findAfter(after.getSortKey(), after.getId(), probe);
+        return KeysetCursor.page(rows, probe, Category::getName, Category::getId);
+    }
+
+    /**
+     * The category with this id, from the near-cache when it is enabled. The result may be
+     * shared with other requests and must not be modified.
+     */
     @Transactional(readOnly = true)
     public Category findById(Long id) {
-        return categoryRepository.findById(id)
+        return nearCache.map(cache -> cache.category(id)).orElseGet(() -> categoryRepository.findById(id))
             .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + id));
     }
 
@@ -49,7 +77,7 @@ public class CategoryService {
     }
 
     public Category updateCategory(Long id, CategoryDto categoryDto) {
-        Category category = findById(id);
+        Category category = load(id);
 
         // Check if new name conflicts with existing categories (excluding current)
         if (!category.getName().equals(categoryDto.getName()) && 
@@ -60,11 +88,13 @@ public class CategoryService {
         category.setName(categoryDto.getName());
         category.setDescription(categoryDto.getDescription());
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.UPDATED, saved));
+        return saved;
     }
 
     public void deleteCategory(Long id) {
-        Category category = findById(id);
+        Category category = load(id);
         
         // Check if category has associated sweets
         if (!category.getSweets().isEmpty()) {
@@ -72,6 +102,7 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(CategoryChangedEvent.Type.DELETED, category));
     }
 
     @Transactional(readOnly = true)
@@ -83,4 +114,10 @@ public class CategoryService {
     public boolean isCategoryNameAvailable(String name) {
         return !categoryRepository.existsByName(name);
     }
+
+    // A managed copy for changing; findById may hand out a shared cached instance
+    private Category load(Long id) {
+        return categoryRepository.findById(id)
+            .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + id));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.IdempotencyRecord;
+import com.sweetshop.entity.User;
+import com.sweetshop.exception.IdempotencyConflictException;
+import com.sweetshop.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Makes unsafe endpoints safe to retry by remembering the response for each
+ * {@code Idempotency-Key}.
+ *
+ * Completed responses are kept in a bounded, TTL-evicting map, so a retry on the same node
+ * is answered from memory. The {@code idempotency_keys} table is the shared record: a key is
+ * claimed there with a plain INSERT before the request runs, which makes the first request
+ * win across nodes, and the stored response is replayed by whichever node sees the retry.
+ * Only successful responses are stored; a failed request releases its key so it can be
+ * retried as new.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 100;
+
+    static final String CLAIM_SQL =
+        "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) VALUES (?, ?, ?)";
+    static final String COMPLETE_SQL =
+        "UPDATE idempotency_keys SET status_code = ?, response_body = ? WHERE idempotency_key = ?";
+    static final String RELEASE_SQL =
+        "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status_code IS NULL";
+    static final String RELEASE_STALE_SQL =
+        "DELETE FROM idempotency_keys WHERE idempotency_key = ? AND status_code IS NULL AND created_at < ?";
+    static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE created_at < ?";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration claimTimeout;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, StoredResponse> responses = new ConcurrentHashMap<>();
+    // Insertion order of the map above, so the oldest responses are evicted first once it is full
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Keys whose first request is running on this node, with the hash of that request
+    private final ConcurrentHashMap<String, String> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.claim-timeout-seconds:60}") long claimTimeoutSeconds,
+                              @Value("${app.idempotency.max-entries:10000}") int maxEntries) {
+        this.recordRepository = recordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.claimTimeout = Duration.ofSeconds(claimTimeoutSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    private static final class StoredResponse {
+        final String requestHash;
+        final int status;
+        final String body;
+        final long expiresAt;
+
+        StoredResponse(String requestHash, int status, String body, long expiresAt) {
+            this.requestHash = requestHash;
+            this.status = status;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Runs {@code action} once per key. A retry with the same key and request gets the stored
+     * response back without running the action again.
+     *
+     * @param scope   the operation and target, e.g. {@code purchase:5}; keys are per scope and user
+     * @param request the request body, compared with the original to catch reused keys
+     */
+    public ResponseEntity<?> execute(String scope, User user, String key, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = scope + ":" + (user == null ? "anonymous" : user.getId()) + ":" + key;
+        String requestHash = fingerprint(request);
+
+        StoredResponse stored = cached(cacheKey);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+        if (inFlight.putIfAbsent(cacheKey, requestHash) != null) {
+            throw new IdempotencyConflictException("A request with this " + HEADER + " is already in progress");
+        }
+        try {
+            // The first request may have finished between the lookup and the claim
+            stored = cached(cacheKey);
+            if (stored == null) {
+                stored = claim(cacheKey, requestHash);
+            }
+            if (stored != null) {
+                remember(cacheKey, stored);
+                return replay(stored, requestHash);
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                jdbcTemplate.update(RELEASE_SQL, cacheKey);
+                throw e;
+            }
+
+            stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                toJson(response.getBody()), System.currentTimeMillis() + ttl.toMillis());
+            try {
+                jdbcTemplate.update(COMPLETE_SQL, stored.status, stored.body, cacheKey);
+            } catch (DataAccessException e) {
+                // The work is done; retries on this node are still answered from memory
+                log.warn("Could not store response for idempotency key {}: {}", cacheKey, e.getMessage());
+            }
+            remember(cacheKey, stored);
+            return response;
+        } finally {
+            inFlight.remove(cacheKey);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${app.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        responses.values().removeIf(stored -> stored.expiresAt <= now);
+        insertionOrder.removeIf(key -> !responses.containsKey(key));
+        jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(LocalDateTime.now().minus(ttl)));
+    }
+
+    /**
+     * Claims the key in the shared table. Returns null once the caller owns the key, or the
+     * stored response if another request already completed with it.
+     */
+    private StoredResponse claim(String cacheKey, String requestHash) {
+        for (int attempt = 0; ; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                jdbcTemplate.update(CLAIM_SQL, cacheKey, requestHash, Timestamp.valueOf(now));
+                return null;
+            } catch (DuplicateKeyException e) {
+                Optional<IdempotencyRecord> existing = recordRepository.findById(cacheKey);
+                if (existing.isPresent() && existing.get().isCompleted()) {
+                    IdempotencyRecord record = existing.get();
+                    long expiresAt = record.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant()
+                        .plus(ttl).toEpochMilli();
+                    return new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                        record.getResponseBody(), expiresAt);
+                }
+                if (attempt > 0) {
+                    throw new IdempotencyConflictException("A request with this " + HEADER + " is already in progress");
+                }
+                // Take over a claim whose owner died mid-request; a live claim survives this delete
+                int released = jdbcTemplate.update(RELEASE_STALE_SQL, cacheKey, Timestamp.valueOf(now.minus(claimTimeout)));
+                if (existing.isPresent() && released == 0) {
+                    throw new IdempotencyConflictException("A request with this " + HEADER + " is already in progress");
+                }
+            }
+        }
+    }
+
+    private StoredResponse cached(String cacheKey) {
+        StoredResponse stored = responses.get(cacheKey);
+        if (stored != null && stored.expiresAt <= System.currentTimeMillis()) {
+            responses.remove(cacheKey, stored);
+            return null;
+        }
+        return stored;
+    }
+
+    private void remember(String cacheKey, StoredResponse stored) {
+        if (responses.put(cacheKey, stored) == null) {
+            insertionOrder.add(cacheKey);
+        }
+        while (responses.size() > maxEntries) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            responses.remove(oldest);
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash.equals(requestHash)) {
+            throw new IdempotencyConflictException(HEADER + " was already used for a different request");
+        }
+        return ResponseEntity.status(stored.status)
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(REPLAYED_HEADER, "true")
+            .body(stored.body);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize request or response for replay", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.dto.InventoryEventDto;
+import com.sweetshop.dto.JournalPageDto;
+import com.sweetshop.dto.StockDiscrepancyDto;
+import com.sweetshop.inventory.InventoryJournal;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.repository.SweetRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+public class InventoryAuditService {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private final SweetRepository sweetRepository;
+    private final Optional<InventoryJournal> inventoryJournal;
+    private final Optional<InventoryLedger> inventoryLedger;
+
+    public InventoryAuditService(SweetRepository sweetRepository, Optional<InventoryJournal> inventoryJournal,
+                                 Optional<InventoryLedger> inventoryLedger) {
+        this.sweetRepository = sweetRepository;
+        this.inventoryJournal = inventoryJournal;
+        this.inventoryLedger = inventoryLedger;
+    }
+
+    /**
+     * Returns journal entries from {@code fromOffset}; pass the returned next offset to keep tailing.
+     */
+    public JournalPageDto readJournal(long fromOffset, int limit) {
+        if (fromOffset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        InventoryJournal journal = journal();
+        List<InventoryEventDto> events = journal.read(fromOffset, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))).stream()
+            .map(entry -> new InventoryEventDto(entry.getOffset(), entry.getSweetId(), entry.getDelta(),
+                entry.getCause().name(), entry.getUserId(), entry.getTimestamp()))
+            .collect(Collectors.toList());
+        long nextOffset = events.isEmpty() ? Math.max(fromOffset, 0) : events.get(events.size() - 1).getOffset() + 1;
+        return new JournalPageDto(events, nextOffset, journal.endOffset());
+    }
+
+    /**
+     * Rebuilds stock from the journal and lists every sweet whose current stock differs, or
+     * whose history has a gap where changes were journaled only as a total.
+     * Changes still queued for the journal show up as differences until they are written.
+     */
+    public List<StockDiscrepancyDto> verifyStock() {
+        InventoryJournal.Replay replay = journal().replay();
+        Map<Long, Integer> rebuilt = new HashMap<>(replay.getStock());
+        Set<Long> gaps = replay.getGapSweetIds();
+        List<StockDiscrepancyDto> discrepancies = new ArrayList<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            int current = inventoryLedger.map(ledger -> ledger.available(sweet.getId())).orElse(sweet.getQuantity());
+            Integer journaled = rebuilt.remove(sweet.getId());
+            boolean gap = gaps.contains(sweet.getId());
+            if (journaled == null || journaled != current || gap) {
+                discrepancies.add(new StockDiscrepancyDto(sweet.getId(), journaled, current, gap));
+            }
+        }
+        // Whatever is left has no row; a deleted sweet nets out to zero
+        rebuilt.forEach((sweetId, journaled) -> {
+            boolean gap = gaps.contains(sweetId);
+            if (journaled != 0 || gap) {
+                discrepancies.add(new StockDiscrepancyDto(sweetId, journaled, null, gap));
+            }
+        });
+        return discrepancies;
+    }
+
+    private InventoryJournal journal() {
+        return inventoryJournal.orElseThrow(() -> new IllegalStateException("The inventory journal is not enabled"));
+    }
+}
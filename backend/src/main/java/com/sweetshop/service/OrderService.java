@@ -0,0 +1,139 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.entity.User;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.dto.CheckoutResponse;
+import com.sweetshop.dto.OrderDto;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockReservations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class OrderService {
+
+    // Cap on the merged quantity of one sweet across a cart's repeated lines
+    static final int MAX_SWEET_QUANTITY = 100_000;
+    static final String DECREMENT_STOCK_SQL =
+        "UPDATE sweets SET quantity = quantity - ?, version = version + 1, updated_at = ? WHERE id = ? AND quantity >= ?";
+    static final String INSERT_ORDER_SQL =
+        "INSERT INTO orders (user_id, sweet_id, quantity, total_amount, order_date) VALUES (?, ?, ?, ?, ?)";
+
+    private final SweetRepository sweetRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final StockReservations stockReservations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public OrderService(SweetRepository sweetRepository, JdbcTemplate jdbcTemplate,
+                        Optional<InventoryLedger> inventoryLedger, StockReservations stockReservations,
+                        ApplicationEventPublisher eventPublisher) {
+        this.sweetRepository = sweetRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryLedger = inventoryLedger;
+        this.stockReservations = stockReservations;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Buys every line of a cart in one transaction: either all stock is taken and all
+     * orders are written, or nothing changes.
+     */
+    public CheckoutResponse checkout(User user, List<CheckoutItem> items) {
+        SortedMap<Long, Integer> quantities = mergeLines(items);
+        // Unreserved stock must not eat into other customers' holds
+        quantities.forEach(stockReservations::checkUnheld);
+        CheckoutResponse response = placeOrders(user, quantities);
+        quantities.forEach(stockReservations::recordSale);
+        return response;
+    }
+
+    /**
+     * Buys lines that are already covered by the caller's holds. The caller settles the
+     * holds once this transaction has committed.
+     */
+    public CheckoutResponse checkoutReserved(User user, List<CheckoutItem> items) {
+        return placeOrders(user, mergeLines(items));
+    }
+
+    // Merge repeated lines and walk ids in ascending order, so concurrent checkouts
+    // take row locks in the same order and cannot deadlock each other. Quantities are
+    // checked here as well as on the request, since reserved lines skip validation.
+    private SortedMap<Long, Integer> mergeLines(List<CheckoutItem> items) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutItem item : items) {
+            Integer quantity = item.getQuantity();
+            if (quantity == null || quantity < 1 || quantity > CheckoutItem.MAX_QUANTITY) {
+                throw new IllegalArgumentException("Quantity must be between 1 and " + CheckoutItem.MAX_QUANTITY);
+            }
+            int merged = quantities.merge(item.getSweetId(), quantity, Math::addExact);
+            if (merged > MAX_SWEET_QUANTITY) {
+                throw new IllegalArgumentException("At most " + MAX_SWEET_QUANTITY
+                    + " of one sweet can be bought per checkout");
+            }
+        }
+        return quantities;
+    }
+
+    private CheckoutResponse placeOrders(User user, SortedMap<Long, Integer> quantities) {
+        inventoryLedger.ifPresent(ledger -> ledger.beforeExternalWrite(quantities.keySet()));
+
+        Map<Long, Sweet> sweets = sweetRepository.findAllById(quantities.keySet()).stream()
+            .collect(Collectors.toMap(Sweet::getId, Function.identity()));
+        for (Long sweetId : quantities.keySet()) {
+            if (!sweets.containsKey(sweetId)) {
+                throw new SweetNotFoundException("Sweet not found with id: " + sweetId);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        List<Object[]> decrements = new ArrayList<>(quantities.size());
+        quantities.forEach((sweetId, quantity) -> decrements.add(new Object[] { quantity, timestamp, sweetId, quantity }));
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, decrements);
+
+        List<Object[]> orderRows = new ArrayList<>(quantities.size());
+        List<OrderDto> orders = new ArrayList<>(quantities.size());
+        BigDecimal total = BigDecimal.ZERO;
+        int line = 0;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Sweet sweet = sweets.get(entry.getKey());
+            int quantity = entry.getValue();
+            if (updated[line++] == 0) {
+                // Rolls back the decrements already applied for earlier lines
+                throw new InsufficientStockException("Not enough stock available for " + sweet.getName()
+                    + ". Available: " + sweet.getQuantity() + ", Requested: " + quantity);
+            }
+
+            BigDecimal amount = sweet.getPrice().multiply(BigDecimal.valueOf(quantity));
+            orderRows.add(new Object[] { user.getId(), sweet.getId(), quantity, amount, timestamp });
+            orders.add(new OrderDto(sweet.getId(), sweet.getName(), quantity, sweet.getPrice(), amount));
+            total = total.add(amount);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orderRows);
+        quantities.forEach((sweetId, quantity) -> eventPublisher.publishEvent(
+            new StockChangedEvent(sweetId, -quantity, StockChangedEvent.Cause.CHECKOUT, user.getId())));
+
+        return new CheckoutResponse(orders, total, now);
+    }
+}
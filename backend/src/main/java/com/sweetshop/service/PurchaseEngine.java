@@ -0,0 +1,53 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.exception.InsufficientStockException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+
+/**
+ * Applies stock decrements as a single guarded UPDATE instead of read-modify-write.
+ *
+ * {@code quantity = quantity - n WHERE quantity >= n} checks and takes the stock in one
+ * statement, so concurrent purchases of a sweet queue on its row lock for that statement
+ * only and none of them is ever retried. The UPDATE also stores the new quantity in the
+ * connection's {@code LAST_INSERT_ID()}, which is read back in the same short transaction
+ * instead of selecting the row again. Only a refused decrement reads the row, to tell a
+ * missing sweet from one without enough stock.
+ */
+@Service
+public class PurchaseEngine {
+
+    private final SweetRepository sweetRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PurchaseEngine(SweetRepository sweetRepository, PlatformTransactionManager transactionManager) {
+        this.sweetRepository = sweetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes {@code quantity} from the sweet's stock and returns what is left.
+     */
+    public int purchase(Long sweetId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        return transactionTemplate.execute(status -> decrement(sweetId, quantity));
+    }
+
+    private int decrement(Long sweetId, int quantity) {
+        if (sweetRepository.decrementQuantityIfAvailable(sweetId, quantity, LocalDateTime.now()) == 0) {
+            Sweet sweet = sweetRepository.findById(sweetId)
+                .orElseThrow(() -> new SweetNotFoundException("Sweet not found with id: " + sweetId));
+            throw new InsufficientStockException("Not enough stock available. Available: " + sweet.getQuantity() + ", Requested: " + quantity);
+        }
+        return Math.toIntExact(sweetRepository.lastInsertId());
+    }
+}
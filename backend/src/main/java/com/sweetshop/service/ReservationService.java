@@ -0,0 +1,79 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.User;
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.dto.CheckoutResponse;
+import com.sweetshop.dto.ReservationDto;
+import com.sweetshop.exception.ReservationNotFoundException;
+import com.sweetshop.inventory.StockReservations;
+import com.sweetshop.inventory.StockReservations.Hold;
+import org.springframework.stereotype.Service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ReservationService {
+
+    private final StockReservations stockReservations;
+    private final OrderService orderService;
+
+    public ReservationService(StockReservations stockReservations, OrderService orderService) {
+        this.stockReservations = stockReservations;
+        this.orderService = orderService;
+    }
+
+    public ReservationDto reserve(User user, Long sweetId, int quantity) {
+        Hold hold = stockReservations.reserve(user.getId(), sweetId, quantity);
+        return toDto(hold);
+    }
+
+    public void release(User user, String reservationId) {
+        Hold hold = findOwnedHold(user, reservationId);
+        stockReservations.release(hold.getId());
+    }
+
+    // Not transactional on purpose: the holds are settled only after the checkout has committed.
+    // Each hold is claimed first, so it cannot expire or be released while the checkout runs.
+    public CheckoutResponse confirm(User user, List<String> reservationIds) {
+        List<Hold> holds = reservationIds.stream()
+            .distinct()
+            .map(id -> findOwnedHold(user, id))
+            .collect(Collectors.toList());
+
+        List<Hold> claimed = new ArrayList<>();
+        CheckoutResponse response;
+        try {
+            for (Hold hold : holds) {
+                if (!stockReservations.claim(hold)) {
+                    throw new ReservationNotFoundException("Reservation not found or expired: " + hold.getId());
+                }
+                claimed.add(hold);
+            }
+            List<CheckoutItem> items = holds.stream()
+                .map(hold -> new CheckoutItem(hold.getSweetId(), hold.getQuantity()))
+                .collect(Collectors.toList());
+            response = orderService.checkoutReserved(user, items);
+        } catch (RuntimeException e) {
+            claimed.forEach(stockReservations::unclaim);
+            throw e;
+        }
+
+        holds.forEach(stockReservations::consume);
+        return response;
+    }
+
+    public int availableStock(Long sweetId) {
+        return stockReservations.available(sweetId);
+    }
+
+    private Hold findOwnedHold(User user, String reservationId) {
+        return stockReservations.find(reservationId)
+            .filter(hold -> hold.getUserId().equals(user.getId()))
+            .orElseThrow(() -> new ReservationNotFoundException("Reservation not found or expired: " + reservationId));
+    }
+
+    private ReservationDto toDto(Hold hold) {
+        return new ReservationDto(hold.getId(), hold.getSweetId(), hold.getQuantity(), hold.getExpiresAt());
+    }
+}
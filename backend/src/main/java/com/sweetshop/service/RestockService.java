@@ -0,0 +1,126 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.BulkRestockResponse;
+import com.sweetshop.dto.RestockItem;
+import com.sweetshop.dto.RestockResult;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockReservations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+@Service
+@Transactional
+public class RestockService {
+
+    static final int MAX_LINES = 10_000;
+    // Keeps the merged total for a sweet within an int even if every line names it
+    static final int MAX_LINE_QUANTITY = 100_000;
+    static final int CHUNK_SIZE = 1_000;
+    static final String RESTOCK_SQL =
+        "UPDATE sweets SET quantity = quantity + ?, version = version + 1, updated_at = ? WHERE id = ?";
+    static final String SELECT_QUANTITIES_SQL = "SELECT id, quantity FROM sweets WHERE id IN (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final StockReservations stockReservations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RestockService(JdbcTemplate jdbcTemplate, Optional<InventoryLedger> inventoryLedger,
+                          StockReservations stockReservations, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryLedger = inventoryLedger;
+        this.stockReservations = stockReservations;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Restocks a whole delivery in one transaction. The statement count depends on the
+     * number of chunks, not lines: one JDBC batch of UPDATEs and one IN-list read per
+     * {@value #CHUNK_SIZE} distinct sweets. Invalid and unknown lines are reported
+     * without failing the rest of the delivery.
+     */
+    public BulkRestockResponse restock(List<RestockItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one restock line is required");
+        }
+        if (items.size() > MAX_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_LINES + " restock lines are allowed per request");
+        }
+
+        // Repeated sweets are merged and updated in ascending id order, so concurrent
+        // restocks and checkouts take row locks in the same order
+        SortedMap<Long, Integer> totals = new TreeMap<>();
+        for (RestockItem item : items) {
+            if (isValid(item)) {
+                totals.merge(item.getSweetId(), item.getQuantity(), Math::addExact);
+            }
+        }
+
+        Map<Long, Integer> quantities = totals.isEmpty() ? Collections.emptyMap() : applyRestock(totals);
+
+        List<RestockResult> results = new ArrayList<>(items.size());
+        int restocked = 0;
+        for (RestockItem item : items) {
+            Long sweetId = item == null ? null : item.getSweetId();
+            Integer quantity = item == null ? null : item.getQuantity();
+            if (!isValid(item)) {
+                results.add(new RestockResult(sweetId, quantity, RestockResult.Status.INVALID,
+                    null, "Sweet id and a quantity between 1 and " + MAX_LINE_QUANTITY + " are required"));
+            } else if (!quantities.containsKey(sweetId)) {
+                results.add(new RestockResult(sweetId, quantity, RestockResult.Status.NOT_FOUND,
+                    null, "Sweet not found with id: " + sweetId));
+            } else {
+                restocked++;
+                results.add(new RestockResult(sweetId, quantity, RestockResult.Status.RESTOCKED,
+                    quantities.get(sweetId), null));
+            }
+        }
+        return new BulkRestockResponse(results, restocked, items.size() - restocked);
+    }
+
+    private Map<Long, Integer> applyRestock(SortedMap<Long, Integer> totals) {
+        inventoryLedger.ifPresent(ledger -> ledger.beforeExternalWrite(totals.keySet()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(RESTOCK_SQL, new ArrayList<>(totals.entrySet()), CHUNK_SIZE, (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+
+        // Read the new levels back; ids missing here did not exist
+        List<Long> ids = new ArrayList<>(totals.keySet());
+        Map<Long, Integer> quantities = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(String.format(SELECT_QUANTITIES_SQL, placeholders),
+                (rs, rowNum) -> Map.entry(rs.getLong(1), rs.getInt(2)),
+                chunk.toArray())
+                .forEach(row -> quantities.put(row.getKey(), row.getValue()));
+        }
+
+        quantities.keySet().forEach(stockReservations::refresh);
+        quantities.keySet().forEach(sweetId -> eventPublisher.publishEvent(
+            new StockChangedEvent(sweetId, totals.get(sweetId), StockChangedEvent.Cause.RESTOCK, null)));
+        return quantities;
+    }
+
+    private boolean isValid(RestockItem item) {
+        return item != null && item.getSweetId() != null && item.getQuantity() != null
+            && item.getQuantity() > 0 && item.getQuantity() <= MAX_LINE_QUANTITY;
+    }
+}
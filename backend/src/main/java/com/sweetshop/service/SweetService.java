@@ -2,35 +2,99 @@ package com.sweetshop.service;
 
 import com.sweetshop.entity.Sweet;
 import com.sweetshop.entity.Category;
+import com.sweetshop.entity.User;
 import com.sweetshop.repository.SweetRepository;
 import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.repository.SweetSpecifications;
+import com.sweetshop.catalog.CatalogAccelerators;
+import com.sweetshop.catalog.CatalogChangedEvent;
+import com.sweetshop.catalog.CatalogBitmapIndex;
+import com.sweetshop.catalog.CatalogChangeLog;
+import com.sweetshop.catalog.CatalogColumns;
+import com.sweetshop.catalog.CatalogTextIndex;
+import com.sweetshop.catalog.FuzzyMatcher;
+import com.sweetshop.catalog.SearchResultCache;
+import com.sweetshop.dto.CatalogChangesDto;
+import com.sweetshop.dto.CursorPage;
+import com.sweetshop.dto.FlashSaleDto;
+import com.sweetshop.dto.SearchFacetsDto;
+import com.sweetshop.dto.SweetCardDto;
 import com.sweetshop.dto.SweetDto;
 import com.sweetshop.dto.SweetSearchCriteria;
 import com.sweetshop.exception.SweetNotFoundException;
-import com.sweetshop.exception.InsufficientStockException;
 import com.sweetshop.exception.CategoryNotFoundException;
+import com.sweetshop.inventory.FlashSales;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.PurchasePipeline;
+import com.sweetshop.inventory.StockAlerts;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockReservations;
+import com.sweetshop.util.KeysetCursor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class SweetService {
 
+    public static final String RELEVANCE = "relevance";
+    private static final Set<String> SEARCH_SORTS = Set.of(RELEVANCE, "name", "price", "quantity", "createdAt");
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_CHANGES = 1000;
+    // updatedAt is set before commit and change versions after it
+    private static final Duration CHANGE_CLOCK_SLACK = Duration.ofSeconds(5);
+
     private final SweetRepository sweetRepository;
     private final CategoryRepository categoryRepository;
+    private final PurchaseEngine purchaseEngine;
+    private final Optional<InventoryLedger> inventoryLedger;
+    private final StockReservations stockReservations;
+    private final Optional<PurchasePipeline> purchasePipeline;
+    private final FlashSales flashSales;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockAlerts stockAlerts;
+    private final CatalogAccelerators catalog;
 
-    public SweetService(SweetRepository sweetRepository, CategoryRepository categoryRepository) {
+    public SweetService(SweetRepository sweetRepository, CategoryRepository categoryRepository,
+                        PurchaseEngine purchaseEngine, Optional<InventoryLedger> inventoryLedger,
+                        StockReservations stockReservations, Optional<PurchasePipeline> purchasePipeline,
+                        FlashSales flashSales, ApplicationEventPublisher eventPublisher,
+                        StockAlerts stockAlerts, CatalogAccelerators catalog) {
         this.sweetRepository = sweetRepository;
         this.categoryRepository = categoryRepository;
+        this.purchaseEngine = purchaseEngine;
+        this.inventoryLedger = inventoryLedger;
+        this.stockReservations = stockReservations;
+        this.purchasePipeline = purchasePipeline;
+        this.flashSales = flashSales;
+        this.eventPublisher = eventPublisher;
+        this.stockAlerts = stockAlerts;
+        this.catalog = catalog;
     }
 
     public Sweet createSweet(SweetDto sweetDto) {
-        Category category = categoryRepository.findById(sweetDto.getCategoryId())
-            .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + sweetDto.getCategoryId()));
+        Category category = category(sweetDto.getCategoryId());
 
         Sweet sweet = new Sweet();
         sweet.setName(sweetDto.getName());
@@ -40,7 +104,10 @@ public class SweetService {
         sweet.setCategory(category);
         sweet.setImageUrl(sweetDto.getImageUrl());
 
-        return sweetRepository.save(sweet);
+        Sweet saved = sweetRepository.save(sweet);
+        publishStockChange(saved.getId(), saved.getQuantity(), StockChangedEvent.Cause.CREATED, null);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.CREATED, saved));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -53,14 +120,66 @@ public class SweetService {
         return sweetRepository.findByQuantityGreaterThan(0);
     }
 
+    /**
+     * Cards for the available sweets ordered by name, one page after {@code cursor}.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<SweetCardDto> findAvailableSweets(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable probe = KeysetCursor.probe(limit);
+        List<SweetCardDto> rows = after == null
+            ? sweetRepository.findAvailableCardsFirstPage(probe)
+            : sweetRepository.findAvailableCardsAfter(after.getSortKey(), after.getId(), probe);
+        return KeysetCursor.page(rows, probe, SweetCardDto::getName, SweetCardDto::getId);
+    }
+
+    /**
+     * The sweets created, changed or deleted after {@code since}, a version returned by an
+     * earlier call. Changes still in the change log are answered from it. Older ones are
+     * found by {@code updatedAt}, which works as long as no delete in the range has been
+     * lost; otherwise, or when there are too many changes to list, the result asks the
+     * client for a full resync.
+     */
+    @Transactional(readOnly = true)
+    public CatalogChangesDto findChanges(long since) {
+        if (catalog.changeLog().isEmpty()) {
+            return CatalogChangesDto.fullResync(0);
+        }
+        CatalogChangeLog changes = catalog.changeLog().get();
+        CatalogChangeLog.Delta delta = changes.since(since);
+        Set<Long> upserted = new LinkedHashSet<>();
+        if (!delta.isComplete()) {
+            if (!changes.deletesKnownSince(since)) {
+                return CatalogChangesDto.fullResync(delta.getVersion());
+            }
+            upserted.addAll(sweetRepository.findIdsUpdatedSince(
+                CatalogChangeLog.timeOf(since).minus(CHANGE_CLOCK_SLACK), PageRequest.of(0, MAX_CHANGES + 1)));
+        }
+        upserted.addAll(delta.getUpserted());
+        upserted.removeAll(delta.getDeleted());
+        if (upserted.size() + delta.getDeleted().size() > MAX_CHANGES) {
+            return CatalogChangesDto.fullResync(delta.getVersion());
+        }
+        List<SweetCardDto> cards = cards(new ArrayList<>(upserted));
+        inventoryLedger.ifPresent(ledger -> cards.forEach(card -> card.setQuantity(ledger.available(card.getId()))));
+        return new CatalogChangesDto(delta.getVersion(), false, cards, new ArrayList<>(delta.getDeleted()));
+    }
+
+    /**
+     * The sweet with this id, from the near-cache when it is enabled. The result may be
+     * shared with other requests and must not be modified.
+     */
     @Transactional(readOnly = true)
     public Sweet findById(Long id) {
-        return sweetRepository.findById(id)
+        return catalog.nearCache().map(cache -> cache.sweet(id)).orElseGet(() -> sweetRepository.findById(id))
             .orElseThrow(() -> new SweetNotFoundException("Sweet not found with id: " + id));
     }
 
     public Sweet updateSweet(Long id, SweetDto sweetDto) {
-        Sweet sweet = findById(id);
+        checkNoFlashSale(id);
+        invalidateLedger(id);
+        Sweet sweet = load(id);
+        int previousQuantity = sweet.getQuantity();
         
         sweet.setName(sweetDto.getName());
         sweet.setDescription(sweetDto.getDescription());
@@ -69,99 +188,393 @@ public class SweetService {
         sweet.setImageUrl(sweetDto.getImageUrl());
 
         if (sweetDto.getCategoryId() != null && !sweetDto.getCategoryId().equals(sweet.getCategory().getId())) {
-            Category newCategory = categoryRepository.findById(sweetDto.getCategoryId())
-                .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + sweetDto.getCategoryId()));
-            sweet.setCategory(newCategory);
+            sweet.setCategory(category(sweetDto.getCategoryId()));
         }
 
-        return sweetRepository.save(sweet);
+        Sweet saved = sweetRepository.save(sweet);
+        publishStockChange(id, saved.getQuantity() - previousQuantity, StockChangedEvent.Cause.ADJUSTMENT, null);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, saved));
+        return saved;
     }
 
     public void deleteSweet(Long id) {
-        Sweet sweet = findById(id);
+        checkNoFlashSale(id);
+        invalidateLedger(id);
+        Sweet sweet = load(id);
         sweetRepository.delete(sweet);
+        publishStockChange(id, -sweet.getQuantity(), StockChangedEvent.Cause.DELETED, null);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED, sweet));
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Sweet purchaseSweet(Long sweetId, int quantity) {
-        Sweet sweet = findById(sweetId);
-        
-        if (sweet.getQuantity() < quantity) {
-            throw new InsufficientStockException("Not enough stock available. Available: " + sweet.getQuantity() + ", Requested: " + quantity);
+        return purchase(null, sweetId, quantity);
+    }
+
+    // The ledger and the engine commit the decrement themselves, ahead of the events
+    private Sweet purchase(Long userId, Long sweetId, int quantity) {
+        stockReservations.checkUnheld(sweetId, quantity);
+        int remaining = inventoryLedger.isPresent()
+            ? inventoryLedger.get().purchase(sweetId, quantity)
+            : purchaseEngine.purchase(sweetId, quantity);
+        Sweet sweet = withQuantity(sweetId, remaining);
+        stockReservations.recordSale(sweetId, quantity);
+        publishStockChange(sweetId, -quantity, StockChangedEvent.Cause.PURCHASE, userId);
+        return sweet;
+    }
+
+    /**
+     * Purchase on behalf of a customer. A running flash sale for the sweet admits the
+     * purchase in memory. Otherwise, with the purchase pipeline enabled (and the ledger
+     * off) the purchase is group-committed with concurrent purchases of the same sweet and
+     * recorded as an order.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Sweet purchaseSweet(User user, Long sweetId, int quantity) {
+        Optional<Sweet> flashSale = flashSales.purchase(user.getId(), sweetId, quantity);
+        if (flashSale.isPresent()) {
+            return flashSale.get();
+        }
+        if (purchasePipeline.isEmpty() || inventoryLedger.isPresent()) {
+            return purchase(user.getId(), sweetId, quantity);
         }
 
-        sweet.decreaseQuantity(quantity);
-        return sweetRepository.save(sweet);
+        stockReservations.checkUnheld(sweetId, quantity);
+        try {
+            purchasePipeline.get().submit(user.getId(), sweetId, quantity).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        stockReservations.recordSale(sweetId, quantity);
+        publishStockChange(sweetId, -quantity, StockChangedEvent.Cause.PURCHASE, user.getId());
+        return findById(sweetId);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Sweet restockSweet(Long sweetId, int quantity) {
-        Sweet sweet = findById(sweetId);
-        sweet.increaseQuantity(quantity);
-        return sweetRepository.save(sweet);
+        stockReservations.refresh(sweetId);
+        Sweet sweet;
+        if (inventoryLedger.isPresent()) {
+            int remaining = inventoryLedger.get().restock(sweetId, quantity);
+            sweet = withQuantity(sweetId, remaining);
+        } else {
+            sweet = load(sweetId);
+            sweet.increaseQuantity(quantity);
+            sweet = sweetRepository.save(sweet);
+        }
+        publishStockChange(sweetId, quantity, StockChangedEvent.Cause.RESTOCK, null);
+        return sweet;
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FlashSaleDto startFlashSale(Long sweetId, int quantity) {
+        return toFlashSaleDto(flashSales.start(sweetId, quantity));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public FlashSaleDto endFlashSale(Long sweetId) {
+        return toFlashSaleDto(flashSales.end(sweetId));
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<FlashSaleDto> findActiveFlashSales() {
+        return flashSales.active().stream()
+            .map(this::toFlashSaleDto)
+            .collect(Collectors.toList());
     }
 
+    /**
+     * Runs every filter in {@code criteria} as one query and returns the requested page of
+     * cards. The query selects only ids; the cards for the page are loaded in a second one.
+     *
+     * With the text index enabled, the name term is matched in memory and the query is
+     * narrowed to those ids instead of scanning with LIKE; sorting by relevance keeps the
+     * index's ranking. With the bitmap index enabled, the filters are first evaluated in
+     * memory too, and a selective search loads only the matching rows by id. With the
+     * search cache enabled, a repeated search loads the cached page's rows by id.
+     */
     @Transactional(readOnly = true)
-    public List<Sweet> searchSweets(SweetSearchCriteria criteria) {
-        List<Sweet> sweets;
-
-        if (criteria.getName() != null && !criteria.getName().trim().isEmpty()) {
-            sweets = sweetRepository.findByNameContainingIgnoreCase(criteria.getName());
-        } else if (criteria.getCategoryId() != null) {
-            Category category = categoryRepository.findById(criteria.getCategoryId())
-                .orElseThrow(() -> new CategoryNotFoundException("Category not found"));
-            sweets = sweetRepository.findByCategory(category);
-        } else {
-            sweets = sweetRepository.findAll();
-        }
-
-        // Apply price filtering
-        if (criteria.getMinPrice() != null || criteria.getMaxPrice() != null) {
-            sweets = sweets.stream()
-                .filter(sweet -> {
-                    BigDecimal price = sweet.getPrice();
-                    boolean withinRange = true;
-                    
-                    if (criteria.getMinPrice() != null) {
-                        withinRange = price.compareTo(criteria.getMinPrice()) >= 0;
-                    }
-                    
-                    if (withinRange && criteria.getMaxPrice() != null) {
-                        withinRange = price.compareTo(criteria.getMaxPrice()) <= 0;
-                    }
-                    
-                    return withinRange;
-                })
-                .collect(Collectors.toList());
-        }
-
-        // Apply availability filter
-        if (criteria.isOnlyAvailable()) {
-            sweets = sweets.stream()
-                .filter(Sweet::isAvailable)
-                .collect(Collectors.toList());
+    public Page<SweetCardDto> searchSweets(SweetSearchCriteria criteria, Pageable pageable) {
+        if (catalog.searchCache().isEmpty()) {
+            Page<Long> ids = search(criteria, pageable);
+            return new PageImpl<>(cards(ids.getContent()), pageable, ids.getTotalElements());
+        }
+        SearchResultCache cache = catalog.searchCache().get();
+        SearchResultCache.CachedPage cached = cache.get(criteria, pageable);
+        if (cached != null) {
+            return new PageImpl<>(cards(cached.getIds()), pageable, cached.getTotal());
         }
+        long generation = cache.generation();
+        Page<Long> ids = search(criteria, pageable);
+        cache.put(criteria, pageable, ids, generation);
+        return new PageImpl<>(cards(ids.getContent()), pageable, ids.getTotalElements());
+    }
 
-        return sweets;
+    private Page<Long> search(SweetSearchCriteria criteria, Pageable pageable) {
+        if (criteria.getCategoryId() != null && !categoryExists(criteria.getCategoryId())) {
+            throw new CategoryNotFoundException("Category not found");
+        }
+        Optional<List<Long>> ranked = indexedNameMatches(criteria);
+        if (ranked.isPresent() && ranked.get().isEmpty()) {
+            return Page.empty(pageable);
+        }
+        Optional<List<Long>> candidates = bitmapMatches(criteria, ranked);
+        if (candidates.isPresent() && candidates.get().isEmpty()) {
+            return Page.empty(pageable);
+        }
+        if (ranked.isEmpty() && candidates.isEmpty()) {
+            return sweetRepository.findIds(SweetSpecifications.matching(criteria), withoutRelevance(pageable));
+        }
+
+        // The filters are re-applied so a row that changed since the index saw it is not returned
+        List<Long> ids = candidates.orElseGet(ranked::get);
+        Specification<Sweet> spec = SweetSpecifications.filters(criteria).and(SweetSpecifications.idIn(ids));
+        Sort.Order relevance = pageable.getSort().getOrderFor(RELEVANCE);
+        if (relevance == null || ranked.isEmpty()) {
+            return sweetRepository.findIds(spec, ranked.isEmpty() ? withoutRelevance(pageable) : pageable);
+        }
+        // Bounded by the index's candidate limit, so ranking the matches in memory is cheap
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ranked.get().size(); i++) {
+            rank.put(ranked.get().get(i), i);
+        }
+        Comparator<Long> byRank = Comparator.comparing(rank::get);
+        List<Long> matches = new ArrayList<>(sweetRepository.findIds(spec, Sort.unsorted()));
+        matches.sort(relevance.isAscending() ? byRank : byRank.reversed());
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
     }
 
+    // Ids passing every filter, when the bitmap index can answer and the result is selective;
+    // a name term the text index could not narrow is left to the database
+    private Optional<List<Long>> bitmapMatches(SweetSearchCriteria criteria, Optional<List<Long>> ranked) {
+        if (ranked.isEmpty() && !searchTerm(criteria).isEmpty()) {
+            return Optional.empty();
+        }
+        return catalog.bitmapIndex().filter(CatalogBitmapIndex::isReady)
+            .flatMap(index -> index.match(criteria, ranked.orElse(null)));
+    }
+
+    /**
+     * Facet counts for the sweets matching {@code criteria}, from the in-memory bitmaps.
+     */
     @Transactional(readOnly = true)
-    public List<Sweet> findSweetsByCategory(Long categoryId) {
-        Category category = categoryRepository.findById(categoryId)
-            .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + categoryId));
-        return sweetRepository.findByCategory(category);
+    public SearchFacetsDto facetSweets(SweetSearchCriteria criteria) {
+        CatalogBitmapIndex index = catalog.bitmapIndex()
+            .orElseThrow(() -> new IllegalStateException("Search facets are not enabled"));
+        String name = searchTerm(criteria);
+        List<Long> nameMatches = name.isEmpty() ? null : indexedNameMatches(criteria)
+            .orElseGet(() -> sweetRepository.findIdsByNameContaining(name));
+        return index.facets(criteria, nameMatches);
+    }
+
+    // Fuzzy matches always come from memory; exact ones when the text index can narrow them
+    private Optional<List<Long>> indexedNameMatches(SweetSearchCriteria criteria) {
+        String name = searchTerm(criteria);
+        if (name.isEmpty()) {
+            return Optional.empty();
+        }
+        if (criteria.isFuzzy()) {
+            FuzzyMatcher matcher = catalog.fuzzyMatcher()
+                .orElseThrow(() -> new IllegalStateException("Fuzzy search is not enabled"));
+            return Optional.of(matcher.match(name));
+        }
+        return catalog.textIndex().filter(CatalogTextIndex::isReady).flatMap(index -> index.match(name));
+    }
+
+    private static String searchTerm(SweetSearchCriteria criteria) {
+        return criteria.getName() == null ? "" : criteria.getName().trim();
+    }
+
+    // Relevance needs the text index; without it results fall back to name order
+    private static Pageable withoutRelevance(Pageable pageable) {
+        Sort.Order relevance = pageable.getSort().getOrderFor(RELEVANCE);
+        if (relevance == null) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+            Sort.by(relevance.getDirection(), "name").and(Sort.by("id")));
+    }
+
+    /**
+     * Builds the page request for a search, rejecting sort keys that are not searchable and
+     * adding the id as a tie-breaker so pages do not overlap.
+     */
+    public static Pageable searchPage(int page, int size, String sort, String direction) {
+        if (!SEARCH_SORTS.contains(sort)) {
+            throw new IllegalArgumentException("Cannot sort by " + sort + "; use one of " + SEARCH_SORTS);
+        }
+        if (page < 0 || size < 1) {
+            throw new IllegalArgumentException("Page must be 0 or more and size at least 1");
+        }
+        Sort.Direction order = Sort.Direction.fromOptionalString(direction)
+            .orElseThrow(() -> new IllegalArgumentException("Direction must be asc or desc"));
+        return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), Sort.by(order, sort).and(Sort.by("id")));
+    }
+
+    @Transactional(readOnly = true)
+    public List<SweetCardDto> findSweetsByCategory(Long categoryId) {
+        if (!categoryExists(categoryId)) {
+            throw new CategoryNotFoundException("Category not found with id: " + categoryId);
+        }
+        return sweetRepository.findCardsByCategoryId(categoryId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SweetCardDto> findTopSellingSweets(int limit) {
+        return sweetRepository.findTopSellingCards(PageRequest.of(0, limit));
+    }
+
+    /**
+     * The {@code limit} lowest-priced sweets, cheapest first. With the catalog columns
+     * enabled they are picked in memory and only those rows are loaded.
+     */
+    @Transactional(readOnly = true)
+    public List<SweetCardDto> findCheapestSweets(int limit, boolean onlyAvailable) {
+        Optional<CatalogColumns> columns = catalog.columns().filter(CatalogColumns::isReady);
+        if (columns.isPresent()) {
+            return cards(columns.get().cheapest(limit, onlyAvailable));
+        }
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setOnlyAvailable(onlyAvailable);
+        return cards(sweetRepository.findIds(SweetSpecifications.filters(criteria),
+            PageRequest.of(0, limit, Sort.by("price", "id"))).getContent());
     }
 
+    /**
+     * The {@code limit} most recently added sweets, newest first.
+     */
     @Transactional(readOnly = true)
-    public List<Sweet> findTopSellingSweets(int limit) {
-        return sweetRepository.findTopSellingSweets(PageRequest.of(0, limit));
+    public List<SweetCardDto> findNewestSweets(int limit, boolean onlyAvailable) {
+        Optional<CatalogColumns> columns = catalog.columns().filter(CatalogColumns::isReady);
+        if (columns.isPresent()) {
+            return cards(columns.get().newest(limit, onlyAvailable));
+        }
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setOnlyAvailable(onlyAvailable);
+        return cards(sweetRepository.findIds(SweetSpecifications.filters(criteria),
+            PageRequest.of(0, limit, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.asc("id")))).getContent());
     }
 
+    /**
+     * Sweets priced within the inclusive range, optionally in one category, cheapest first.
+     */
     @Transactional(readOnly = true)
-    public List<Sweet> findLowStockSweets(int threshold) {
-        return sweetRepository.findLowStockSweets(threshold);
+    public List<SweetCardDto> findSweetsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Long categoryId,
+                                                     boolean onlyAvailable) {
+        Optional<CatalogColumns> columns = catalog.columns().filter(CatalogColumns::isReady);
+        if (columns.isPresent()) {
+            return cards(columns.get().priceRange(minPrice, maxPrice, categoryId, onlyAvailable));
+        }
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setMinPrice(minPrice);
+        criteria.setMaxPrice(maxPrice);
+        criteria.setCategoryId(categoryId);
+        criteria.setOnlyAvailable(onlyAvailable);
+        return cards(sweetRepository.findIds(SweetSpecifications.filters(criteria), Sort.by("price", "id")));
     }
 
     @Transactional(readOnly = true)
-    public List<Sweet> findOutOfStockSweets() {
-        return sweetRepository.findOutOfStockSweets();
+    public List<SweetCardDto> findLowStockSweets(int threshold) {
+        return sweetRepository.findLowStockCards(threshold);
+    }
+
+    /**
+     * Sweets at or below their own low-stock threshold, lowest stock first.
+     */
+    @Transactional(readOnly = true)
+    public List<SweetCardDto> findLowStockSweets() {
+        return alerted(stockAlerts.lowStockIds());
+    }
+
+    @Transactional(readOnly = true)
+    public List<SweetCardDto> findOutOfStockSweets() {
+        return alerted(stockAlerts.outOfStockIds());
+    }
+
+    public Sweet updateLowStockThreshold(Long id, Integer threshold) {
+        Sweet sweet = load(id);
+        sweet.setLowStockThreshold(threshold);
+        Sweet saved = sweetRepository.save(sweet);
+        stockAlerts.thresholdChanged(id, threshold);
+        eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, saved));
+        return saved;
+    }
+
+    private List<SweetCardDto> alerted(List<Long> sweetIds) {
+        if (sweetIds.isEmpty()) {
+            return List.of();
+        }
+        List<SweetCardDto> sweets = sweetRepository.findCardsByIdIn(sweetIds);
+        sweets.sort(Comparator.comparing(SweetCardDto::getQuantity));
+        return sweets;
+    }
+
+    // Loads the cards for these ids and returns them in the order given
+    private List<SweetCardDto> cards(List<Long> sweetIds) {
+        if (sweetIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SweetCardDto> byId = sweetRepository.findCardsByIdIn(sweetIds).stream()
+            .collect(Collectors.toMap(SweetCardDto::getId, card -> card));
+        return sweetIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private FlashSaleDto toFlashSaleDto(FlashSales.FlashSale sale) {
+        return new FlashSaleDto(sale.getSweetId(), sale.getAllocated(), sale.getRemaining(),
+            sale.getPendingWrites(), sale.getStartedAt(), sale.isActive());
+    }
+
+    // The stock this caller's own change left, even if a later one has landed since; with the
+    // ledger enabled the row only catches up on the next flush. The other fields are copied from
+    // the near-cache, still warm until the stock event drops it, so the purchase reads no row;
+    // with the near-cache off they cost one SELECT by id.
+    private Sweet withQuantity(Long sweetId, int quantity) {
+        Sweet current = findById(sweetId);
+        Sweet sweet = new Sweet(current.getName(), current.getDescription(), current.getPrice(), quantity,
+            current.getCategory());
+        sweet.setId(current.getId());
+        sweet.setImageUrl(current.getImageUrl());
+        sweet.setLowStockThreshold(current.getLowStockThreshold());
+        sweet.setCreatedAt(current.getCreatedAt());
+        sweet.setUpdatedAt(current.getUpdatedAt());
+        sweet.setVersion(current.getVersion());
+        return sweet;
+    }
+
+    // The sale holds part of the stock outside the row, which an edit or delete would lose track of
+    private void checkNoFlashSale(Long id) {
+        if (flashSales.find(id).isPresent()) {
+            throw new IllegalStateException("Cannot change a sweet while its flash sale is running; end the sale first");
+        }
+    }
+
+    // A managed copy for changing; findById may hand out a shared cached instance
+    private Sweet load(Long id) {
+        return sweetRepository.findById(id)
+            .orElseThrow(() -> new SweetNotFoundException("Sweet not found with id: " + id));
+    }
+
+    private Category category(Long categoryId) {
+        return catalog.nearCache().map(cache -> cache.category(categoryId)).orElseGet(() -> categoryRepository.findById(categoryId))
+            .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + categoryId));
+    }
+
+    private boolean categoryExists(Long categoryId) {
+        return catalog.nearCache().map(cache -> cache.category(categoryId).isPresent())
+            .orElseGet(() -> categoryRepository.existsById(categoryId));
+    }
+
+    private void publishStockChange(Long sweetId, int delta, StockChangedEvent.Cause cause, Long userId) {
+        eventPublisher.publishEvent(new StockChangedEvent(sweetId, delta, cause, userId));
+    }
+
+    private void invalidateLedger(Long sweetId) {
+        inventoryLedger.ifPresent(ledger -> ledger.beforeExternalWrite(sweetId));
+        stockReservations.refresh(sweetId);
     }
-}
\ No newline at end of file
+}
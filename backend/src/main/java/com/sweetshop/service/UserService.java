@@ -4,9 +4,12 @@ import com.sweetshop.entity.User;
 import com.sweetshop.entity.Role;
 import com.sweetshop.repository.UserRepository;
 import com.sweetshop.repository.RoleRepository;
+import com.sweetshop.dto.CursorPage;
 import com.sweetshop.dto.UserRegistrationDto;
 import com.sweetshop.exception.UserAlreadyExistsException;
 import com.sweetshop.exception.UserNotFoundException;
+import com.sweetshop.util.KeysetCursor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -67,6 +70,16 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<User> findUsers(String cursor, int limit) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable probe = KeysetCursor.probe(limit);
+        List<User> rows = after == null
+            ? userRepository.findFirstPage(probe)
+            : userRepository.findAfter(after.getSortKey(), after.getId(), probe);
+        return KeysetCursor.page(rows, probe, User::getEmail, User::getId);
+    }
+
     @Transactional(readOnly = true)
     public List<User> findUsersByRole(String roleName) {
         return userRepository.findByRolesName(roleName);
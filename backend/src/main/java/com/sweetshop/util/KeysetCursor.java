@@ -0,0 +1,75 @@
+package com.sweetshop.util;
+
+import com.sweetshop.dto.CursorPage;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Position in a listing ordered by {@code (sortKey, id)}, handed to clients as an opaque token.
+ *
+ * The next page is read with {@code WHERE sortKey > :key OR (sortKey = :key AND id > :id)},
+ * which seeks straight to the position in the index instead of skipping rows with OFFSET,
+ * so every page costs the same.
+ */
+public final class KeysetCursor {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 100;
+
+    private final String sortKey;
+    private final Long id;
+
+    private KeysetCursor(String sortKey, Long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    public String getSortKey() { return sortKey; }
+    public Long getId() { return id; }
+
+    public static String encode(String sortKey, Long id) {
+        byte[] raw = (id + ":" + sortKey).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodes a token from {@link #encode}; a null or blank token means the first page.
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new KeysetCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Asks for one row more than the page holds, which tells whether a next page exists.
+     */
+    public static Pageable probe(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return PageRequest.of(0, Math.min(limit, MAX_LIMIT) + 1);
+    }
+
+    public static <T> CursorPage<T> page(List<T> rows, Pageable probe,
+                                         Function<T, String> sortKey, Function<T, Long> id) {
+        int limit = probe.getPageSize() - 1;
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(limit - 1);
+        return new CursorPage<>(items, encode(sortKey.apply(last), id.apply(last)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.sweetshop.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedRegionFactoryTest {
+
+    @Test
+    void shouldBoundQueryRegionsAndPublishTheirMetrics() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EmbeddedRegionFactory factory = new EmbeddedRegionFactory(10, meterRegistry);
+        StorageAccess region = factory.createQueryResultsRegionStorageAccess("query.roles", null);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            region.putIntoCache("key-" + i, "value-" + i, null);
+        }
+        Object hit = region.getFromCache("key-0", null);
+        Object miss = region.getFromCache("absent", null);
+
+        // Then
+        assertEquals("value-0", hit);
+        assertNull(miss);
+        assertFalse(region.contains("absent"));
+        assertEquals(1.0, meterRegistry.get("sweetshop.hibernate.cache.requests")
+            .tags("region", "query.roles", "result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("sweetshop.hibernate.cache.requests")
+            .tags("region", "query.roles", "result", "miss").functionCounter().count());
+        assertTrue(meterRegistry.get("sweetshop.hibernate.cache.size").tag("region", "query.roles").gauge().value() <= 10);
+    }
+
+    @Test
+    void shouldNeverEvictUpdateTimestamps() {
+        // Given
+        EmbeddedRegionFactory factory = new EmbeddedRegionFactory(10, new SimpleMeterRegistry());
+        StorageAccess timestamps = factory.createTimestampsRegionStorageAccess("default-update-timestamps-region", null);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            timestamps.putIntoCache("table-" + i, (long) i, null);
+        }
+
+        // Then
+        for (int i = 0; i < 50; i++) {
+            assertEquals((long) i, timestamps.getFromCache("table-" + i, null));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sweetshop.cache;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class NearCacheTest {
+
+    @Test
+    void shouldIssueOneLoadForConcurrentMissesOnTheSameKey() throws Exception {
+        // Given
+        NearCache<Long, String> cache = new NearCache<>(100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Optional<String>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get(1L, id -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Optional.of("fudge");
+                })));
+            }
+            while (loads.get() + cache.coalescedCount() < 8) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<Optional<String>> result : results) {
+                assertEquals(Optional.of("fudge"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        assertEquals(1, loads.get());
+        assertEquals(7, cache.coalescedCount());
+        assertEquals(Optional.of("fudge"), cache.get(1L, id -> Optional.of("reloaded")));
+    }
+
+    @Test
+    void shouldNotStoreALoadThatRacedAnInvalidation() {
+        // Given
+        NearCache<Long, String> cache = new NearCache<>(100);
+
+        // When
+        Optional<String> stale = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return Optional.of("old price");
+        });
+
+        // Then
+        assertEquals(Optional.of("old price"), stale);
+        assertEquals(Optional.of("new price"), cache.get(1L, id -> Optional.of("new price")));
+        assertEquals(Optional.empty(), cache.get(2L, id -> Optional.empty()));
+        assertEquals(Optional.of("new price"), cache.get(1L, id -> Optional.of("unused")));
+    }
+}
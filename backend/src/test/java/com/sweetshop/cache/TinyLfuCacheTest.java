@@ -0,0 +1,61 @@
+package com.sweetshop.cache;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void shouldKeepPopularEntriesThroughABurstOfOneOffKeys() {
+        // Given
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot-" + i, "value");
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot-" + i);
+            }
+        }
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            cache.get("scan-" + i);
+            cache.put("scan-" + i, "value");
+        }
+
+        // Then
+        int kept = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot-" + i) != null) {
+                kept++;
+            }
+        }
+        assertEquals(50, kept);
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.evictionCount() >= 900);
+    }
+
+    @Test
+    void shouldBoundTotalWeightAndCountRequests() {
+        // Given
+        TinyLfuCache<String, List<Long>> cache = new TinyLfuCache<>(10, ids -> ids.size());
+
+        // When
+        cache.put("a", List.of(1L, 2L, 3L));
+        cache.put("b", List.of(4L, 5L, 6L, 7L));
+        cache.put("too-big", List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L));
+        cache.get("a");
+        cache.get("missing");
+        int removed = cache.invalidateIf((key, ids) -> ids.contains(5L));
+
+        // Then
+        assertEquals(1, removed);
+        assertEquals(List.of(1L, 2L, 3L), cache.get("a"));
+        assertNull(cache.get("too-big"));
+        assertEquals(3, cache.weight());
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+}
@@ -0,0 +1,141 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.dto.FacetCountDto;
+import com.sweetshop.dto.SearchFacetsDto;
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogBitmapIndexTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private CatalogBitmapIndex bitmapIndex;
+    private Category chocolate;
+    private Category candy;
+
+    @BeforeEach
+    void setUp() {
+        bitmapIndex = new CatalogBitmapIndex(sweetRepository, categoryRepository, Optional.empty(), "0,2,5", 3);
+        chocolate = category(1L, "Chocolate");
+        candy = category(2L, "Candy");
+        when(categoryRepository.findAll()).thenReturn(List.of(chocolate, candy));
+        when(sweetRepository.findAll()).thenReturn(List.of(
+            sweet(10L, "1.50", 4, chocolate),
+            sweet(11L, "3.00", 0, chocolate),
+            sweet(12L, "6.00", 2, chocolate),
+            sweet(13L, "2.00", 9, candy)));
+        bitmapIndex.resync();
+    }
+
+    @Test
+    void shouldCountEachFacetWithoutItsOwnFilter() {
+        // Given
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setCategoryId(1L);
+        criteria.setMaxPrice(new BigDecimal("4.00"));
+
+        // When
+        SearchFacetsDto facets = bitmapIndex.facets(criteria, null);
+
+        // Then
+        assertEquals(1, facets.getTotal());
+        assertEquals(List.of("Candy:1", "Chocolate:1"), counts(facets.getCategories()));
+        assertEquals(List.of("0-2:1", "2-5:0", "5+:1"), counts(facets.getPriceBuckets()));
+        assertEquals(1, facets.getAvailable());
+    }
+
+    @Test
+    void shouldFollowStockAndCatalogChanges() {
+        // Given
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+
+        // When
+        bitmapIndex.onStockChanged(new StockChangedEvent(11L, 5, StockChangedEvent.Cause.RESTOCK, null));
+        bitmapIndex.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, sweet(13L, "7.00", 9, chocolate)));
+        bitmapIndex.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED, sweet(10L, "1.50", 4, chocolate)));
+        SearchFacetsDto facets = bitmapIndex.facets(criteria, List.of(11L, 13L, 99L));
+
+        // Then
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of("Chocolate:2"), counts(facets.getCategories()));
+        assertEquals(List.of("0-2:0", "2-5:1", "5+:1"), counts(facets.getPriceBuckets()));
+    }
+
+    @Test
+    void shouldMatchIdsOnlyWhenTheSearchIsSelective() {
+        // Given
+        SweetSearchCriteria inStockChocolate = new SweetSearchCriteria();
+        inStockChocolate.setCategoryId(1L);
+        inStockChocolate.setOnlyAvailable(true);
+        SweetSearchCriteria pricedFrom = new SweetSearchCriteria();
+        pricedFrom.setMinPrice(new BigDecimal("1.00"));
+        pricedFrom.setOnlyAvailable(false);
+
+        // When
+        Optional<List<Long>> selective = bitmapIndex.match(inStockChocolate, null);
+        Optional<List<Long>> named = bitmapIndex.match(pricedFrom, List.of(13L, 12L));
+        Optional<List<Long>> broad = bitmapIndex.match(pricedFrom, null);
+
+        // Then
+        assertEquals(Optional.of(List.of(10L, 12L)), selective);
+        assertEquals(Optional.of(List.of(12L, 13L)), named);
+        assertEquals(Optional.empty(), broad);
+    }
+
+    @Test
+    void shouldKeepBitmapsExactAcrossContainerTypes() {
+        // Given
+        RoaringBitmap sparse = RoaringBitmap.of(4, 70_000, 140_000);
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int value = 0; value < 80_000; value += 2) {
+            dense.add(value);
+        }
+
+        // When
+        dense.remove(70_000);
+        RoaringBitmap both = sparse.and(dense);
+
+        // Then
+        assertEquals(40_000 - 1, dense.cardinality());
+        assertEquals(1, both.cardinality());
+        assertTrue(both.contains(4));
+        assertEquals(1, sparse.andCardinality(dense));
+        assertEquals(40_000 + 1, sparse.or(dense).cardinality());
+    }
+
+    private List<String> counts(List<FacetCountDto> facets) {
+        return facets.stream().map(f -> f.getLabel() + ":" + f.getCount()).collect(Collectors.toList());
+    }
+
+    private Category category(Long id, String name) {
+        Category category = new Category(name, name);
+        category.setId(id);
+        return category;
+    }
+
+    private Sweet sweet(Long id, String price, int quantity, Category category) {
+        Sweet sweet = new Sweet("Sweet " + id, "", new BigDecimal(price), quantity, category);
+        sweet.setId(id);
+        return sweet;
+    }
+}
@@ -0,0 +1,55 @@
+package com.sweetshop.catalog;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Set;
+
+class CatalogChangeLogTest {
+
+    @Test
+    void shouldReturnTheLastChangePerSweetSinceAVersion() {
+        // Given
+        CatalogChangeLog changeLog = new CatalogChangeLog(100);
+        changeLog.append(1L, false);
+        long seen = changeLog.currentVersion();
+
+        // When
+        changeLog.append(2L, false);
+        changeLog.append(3L, false);
+        changeLog.append(2L, true);
+        changeLog.append(1L, false);
+        CatalogChangeLog.Delta delta = changeLog.since(seen);
+
+        // Then
+        assertTrue(delta.isComplete());
+        assertEquals(Set.of(3L, 1L), delta.getUpserted());
+        assertEquals(Set.of(2L), delta.getDeleted());
+        assertEquals(changeLog.currentVersion(), delta.getVersion());
+        assertTrue(changeLog.since(delta.getVersion()).getUpserted().isEmpty());
+        assertFalse(changeLog.since(0).isComplete());
+    }
+
+    @Test
+    void shouldTellWhenADeleteHasLeftTheRing() {
+        // Given
+        CatalogChangeLog changeLog = new CatalogChangeLog(3);
+        long beforeAll = changeLog.currentVersion();
+        changeLog.append(1L, false);
+        long afterUpsert = changeLog.currentVersion();
+        changeLog.append(2L, true);
+        long afterDelete = changeLog.currentVersion();
+
+        // When
+        changeLog.append(3L, false);
+        changeLog.append(4L, false);
+        changeLog.append(5L, false);
+
+        // Then
+        assertFalse(changeLog.since(afterUpsert).isComplete());
+        assertFalse(changeLog.deletesKnownSince(beforeAll));
+        assertFalse(changeLog.deletesKnownSince(afterUpsert));
+        assertTrue(changeLog.deletesKnownSince(afterDelete));
+        assertTrue(changeLog.since(afterDelete).isComplete());
+        assertEquals(Set.of(3L, 4L, 5L), changeLog.since(afterDelete).getUpserted());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogColumnsTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    private CatalogColumns catalogColumns;
+    private Category chocolate;
+    private Category candy;
+
+    @BeforeEach
+    void setUp() {
+        catalogColumns = new CatalogColumns(sweetRepository, Optional.empty());
+        chocolate = category(1L);
+        candy = category(2L);
+        when(sweetRepository.findAll()).thenReturn(List.of(
+            sweet(13L, "2.00", 9, candy, 3),
+            sweet(10L, "1.50", 4, chocolate, 1),
+            sweet(11L, "1.50", 0, chocolate, 4),
+            sweet(12L, "6.00", 2, chocolate, 2)));
+        catalogColumns.resync();
+    }
+
+    @Test
+    void shouldRankAndFilterFromTheColumns() {
+        // When
+        List<Long> cheapest = catalogColumns.cheapest(3, false);
+        List<Long> cheapestInStock = catalogColumns.cheapest(3, true);
+        List<Long> newest = catalogColumns.newest(2, false);
+        List<Long> chocolateUpTo = catalogColumns.priceRange(new BigDecimal("1.50"), new BigDecimal("6.00"), 1L, true);
+
+        // Then
+        assertEquals(List.of(10L, 11L, 13L), cheapest);
+        assertEquals(List.of(10L, 13L, 12L), cheapestInStock);
+        assertEquals(List.of(11L, 13L), newest);
+        assertEquals(List.of(10L, 12L), chocolateUpTo);
+        assertEquals(List.of(), catalogColumns.priceRange(null, null, 99L, false));
+    }
+
+    @Test
+    void shouldPublishPatchedSnapshotsOnWrites() {
+        // When
+        catalogColumns.onStockChanged(new StockChangedEvent(11L, 5, StockChangedEvent.Cause.RESTOCK, null));
+        catalogColumns.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.CREATED,
+            sweet(14L, "0.50", 1, category(3L), 9)));
+        catalogColumns.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED,
+            sweet(12L, "1.00", 2, chocolate, 2)));
+        catalogColumns.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED,
+            sweet(10L, "1.50", 4, chocolate, 1)));
+
+        // Then
+        assertEquals(List.of(14L, 12L, 11L, 13L), catalogColumns.cheapest(10, true));
+        assertEquals(List.of(14L), catalogColumns.priceRange(null, null, 3L, false));
+        assertEquals(List.of(14L, 11L), catalogColumns.newest(2, false));
+    }
+
+    private Category category(Long id) {
+        Category category = new Category("Category " + id, "");
+        category.setId(id);
+        return category;
+    }
+
+    private Sweet sweet(Long id, String price, int quantity, Category category, int day) {
+        Sweet sweet = new Sweet("Sweet " + id, "", new BigDecimal(price), quantity, category);
+        sweet.setId(id);
+        sweet.setCreatedAt(LocalDateTime.of(2024, 1, day, 12, 0));
+        return sweet;
+    }
+}
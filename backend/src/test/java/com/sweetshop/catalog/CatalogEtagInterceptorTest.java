@@ -0,0 +1,117 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.inventory.StockFlushedEvent;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogEtagInterceptorTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    private CatalogVersions versions;
+    private CatalogEtagInterceptor interceptor;
+    private Sweet fudge;
+
+    @BeforeEach
+    void setUp() {
+        fudge = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, category(1L));
+        fudge.setId(5L);
+        when(sweetRepository.findAll()).thenReturn(List.of(fudge));
+        versions = new CatalogVersions(sweetRepository);
+        versions.onReady();
+        interceptor = new CatalogEtagInterceptor(versions);
+    }
+
+    @Test
+    void shouldAnswerAnUnchangedCatalogWithNotModified() {
+        // Given
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(get("/api/sweets", null), first, null));
+        String etag = first.getHeader("ETag");
+
+        // When
+        MockHttpServletResponse unchanged = new MockHttpServletResponse();
+        boolean proceedUnchanged = interceptor.preHandle(get("/api/sweets", etag), unchanged, null);
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, fudge));
+        MockHttpServletResponse changed = new MockHttpServletResponse();
+        boolean proceedChanged = interceptor.preHandle(get("/api/sweets", etag), changed, null);
+
+        // Then
+        assertNotNull(etag);
+        assertFalse(proceedUnchanged);
+        assertEquals(304, unchanged.getStatus());
+        assertTrue(proceedChanged);
+        assertEquals(200, changed.getStatus());
+        assertNotEquals(etag, changed.getHeader("ETag"));
+        assertEquals("no-cache", changed.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void shouldVersionEachCategoryIndependently() {
+        // Given
+        String ofFirst = "/api/sweets/category/1";
+        String ofSecond = "/api/categories/2";
+        String firstBefore = versions.etag(ofFirst);
+        String secondBefore = versions.etag(ofSecond);
+
+        // When
+        Sweet moved = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, category(2L));
+        moved.setId(5L);
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, moved));
+        String firstAfterMove = versions.etag(ofFirst);
+        String secondAfterMove = versions.etag(ofSecond);
+        versions.onStockChanged(new StockChangedEvent(5L, -1, StockChangedEvent.Cause.PURCHASE, null));
+
+        // Then
+        assertNotEquals(firstBefore, firstAfterMove);
+        assertNotEquals(secondBefore, secondAfterMove);
+        assertEquals(firstAfterMove, versions.etag(ofFirst));
+        assertEquals(versions.etag("/api/categories/with-sweets"), versions.etag("/api/sweets"));
+        assertNotEquals(secondAfterMove, versions.etag(ofSecond));
+    }
+
+    @Test
+    void shouldMoveTheVersionAgainWhenTheLedgerFlushesASale() {
+        // Given: a ledger sale, tagged before the row holds it
+        versions.onStockChanged(new StockChangedEvent(5L, -1, StockChangedEvent.Cause.PURCHASE, null));
+        String beforeFlush = versions.etag("/api/sweets/category/1");
+        String catalogBeforeFlush = versions.etag("/api/sweets");
+
+        // When
+        versions.onStockFlushed(new StockFlushedEvent(Set.of(5L)));
+
+        // Then a client holding the pre-flush tag reads the flushed row
+        assertNotEquals(beforeFlush, versions.etag("/api/sweets/category/1"));
+        assertNotEquals(catalogBeforeFlush, versions.etag("/api/sweets"));
+    }
+
+    private static Category category(Long id) {
+        Category category = new Category();
+        category.setId(id);
+        return category;
+    }
+
+    private static MockHttpServletRequest get(String path, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,60 @@
+package com.sweetshop.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.event.TransactionalEventListener;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+class CatalogListenerOrderTest {
+
+    private static final List<Class<?>> INDEXES = List.of(
+        CatalogBitmapIndex.class, CatalogTextIndex.class, CatalogColumns.class, CatalogNearCache.class,
+        CatalogSuggester.class, FuzzyMatcher.class, CatalogChangeLog.class);
+
+    @Test
+    void shouldApplyChangesToEveryIndexBeforeMovingTheCatalogVersion() {
+        // Given
+        int versions = orders(CatalogVersions.class).stream().mapToInt(Integer::intValue).min().orElseThrow();
+
+        // When / Then
+        for (Class<?> index : INDEXES) {
+            for (int order : orders(index)) {
+                assertTrue(order < versions, index.getSimpleName() + " listens after the version bump");
+            }
+        }
+    }
+
+    @Test
+    void shouldBumpTheSearchGenerationBetweenTheIndexesAndTheCatalogVersion() {
+        // Given
+        int latestIndex = INDEXES.stream().flatMap(index -> orders(index).stream())
+            .mapToInt(Integer::intValue).max().orElseThrow();
+        int versions = orders(CatalogVersions.class).stream().mapToInt(Integer::intValue).min().orElseThrow();
+
+        // When / Then
+        for (int order : orders(SearchResultCache.class)) {
+            assertTrue(order > latestIndex, "SearchResultCache listens before an index");
+            assertTrue(order < versions, "SearchResultCache listens after the version bump");
+        }
+    }
+
+    // The order of every after-commit listener on the class, and of the ordered immediate ones
+    // for events published after a commit; unordered after-commit listeners fail the test
+    private static List<Integer> orders(Class<?> type) {
+        List<Integer> orders = new ArrayList<>();
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(TransactionalEventListener.class)
+                    || method.isAnnotationPresent(EventListener.class) && method.isAnnotationPresent(Order.class)) {
+                Order order = method.getAnnotation(Order.class);
+                assertNotNull(order, type.getSimpleName() + "." + method.getName() + " has no @Order");
+                orders.add(order.value());
+            }
+        }
+        assertFalse(orders.isEmpty(), type.getSimpleName() + " has no listeners");
+        return orders;
+    }
+}
@@ -0,0 +1,223 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogResponseCacheTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    private CatalogVersions versions;
+    private CatalogResponseCache responseCache;
+    private Sweet fudge;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setId(1L);
+        fudge = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, category);
+        fudge.setId(5L);
+        when(sweetRepository.findAll()).thenReturn(List.of(fudge));
+        versions = new CatalogVersions(sweetRepository);
+        versions.onReady();
+        responseCache = new CatalogResponseCache(versions, new SimpleMeterRegistry(), 1024);
+    }
+
+    @Test
+    void shouldRenderEachCatalogVersionOnce() throws Exception {
+        // Given
+        AtomicInteger renders = new AtomicInteger();
+        FilterChain controller = (request, response) -> {
+            int render = renders.incrementAndGet();
+            response.setContentType("application/json");
+            response.getOutputStream().write(("{\"render\":" + render + "}").getBytes(StandardCharsets.UTF_8));
+        };
+
+        // When
+        MockHttpServletResponse first = get(controller, null);
+        MockHttpServletResponse second = get(controller, null);
+        MockHttpServletResponse gzipped = get(controller, "gzip, deflate");
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, fudge));
+        MockHttpServletResponse afterChange = get(controller, null);
+
+        // Then
+        assertEquals("{\"render\":1}", first.getContentAsString());
+        assertEquals("{\"render\":1}", second.getContentAsString());
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertEquals("{\"render\":1}", gunzip(gzipped.getContentAsByteArray()));
+        assertEquals("{\"render\":2}", afterChange.getContentAsString());
+        assertEquals(2, renders.get());
+        assertNotNull(second.getHeader("ETag"));
+    }
+
+    @Test
+    void shouldNotKeepFailedResponses() throws Exception {
+        // Given
+        AtomicInteger renders = new AtomicInteger();
+        FilterChain controller = (request, response) -> {
+            renders.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(404);
+            response.setContentType("application/json");
+            response.getOutputStream().write("{\"success\":false}".getBytes(StandardCharsets.UTF_8));
+        };
+
+        // When
+        MockHttpServletResponse first = get(controller, null);
+        MockHttpServletResponse second = get(controller, null);
+
+        // Then
+        assertEquals(404, first.getStatus());
+        assertEquals("{\"success\":false}", second.getContentAsString());
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void shouldNotServeAnAdminOnlyPageCachedForAnAdminToOtherCallers() throws Exception {
+        // Given
+        FilterChain adminOnly = (request, response) -> {
+            if (!((HttpServletRequest) request).isUserInRole("ADMIN")) {
+                ((HttpServletResponse) response).setStatus(403);
+                return;
+            }
+            response.setContentType("application/json");
+            response.getOutputStream().write("{\"data\":[5]}".getBytes(StandardCharsets.UTF_8));
+        };
+        MockHttpServletRequest asAdmin = new MockHttpServletRequest("GET", "/api/sweets/low-stock");
+        asAdmin.addUserRole("ADMIN");
+        MockHttpServletResponse adminResponse = new MockHttpServletResponse();
+        responseCache.doFilter(asAdmin, adminResponse, adminOnly);
+
+        // When
+        MockHttpServletResponse anonymous = new MockHttpServletResponse();
+        responseCache.doFilter(new MockHttpServletRequest("GET", "/api/sweets/low-stock"), anonymous, adminOnly);
+
+        // Then
+        assertEquals(200, adminResponse.getStatus());
+        assertEquals(403, anonymous.getStatus());
+        assertEquals("", anonymous.getContentAsString());
+    }
+
+    @Test
+    void shouldNotMakeWaitingRequestsWaitForTheRenderingClientsWrite() throws Exception {
+        // Given: a rendering that waits to be released, for a client that reads slowly
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch slowClient = new CountDownLatch(1);
+        AtomicInteger renders = new AtomicInteger();
+        FilterChain controller = (request, response) -> {
+            renders.incrementAndGet();
+            rendering.countDown();
+            await(release);
+            response.setContentType("application/json");
+            response.getOutputStream().write("{\"data\":[5]}".getBytes(StandardCharsets.UTF_8));
+        };
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                responseCache.doFilter(new MockHttpServletRequest("GET", "/api/sweets/42"),
+                    new SlowClient(new MockHttpServletResponse(), slowClient), controller);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(rendering.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<MockHttpServletResponse> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return get(controller, null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        release.countDown();
+
+        // Then the waiting request is answered while the first client is still being written to
+        assertEquals("{\"data\":[5]}", waiting.get(5, TimeUnit.SECONDS).getContentAsString());
+        assertFalse(first.isDone());
+        slowClient.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, renders.get());
+    }
+
+    private MockHttpServletResponse get(FilterChain controller, String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets/42");
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        responseCache.doFilter(request, response, controller);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // A response whose first byte is written only once the latch opens
+    private static final class SlowClient extends HttpServletResponseWrapper {
+        private final CountDownLatch latch;
+
+        SlowClient(HttpServletResponse response, CountDownLatch latch) {
+            super(response);
+            this.latch = latch;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    await(latch);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+    }
+
+    private static String gunzip(byte[] bytes) throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
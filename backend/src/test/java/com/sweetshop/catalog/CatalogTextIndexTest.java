@@ -0,0 +1,68 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogTextIndexTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    private CatalogTextIndex textIndex;
+
+    @BeforeEach
+    void setUp() {
+        textIndex = new CatalogTextIndex(sweetRepository, 2);
+        when(sweetRepository.findAll()).thenReturn(List.of(
+            sweet(1L, "Milk Chocolate Bar", "Creamy"),
+            sweet(2L, "Chocolate Fudge", "Rich and dense"),
+            sweet(3L, "Toffee", "Coated in dark chocolate"),
+            sweet(4L, "Hot Chocolate", "Drink")));
+        textIndex.rebuild();
+    }
+
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        // When
+        List<Long> hits = textIndex.search("Chocolate", 10);
+
+        // Then
+        assertEquals(List.of(2L, 4L, 1L, 3L), hits);
+        assertEquals(List.of(2L, 4L), textIndex.search("chocolate", 2));
+        assertEquals(Optional.empty(), textIndex.match("chocolate"));
+        assertEquals(Optional.of(List.of(3L)), textIndex.match("dark"));
+    }
+
+    @Test
+    void shouldReflectUpdatesAndDeletesIncrementally() {
+        // When
+        textIndex.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED,
+            sweet(3L, "Treacle Toffee", "Plain")));
+        textIndex.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.DELETED,
+            sweet(2L, "Chocolate Fudge", "Rich and dense")));
+
+        // Then
+        assertEquals(List.of(4L, 1L), textIndex.search("chocolate", 10));
+        assertEquals(List.of(3L), textIndex.search("treacle", 10));
+        assertEquals(List.of(3L, 4L), textIndex.search("t", 2));
+        assertEquals(3, textIndex.size());
+    }
+
+    private Sweet sweet(Long id, String name, String description) {
+        Sweet sweet = new Sweet(name, description, new BigDecimal("1.00"), 5, new Category());
+        sweet.setId(id);
+        return sweet;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class FuzzyMatcherTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    private FuzzyMatcher fuzzyMatcher;
+
+    @BeforeEach
+    void setUp() {
+        fuzzyMatcher = new FuzzyMatcher(sweetRepository, 0.35, 100);
+        Category indian = new Category("Indian Sweets", "Mithai");
+        Category chocolate = new Category("Chocolate", "Bars");
+        when(sweetRepository.findAll()).thenReturn(List.of(
+            sweet(1L, "Gulab Jamun", indian),
+            sweet(2L, "Rasgulla", indian),
+            sweet(3L, "Dark Chocolate Bar", chocolate),
+            sweet(4L, "Jalebi", indian)));
+        fuzzyMatcher.rebuild();
+    }
+
+    @Test
+    void shouldMatchMisspelledAndRunTogetherNames() {
+        // When & Then
+        assertEquals(1L, fuzzyMatcher.match("gulabjamun").get(0));
+        assertEquals(1L, fuzzyMatcher.match("gulab jamoon").get(0));
+        assertEquals(2L, fuzzyMatcher.match("rasgula").get(0));
+        assertEquals(3L, fuzzyMatcher.match("chocolat").get(0));
+    }
+
+    @Test
+    void shouldRankBySimilarityAndDropUnrelatedSweets() {
+        // When
+        List<Long> hits = fuzzyMatcher.match("jalebee");
+
+        // Then
+        assertEquals(List.of(4L), hits);
+        assertTrue(fuzzyMatcher.match("xyz").isEmpty());
+        assertTrue(fuzzyMatcher.match("indian").containsAll(List.of(1L, 2L, 4L)));
+    }
+
+    private Sweet sweet(Long id, String name, Category category) {
+        Sweet sweet = new Sweet(name, "", new BigDecimal("1.00"), 5, category);
+        sweet.setId(id);
+        return sweet;
+    }
+}
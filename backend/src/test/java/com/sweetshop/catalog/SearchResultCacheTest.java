@@ -0,0 +1,128 @@
+package com.sweetshop.catalog;
+
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockChangedEvent;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResultCacheTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private InventoryLedger inventoryLedger;
+
+    private SearchResultCache searchCache;
+    private Category chocolate;
+    private Category candy;
+    private Pageable byName = PageRequest.of(0, 20, Sort.by("name", "id"));
+
+    @BeforeEach
+    void setUp() {
+        searchCache = new SearchResultCache(sweetRepository, Optional.empty(), new SimpleMeterRegistry(), 1000);
+        chocolate = category(1L);
+        candy = category(2L);
+        when(sweetRepository.findAll()).thenReturn(List.of(
+            sweet(10L, "1.50", 4, chocolate),
+            sweet(11L, "8.00", 1, chocolate),
+            sweet(12L, "2.00", 9, candy)));
+        searchCache.resync();
+    }
+
+    @Test
+    void shouldShareOneEntryBetweenEquivalentSearches() {
+        // Given
+        SweetSearchCriteria criteria = criteria("  Fudge ", 1L, "5.0");
+        searchCache.put(criteria, byName, new PageImpl<>(List.of(10L), byName, 1),
+            searchCache.generation());
+
+        // When
+        SearchResultCache.CachedPage cached = searchCache.get(criteria("fudge", 1L, "5.00"), byName);
+
+        // Then
+        assertEquals(List.of(10L), cached.getIds());
+        assertEquals(1, cached.getTotal());
+        assertNull(searchCache.get(criteria("fudge", 1L, "5.00"), PageRequest.of(1, 20, Sort.by("name", "id"))));
+    }
+
+    @Test
+    void shouldDropOnlyEntriesAWriteCouldChange() {
+        // Given
+        SweetSearchCriteria cheapChocolate = criteria(null, 1L, "5.00");
+        SweetSearchCriteria candyOnly = criteria(null, 2L, null);
+        long generation = searchCache.generation();
+        searchCache.put(cheapChocolate, byName, new PageImpl<>(List.of(10L), byName, 1), generation);
+        searchCache.put(candyOnly, byName, new PageImpl<>(List.of(12L), byName, 1), generation);
+
+        // When
+        searchCache.onStockChanged(new StockChangedEvent(12L, -2, StockChangedEvent.Cause.PURCHASE, 7L));
+        searchCache.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, sweet(11L, "9.00", 1, chocolate)));
+        boolean untouched = searchCache.get(cheapChocolate, byName) != null && searchCache.get(candyOnly, byName) != null;
+        searchCache.onStockChanged(new StockChangedEvent(12L, -7, StockChangedEvent.Cause.PURCHASE, 7L));
+        searchCache.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, sweet(11L, "4.00", 1, chocolate)));
+
+        // Then
+        assertTrue(untouched);
+        assertNull(searchCache.get(candyOnly, byName));
+        assertNull(searchCache.get(cheapChocolate, byName));
+    }
+
+    @Test
+    void shouldTrackStockFromTheLedgerWhenACatalogChangeArrives() {
+        // Given
+        when(inventoryLedger.available(anyLong())).thenAnswer(call -> call.getArgument(0).equals(11L) ? 0 : 5);
+        SearchResultCache ledgerCache = new SearchResultCache(sweetRepository, Optional.of(inventoryLedger),
+            new SimpleMeterRegistry(), 1000);
+        ledgerCache.resync();
+        // The row still says 1; the ledger has sold it out
+        ledgerCache.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Type.UPDATED, sweet(11L, "7.00", 1, chocolate)));
+        SweetSearchCriteria inStockChocolate = criteria(null, 1L, null);
+        inStockChocolate.setOnlyAvailable(true);
+        ledgerCache.put(inStockChocolate, byName, new PageImpl<>(List.of(10L), byName, 1), ledgerCache.generation());
+
+        // When
+        ledgerCache.onStockChanged(new StockChangedEvent(11L, 1, StockChangedEvent.Cause.RESTOCK, 1L));
+
+        // Then
+        assertNull(ledgerCache.get(inStockChocolate, byName));
+    }
+
+    private SweetSearchCriteria criteria(String name, Long categoryId, String maxPrice) {
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setName(name);
+        criteria.setCategoryId(categoryId);
+        criteria.setMaxPrice(maxPrice == null ? null : new BigDecimal(maxPrice));
+        return criteria;
+    }
+
+    private Category category(Long id) {
+        Category category = new Category("Category " + id, "");
+        category.setId(id);
+        return category;
+    }
+
+    private Sweet sweet(Long id, String price, int quantity, Category category) {
+        Sweet sweet = new Sweet("Sweet " + id, "", new BigDecimal(price), quantity, category);
+        sweet.setId(id);
+        return sweet;
+    }
+}
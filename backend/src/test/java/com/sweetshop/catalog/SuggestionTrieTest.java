@@ -0,0 +1,35 @@
+package com.sweetshop.catalog;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class SuggestionTrieTest {
+
+    private final List<String> names = List.of("Chocolate Fudge", "Chocolate Truffle", "Cherry Drops", "Fudge Brownie");
+
+    @Test
+    void shouldRankByPopularityAndMatchAnyWordStart() {
+        // Given
+        SuggestionTrie trie = SuggestionTrie.build(names, 10, 5, 40, 10, 20);
+
+        // When & Then
+        assertArrayEquals(new int[] {1, 2, 0}, trie.lookup("Ch", 10));
+        assertArrayEquals(new int[] {1, 0}, trie.lookup("choc", 10));
+        assertArrayEquals(new int[] {3, 0}, trie.lookup("fud", 10));
+        assertArrayEquals(new int[] {1}, trie.lookup("c", 1));
+        assertArrayEquals(new int[0], trie.lookup("chocolatey", 10));
+        assertArrayEquals(new int[0], trie.lookup("udge", 10));
+    }
+
+    @Test
+    void shouldKeepOnlyTopKPerNode() {
+        // Given
+        SuggestionTrie trie = SuggestionTrie.build(names, 2, 5, 40, 10, 20);
+
+        // When & Then
+        assertArrayEquals(new int[] {1, 3}, trie.lookup("", 10));
+        assertArrayEquals(new int[] {1, 2}, trie.lookup("ch", 10));
+        assertTrue(trie.nodeCount() < names.stream().mapToInt(String::length).sum());
+    }
+}
@@ -20,7 +20,10 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(AuthController.class)
+@WebMvcTest(value = AuthController.class, properties = {
+    "app.catalog.etag.enabled=false",
+    "app.catalog.response-cache.enabled=false"
+})
 @ActiveProfiles("test")
 class AuthControllerTest {
 
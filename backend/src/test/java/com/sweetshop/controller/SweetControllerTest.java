@@ -1,8 +1,13 @@
 package com.sweetshop.controller;
 
+import com.sweetshop.service.IdempotencyService;
+import com.sweetshop.service.RestockService;
 import com.sweetshop.service.SweetService;
 import com.sweetshop.entity.Sweet;
 import com.sweetshop.entity.Category;
+import com.sweetshop.catalog.CatalogSuggester;
+import com.sweetshop.dto.CursorPage;
+import com.sweetshop.dto.SweetCardDto;
 import com.sweetshop.dto.SweetDto;
 import com.sweetshop.dto.PurchaseRequest;
 import com.sweetshop.exception.SweetNotFoundException;
@@ -20,11 +25,15 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(SweetController.class)
+@WebMvcTest(value = SweetController.class, properties = {
+    "app.catalog.etag.enabled=false",
+    "app.catalog.response-cache.enabled=false"
+})
 @ActiveProfiles("test")
 class SweetControllerTest {
 
@@ -35,6 +44,15 @@ class SweetControllerTest {
 	@MockBean
     private SweetService sweetService;
 
+    @MockBean
+    private RestockService restockService;
+
+    @MockBean
+    private CatalogSuggester catalogSuggester;
+
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,15 +71,18 @@ class SweetControllerTest {
     @Test
     void shouldGetAllSweets() throws Exception {
         // Given
-        List<Sweet> sweets = Arrays.asList(testSweet);
-        when(sweetService.findAvailableSweets()).thenReturn(sweets);
+        List<SweetCardDto> sweets = Arrays.asList(new SweetCardDto(1L, "Dark Chocolate", "Premium dark chocolate",
+            new BigDecimal("8.99"), 10, 1L, "Chocolate", null));
+        when(sweetService.findAvailableSweets(null, 50)).thenReturn(new CursorPage<>(sweets, null));
 
         // When & Then
         mockMvc.perform(get("/api/sweets"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.data").isArray())
-                .andExpect(jsonPath("$.data[0].name").value("Dark Chocolate"));
+                .andExpect(jsonPath("$.data.items").isArray())
+                .andExpect(jsonPath("$.data.items[0].name").value("Dark Chocolate"))
+                .andExpect(jsonPath("$.data.items[0].categoryName").value("Chocolate"))
+                .andExpect(jsonPath("$.data.hasMore").value(false));
     }
 
     @Test
@@ -102,7 +123,7 @@ class SweetControllerTest {
         Sweet updatedSweet = new Sweet("Dark Chocolate", "Premium dark chocolate", new BigDecimal("8.99"), 8, testCategory);
         updatedSweet.setId(1L);
         
-        when(sweetService.purchaseSweet(1L, 2)).thenReturn(updatedSweet);
+        when(sweetService.purchaseSweet(any(), eq(1L), eq(2))).thenReturn(updatedSweet);
 
         // When & Then
         mockMvc.perform(post("/api/sweets/1/purchase")
@@ -0,0 +1,164 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.FlashSaleAllocation;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class FlashSalesTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private FlashSales flashSales;
+
+    @BeforeEach
+    void setUp() {
+        flashSales = new FlashSales(sweetRepository, jdbcTemplate, transactionManager, Optional.empty(),
+            stockReservations, eventPublisher, new SimpleMeterRegistry(), 100, 10, 2, 5);
+
+        Sweet sweet = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, new Category());
+        sweet.setId(5L);
+        when(sweetRepository.findById(5L)).thenReturn(Optional.of(sweet));
+        when(jdbcTemplate.update(anyString(), eq(3), any(), eq(5L), eq(3))).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        flashSales.shutdown();
+    }
+
+    @Test
+    void shouldTurnAwaySoldOutPurchasesWithoutTouchingTheDatabase() {
+        // Given
+        flashSales.start(5L, 3);
+
+        // When
+        Optional<Sweet> first = flashSales.purchase(7L, 5L, 2);
+
+        // Then
+        assertTrue(first.isPresent());
+        assertEquals(1, first.get().getQuantity());
+        assertThrows(InsufficientStockException.class, () -> flashSales.purchase(8L, 5L, 2));
+        verify(sweetRepository, times(1)).findById(5L);
+        // The sweet's row is only touched to take the sale's stock
+        verify(jdbcTemplate, times(1)).update(startsWith("UPDATE sweets"), any(Object[].class));
+    }
+
+    @Test
+    void shouldWriteOrdersAndReturnUnsoldStockWhenSaleEnds() {
+        // Given
+        flashSales.start(5L, 3);
+        flashSales.purchase(7L, 5L, 1);
+
+        // When
+        FlashSales.FlashSale sale = flashSales.end(5L);
+
+        // Then
+        assertFalse(sale.isActive());
+        assertEquals(0, sale.getPendingWrites());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(startsWith("UPDATE flash_sale_allocations"), eq(1), eq(5L));
+        verify(jdbcTemplate).update(anyString(), eq(2), any(), eq(5L));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM flash_sale_allocations"), eq(5L));
+        assertEquals(Optional.empty(), flashSales.purchase(7L, 5L, 1));
+    }
+
+    @Test
+    void shouldDeadLetterAnOrderThatCannotBeWrittenAndStillEndTheSale() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("no such user"));
+        flashSales.start(5L, 3);
+        flashSales.purchase(7L, 5L, 1);
+
+        // When
+        FlashSales.FlashSale sale = flashSales.end(5L);
+
+        // Then
+        assertEquals(0, sale.getPendingWrites());
+        // Two attempts at the batch, then one for the order on its own
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(startsWith("INSERT INTO flash_sale_dead_letters"), eq(7L), eq(5L), eq(1),
+            eq(new BigDecimal("2.50")), any(), eq("no such user"));
+        verify(jdbcTemplate).update(startsWith("UPDATE flash_sale_allocations"), eq(1), eq(5L));
+        verify(jdbcTemplate).update(anyString(), eq(2), any(), eq(5L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReturnTheUnwrittenStockOfASaleCutOffByARestart() {
+        // Given
+        flashSales.start(5L, 3);
+        when(jdbcTemplate.query(startsWith("SELECT"), any(RowMapper.class))).thenReturn(List.of(
+            new FlashSaleAllocation(5L, 3, 0, LocalDateTime.now()),
+            new FlashSaleAllocation(6L, 10, 4, LocalDateTime.now())));
+
+        // When
+        flashSales.reconcile();
+
+        // Then
+        verify(jdbcTemplate).update(startsWith("UPDATE sweets SET quantity = quantity + ?"), eq(6), any(), eq(6L));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM flash_sale_allocations"), eq(6L));
+        // The sale running in this process is left alone
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM flash_sale_allocations"), eq(5L));
+        assertTrue(flashSales.find(5L).isPresent());
+    }
+
+    @Test
+    void shouldKeepWritingAfterTheDatabaseRefusesTransactions() {
+        // Given: the first order's batch attempts, lone retry and dead letter all find no connection
+        flashSales.start(5L, 3);
+        clearInvocations(transactionManager);
+        CannotCreateTransactionException down = new CannotCreateTransactionException("Could not open JDBC connection");
+        when(transactionManager.getTransaction(any())).thenThrow(down, down, down, down).thenReturn(null);
+        flashSales.purchase(7L, 5L, 1);
+        verify(transactionManager, timeout(5000).times(4)).getTransaction(any());
+
+        // When
+        flashSales.purchase(8L, 5L, 1);
+        FlashSales.FlashSale sale = flashSales.end(5L);
+
+        // Then the writer survived and wrote the later order
+        assertEquals(0, sale.getPendingWrites());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(startsWith("UPDATE flash_sale_allocations"), eq(1), eq(5L));
+    }
+}
@@ -0,0 +1,59 @@
+package com.sweetshop.inventory;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void shouldExpireTasksOnlyOnceTheirDeadlinePasses() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 1_050); // same slot as "soon", one lap further
+        List<String> expired = new ArrayList<>();
+
+        // When & Then
+        wheel.advance(200, expired::add);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(300, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(1_100, expired::add);
+        assertEquals(List.of("soon", "later"), expired);
+    }
+
+    @Test
+    void shouldSkipCancelledTasks() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        HashedTimerWheel.Timeout<String> timeout = wheel.schedule("released", 150);
+        List<String> expired = new ArrayList<>();
+
+        // When
+        timeout.cancel();
+        int count = wheel.advance(500, expired::add);
+
+        // Then
+        assertEquals(0, count);
+        assertTrue(expired.isEmpty());
+    }
+
+    @Test
+    void shouldCatchUpAfterLongPause() {
+        // Given
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, 0);
+        wheel.schedule("a", 150);
+        wheel.schedule("b", 650);
+        List<String> expired = new ArrayList<>();
+
+        // When
+        wheel.advance(10_000, expired::add);
+
+        // Then
+        assertEquals(2, expired.size());
+    }
+}
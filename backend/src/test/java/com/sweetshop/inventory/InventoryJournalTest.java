@@ -0,0 +1,73 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+class InventoryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldKeepChangesThatDoNotFitTheQueueAsAGap() throws Exception {
+        // Given: room for one queued change, and the writer not yet running
+        Sweet fudge = new Sweet("Fudge", "", new BigDecimal("2.50"), 10, new Category());
+        fudge.setId(1L);
+        SweetRepository sweetRepository = mock(SweetRepository.class);
+        when(sweetRepository.findAll()).thenReturn(List.of(fudge));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InventoryJournal journal = new InventoryJournal(sweetRepository, meterRegistry, directory.toString(),
+            JournalLog.RECORD_SIZE * 64, 1, 10, 1);
+
+        // When
+        journal.onStockChanged(new StockChangedEvent(1L, -2, StockChangedEvent.Cause.PURCHASE, 7L));
+        journal.onStockChanged(new StockChangedEvent(1L, -3, StockChangedEvent.Cause.PURCHASE, 7L));
+        journal.onStockChanged(new StockChangedEvent(1L, 5, StockChangedEvent.Cause.RESTOCK, null));
+        assertEquals(Set.of(1L), journal.replay().getGapSweetIds());
+        journal.open();
+        journal.shutdown();
+
+        // Then the totals still add up, but the journal knows it is incomplete
+        InventoryJournal reopened = new InventoryJournal(sweetRepository, meterRegistry, directory.toString(),
+            JournalLog.RECORD_SIZE * 64, 1, 10, 1);
+        reopened.open();
+        InventoryJournal.Replay replay = reopened.replay();
+        List<InventoryJournal.Entry> entries = reopened.read(0, 10);
+        reopened.shutdown();
+        assertEquals(10 - 2 - 3 + 5, replay.getStock().get(1L));
+        assertFalse(replay.isComplete());
+        assertEquals(Set.of(1L), replay.getGapSweetIds());
+        assertEquals(List.of(StockChangedEvent.Cause.OPENING_BALANCE, StockChangedEvent.Cause.PURCHASE, StockChangedEvent.Cause.GAP),
+            entries.stream().map(InventoryJournal.Entry::getCause).toList());
+        assertEquals(2, entries.get(2).getDelta());
+        assertEquals(2.0, meterRegistry.counter("sweetshop.journal.dropped").count());
+    }
+
+    @Test
+    void shouldReportACompleteJournalWhenNothingWasMissed() throws Exception {
+        // Given
+        SweetRepository sweetRepository = mock(SweetRepository.class);
+        InventoryJournal journal = new InventoryJournal(sweetRepository, new SimpleMeterRegistry(), directory.toString(),
+            JournalLog.RECORD_SIZE * 64, 16, 10, 1);
+        journal.open();
+
+        // When
+        journal.onStockChanged(new StockChangedEvent(2L, 4, StockChangedEvent.Cause.CREATED, null));
+        journal.shutdown();
+
+        // Then
+        InventoryJournal.Replay replay = journal.replay();
+        assertTrue(replay.isComplete());
+        assertEquals(4, replay.getStock().get(2L));
+    }
+}
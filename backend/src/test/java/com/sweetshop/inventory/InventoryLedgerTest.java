@@ -0,0 +1,155 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.InventoryCheckpoint;
+import com.sweetshop.repository.InventoryCheckpointRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private InventoryCheckpointRepository checkpointRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldReplayOnlyTheDeltasAfterTheCheckpointOnRecovery() {
+        // Given: three logged deltas, the first already in the database
+        try (LedgerLog log = new LedgerLog(directory, false)) {
+            log.append(1L, -3);
+            log.append(1L, -2);
+            log.append(2L, 5);
+        }
+        when(checkpointRepository.findById("inventory-ledger"))
+            .thenReturn(Optional.of(new InventoryCheckpoint("inventory-ledger", 1L)));
+
+        // When
+        ledger().recover();
+
+        // Then
+        List<Object[]> rows = flushedRows(1).get(0);
+        assertEquals(2, rows.size());
+        assertEquals(-2, deltaFor(rows, 1L));
+        assertEquals(5, deltaFor(rows, 2L));
+        assertEquals(List.of(3L), savedCheckpoints());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void shouldRetryTheDeltasOfAFailedFlush() {
+        // Given
+        InventoryLedger ledger = ledger();
+        stubLoad(1L, 10, 0L);
+        assertEquals(7, ledger.purchase(1L, 3));
+        when(jdbcTemplate.batchUpdate(eq(InventoryLedger.FLUSH_SQL), anyList()))
+            .thenThrow(new DataAccessResourceFailureException("Database is down"))
+            .thenReturn(new int[] { 1 });
+
+        // When
+        ledger.flush();
+        assertEquals(5, ledger.purchase(1L, 2));
+        ledger.flush();
+
+        // Then the second flush carries the failed delta as well, and only it is announced
+        List<List<Object[]>> flushes = flushedRows(2);
+        ArgumentCaptor<StockFlushedEvent> flushed = ArgumentCaptor.forClass(StockFlushedEvent.class);
+        verify(eventPublisher).publishEvent(flushed.capture());
+        assertEquals(Set.of(1L), flushed.getValue().getSweetIds());
+        assertEquals(-3, deltaFor(flushes.get(0), 1L));
+        assertEquals(-5, deltaFor(flushes.get(1), 1L));
+        assertEquals(List.of(2L), savedCheckpoints());
+        // The cell never reloaded
+        assertEquals(5, ledger.available(1L));
+        verify(jdbcTemplate, times(1)).query(eq(InventoryLedger.LOAD_SQL), any(ResultSetExtractor.class), any(), any());
+    }
+
+    @Test
+    void shouldHandStockBackToTheDatabaseAroundAnExternalWrite() {
+        // Given
+        InventoryLedger ledger = ledger();
+        stubLoad(1L, 10, 0L);
+        ledger.purchase(1L, 2);
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When: the pending purchase is flushed before the write, and a read inside the write reloads
+        ledger.beforeExternalWrite(1L);
+        stubLoad(1L, 8, 1L);
+        assertEquals(8, ledger.available(1L));
+        stubLoad(1L, 50, 1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Then the committed value replaces the cell loaded before the commit
+        assertEquals(-2, deltaFor(flushedRows(1).get(0), 1L));
+        assertEquals(50, ledger.available(1L));
+        assertEquals(48, ledger.purchase(1L, 2));
+    }
+
+    private InventoryLedger ledger() {
+        return new InventoryLedger(checkpointRepository, jdbcTemplate, transactionManager, eventPublisher, new LedgerLog(directory, false));
+    }
+
+    private void stubLoad(Long sweetId, long quantity, long checkpoint) {
+        when(jdbcTemplate.query(eq(InventoryLedger.LOAD_SQL), any(ResultSetExtractor.class), eq("inventory-ledger"), eq(sweetId)))
+            .thenReturn(new long[] { quantity, checkpoint });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Object[]>> flushedRows(int flushes) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(flushes)).batchUpdate(eq(InventoryLedger.FLUSH_SQL), rows.capture());
+        return rows.getAllValues();
+    }
+
+    private List<Long> savedCheckpoints() {
+        ArgumentCaptor<InventoryCheckpoint> saved = ArgumentCaptor.forClass(InventoryCheckpoint.class);
+        verify(checkpointRepository, atLeastOnce()).save(saved.capture());
+        return saved.getAllValues().stream().map(InventoryCheckpoint::getLastSequence).toList();
+    }
+
+    private static int deltaFor(List<Object[]> rows, Long sweetId) {
+        return rows.stream()
+            .filter(row -> sweetId.equals(row[2]))
+            .map(row -> (Integer) row[0])
+            .findFirst()
+            .orElseThrow();
+    }
+}
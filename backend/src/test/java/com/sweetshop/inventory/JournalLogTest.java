@@ -0,0 +1,66 @@
+package com.sweetshop.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class JournalLogTest {
+
+    @TempDir
+    Path directory;
+
+    private static StockChangedEvent event(long sweetId, int delta, StockChangedEvent.Cause cause) {
+        return new StockChangedEvent(sweetId, delta, cause, 7L, 1_700_000_000_000L);
+    }
+
+    @Test
+    void shouldRollSegmentsAndRecoverEndOffsetAfterReopen() throws Exception {
+        // Given: two records per segment
+        try (JournalLog log = new JournalLog(directory, JournalLog.RECORD_SIZE * 2)) {
+            log.open();
+            log.append(event(1L, 10, StockChangedEvent.Cause.CREATED));
+            log.append(event(1L, -3, StockChangedEvent.Cause.PURCHASE));
+            log.append(event(2L, 5, StockChangedEvent.Cause.RESTOCK));
+        }
+
+        // When
+        long end;
+        try (JournalLog log = new JournalLog(directory, JournalLog.RECORD_SIZE * 2)) {
+            end = log.open();
+            log.append(event(2L, -1, StockChangedEvent.Cause.CHECKOUT));
+        }
+
+        // Then
+        assertEquals(3, end);
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void shouldTailFromAnyOffset() {
+        // Given
+        List<long[]> entries = new ArrayList<>();
+        try (JournalLog log = new JournalLog(directory, JournalLog.RECORD_SIZE * 2)) {
+            log.open();
+            for (int i = 1; i <= 5; i++) {
+                log.append(event(i, i * 10, StockChangedEvent.Cause.RESTOCK));
+            }
+
+            // When
+            long next = log.read(1, 3, (offset, sweetId, delta, cause, userId, timestamp) ->
+                entries.add(new long[] { offset, sweetId, delta, cause, userId }));
+
+            // Then
+            assertEquals(4, next);
+            assertEquals(5, log.read(next, 100, (offset, sweetId, delta, cause, userId, timestamp) -> { }));
+        }
+        assertEquals(3, entries.size());
+        assertArrayEquals(new long[] { 1, 2, 20, StockChangedEvent.Cause.RESTOCK.getCode(), 7 }, entries.get(0));
+        assertArrayEquals(new long[] { 3, 4, 40, StockChangedEvent.Cause.RESTOCK.getCode(), 7 }, entries.get(2));
+    }
+}
@@ -0,0 +1,134 @@
+package com.sweetshop.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class LedgerLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayAppendedRecordsAfterReopen() {
+        // Given
+        try (LedgerLog log = new LedgerLog(directory, false)) {
+            log.append(1L, -3);
+            log.append(2L, 10);
+            log.roll();
+            log.append(1L, -1);
+        }
+
+        // When
+        List<long[]> records = new ArrayList<>();
+        long highest;
+        try (LedgerLog log = new LedgerLog(directory, false)) {
+            highest = log.replay((sequence, sweetId, delta) -> records.add(new long[] { sequence, sweetId, delta }));
+        }
+
+        // Then
+        assertEquals(3, highest);
+        assertEquals(3, records.size());
+        assertArrayEquals(new long[] { 3, 1, -1 }, records.get(2));
+    }
+
+    @Test
+    void shouldStopReplayAtTornRecord() throws Exception {
+        // Given
+        try (LedgerLog log = new LedgerLog(directory, false)) {
+            log.append(1L, -3);
+        }
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        // When
+        List<Long> sequences = new ArrayList<>();
+        try (LedgerLog log = new LedgerLog(directory, false)) {
+            log.replay((sequence, sweetId, delta) -> sequences.add(sequence));
+        }
+
+        // Then
+        assertEquals(List.of(1L), sequences);
+    }
+
+    @Test
+    void shouldDeleteOnlyFullyFlushedSegments() {
+        // Given
+        LedgerLog log = new LedgerLog(directory, false);
+        log.append(1L, -1);
+        log.append(1L, -1);
+        long cut = log.roll();
+        log.append(1L, -1);
+
+        // When
+        log.truncateThrough(cut);
+        log.close();
+
+        // Then
+        List<Long> remaining = new ArrayList<>();
+        new LedgerLog(directory, false).replay((sequence, sweetId, delta) -> remaining.add(sequence));
+        assertEquals(List.of(3L), remaining);
+    }
+
+    @Test
+    void shouldCoverConcurrentAppendsWithOneForce() throws Exception {
+        // Given
+        CountDownLatch forceStarted = new CountDownLatch(1);
+        CountDownLatch releaseForce = new CountDownLatch(1);
+        LedgerLog log = new LedgerLog(directory, true) {
+            @Override
+            void force(FileChannel target) throws IOException {
+                forceStarted.countDown();
+                try {
+                    releaseForce.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.force(target);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // When
+        List<Future<Long>> appends = new ArrayList<>();
+        try {
+            appends.add(executor.submit(() -> log.append(1L, -1)));
+            assertTrue(forceStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 15; i++) {
+                appends.add(executor.submit(() -> log.append(2L, -1)));
+            }
+            while (log.lastSequence() < 16) {
+                Thread.sleep(5);
+            }
+            releaseForce.countDown();
+            for (Future<Long> append : appends) {
+                append.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            log.close();
+        }
+
+        // Then
+        // The first append's force, then one for the fifteen written while it ran
+        assertEquals(2, log.forceCount());
+        List<Long> replayed = new ArrayList<>();
+        new LedgerLog(directory, false).replay((sequence, sweetId, delta) -> replayed.add(sequence));
+        assertEquals(16, replayed.size());
+    }
+}
@@ -0,0 +1,132 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@ExtendWith(MockitoExtension.class)
+class PurchasePipelineTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PurchasePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        // A long linger and one drainer, so purchases submitted together share a batch
+        pipeline = new PurchasePipeline(jdbcTemplate, transactionManager, new SimpleMeterRegistry(), 64, 200, 100, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void shouldCommitConcurrentPurchasesAsOneBatch() throws Exception {
+        // Given
+        when(jdbcTemplate.update(eq(PurchasePipeline.DECREMENT_SQL), any(Object[].class))).thenReturn(1);
+
+        // When
+        CompletableFuture<Void> first = pipeline.submit(7L, 1L, 2);
+        CompletableFuture<Void> second = pipeline.submit(8L, 1L, 3);
+        CompletableFuture<Void> third = pipeline.submit(9L, 1L, 1);
+        CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+        // Then: one decrement for the total, one INSERT for all three orders, one transaction
+        verify(jdbcTemplate).update(eq(PurchasePipeline.DECREMENT_SQL), eq(6), any(), eq(1L), eq(6));
+        ArgumentCaptor<String> insert = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).update(insert.capture(), any(Object[].class));
+        assertEquals(2, insert.getValue().split("UNION ALL").length - 1);
+        verify(jdbcTemplate, never()).queryForObject(any(String.class), eq(Integer.class), any(Object[].class));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldAdmitPurchasesGreedilyInArrivalOrderWhenTheBatchDoesNotFit() throws Exception {
+        // Given: 9 requested, 5 on the shelf
+        when(jdbcTemplate.update(eq(PurchasePipeline.DECREMENT_SQL), any(Object[].class))).thenReturn(0, 1);
+        when(jdbcTemplate.queryForObject(PurchasePipeline.LOCK_SQL, Integer.class, 1L)).thenReturn(5);
+
+        // When
+        CompletableFuture<Void> first = pipeline.submit(7L, 1L, 3);
+        CompletableFuture<Void> second = pipeline.submit(8L, 1L, 4);
+        CompletableFuture<Void> third = pipeline.submit(9L, 1L, 2);
+        CompletableFuture.allOf(first, third).get(5, TimeUnit.SECONDS);
+
+        // Then the first and third fit, the second is refused with what is left
+        ExecutionException refused = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientStockException.class, refused.getCause());
+        assertTrue(refused.getCause().getMessage().contains("Available: 0, Requested: 4"));
+        verify(jdbcTemplate).update(eq(PurchasePipeline.DECREMENT_SQL), eq(9), any(), eq(1L), eq(9));
+        verify(jdbcTemplate).update(eq(PurchasePipeline.DECREMENT_SQL), eq(5), any(), eq(1L), eq(5));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO orders"),
+            eq(7L), eq(3), eq(3), any(), eq(1L), eq(9L), eq(2), eq(2), any(), eq(1L));
+    }
+
+    @Test
+    void shouldFailEveryCallerOfABatchWhoseTransactionFails() {
+        // Given
+        DataAccessResourceFailureException down = new DataAccessResourceFailureException("Database is down");
+        when(jdbcTemplate.update(eq(PurchasePipeline.DECREMENT_SQL), any(Object[].class))).thenThrow(down);
+
+        // When
+        CompletableFuture<Void> first = pipeline.submit(7L, 1L, 1);
+        CompletableFuture<Void> second = pipeline.submit(8L, 1L, 1);
+
+        // Then
+        for (CompletableFuture<Void> result : List.of(first, second)) {
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertSame(down, failed.getCause());
+        }
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void shouldReportAMissingSweet() {
+        // Given
+        when(jdbcTemplate.update(eq(PurchasePipeline.DECREMENT_SQL), any(Object[].class))).thenReturn(0);
+        when(jdbcTemplate.queryForObject(PurchasePipeline.LOCK_SQL, Integer.class, 9L))
+            .thenThrow(new EmptyResultDataAccessException(1));
+
+        // When
+        CompletableFuture<Void> result = pipeline.submit(7L, 9L, 1);
+
+        // Then
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SweetNotFoundException.class, failed.getCause());
+    }
+
+    @Test
+    void shouldRejectAQuantityOutsideTheCapBeforeQueueing() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 1L, PurchasePipeline.MAX_QUANTITY + 1));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 1L, Integer.MAX_VALUE));
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+}
@@ -0,0 +1,73 @@
+package com.sweetshop.inventory;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class StockAlertsTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockAlerts stockAlerts;
+
+    @BeforeEach
+    void setUp() {
+        stockAlerts = new StockAlerts(sweetRepository, Optional.empty(), eventPublisher, 5);
+
+        Sweet fudge = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 8, new Category());
+        fudge.setId(1L);
+        Sweet toffee = new Sweet("Toffee", "Butter toffee", new BigDecimal("1.50"), 3, new Category());
+        toffee.setId(2L);
+        toffee.setLowStockThreshold(2);
+        when(sweetRepository.findAll()).thenReturn(List.of(fudge, toffee));
+        stockAlerts.resync();
+    }
+
+    @Test
+    void shouldClassifyEachSweetAgainstItsOwnThreshold() {
+        // Then
+        assertTrue(stockAlerts.lowStockIds().isEmpty());
+        assertTrue(stockAlerts.outOfStockIds().isEmpty());
+
+        // When
+        stockAlerts.thresholdChanged(2L, null);
+
+        // Then
+        assertEquals(List.of(2L), stockAlerts.lowStockIds());
+        assertEquals(Optional.of(StockAlerts.Level.LOW), stockAlerts.level(2L));
+    }
+
+    @Test
+    void shouldPublishOnlyWhenAStockChangeCrossesALevel() {
+        // When
+        stockAlerts.onStockChanged(new StockChangedEvent(1L, -2, StockChangedEvent.Cause.PURCHASE, 7L));
+        stockAlerts.onStockChanged(new StockChangedEvent(1L, -1, StockChangedEvent.Cause.PURCHASE, 7L));
+        stockAlerts.onStockChanged(new StockChangedEvent(1L, -5, StockChangedEvent.Cause.CHECKOUT, 7L));
+
+        // Then
+        ArgumentCaptor<StockAlertEvent> events = ArgumentCaptor.forClass(StockAlertEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(StockAlerts.Level.LOW, events.getAllValues().get(0).getCurrent());
+        assertEquals(StockAlerts.Level.OUT, events.getAllValues().get(1).getCurrent());
+        assertEquals(List.of(1L), stockAlerts.outOfStockIds());
+        assertTrue(stockAlerts.lowStockIds().isEmpty());
+        verify(sweetRepository, never()).findById(1L);
+    }
+}
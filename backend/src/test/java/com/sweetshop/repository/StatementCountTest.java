@@ -0,0 +1,137 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.dto.SweetCardDto;
+import com.sweetshop.dto.SweetSearchCriteria;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Role;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import static org.assertj.core.api.Assertions.assertThat;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements behind each list query, so an N+1 regression (a lazy
+ * association loaded once per row) fails the build.
+ *
+ * Runs against MySQL in a container, since some repository queries are MySQL-only;
+ * skipped where Docker is not available.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@ActiveProfiles("test")
+class StatementCountTest {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> sweetIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < 3; c++) {
+            Category category = entityManager.persist(new Category("Category " + c, ""));
+            for (int s = 0; s < 2; s++) {
+                Sweet sweet = entityManager.persist(new Sweet("Sweet " + c + s, "", new BigDecimal("2.00"), 5, category));
+                sweetIds.add(sweet.getId());
+            }
+            Role role = entityManager.persist(new Role("ROLE_" + c, ""));
+            User user = new User("user" + c + "@example.com", "password123", "User", "Number" + c);
+            user.getRoles().add(role);
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void shouldLoadSweetsWithTheirCategoriesInOneStatement() {
+        // When
+        long findAll = statements(() -> sweetRepository.findAll().forEach(s -> s.getCategory().getName()));
+        long available = statements(() -> sweetRepository.findAvailableCardsFirstPage(PageRequest.of(0, 10)));
+        long cards = statements(() -> sweetRepository.findCardsByIdIn(sweetIds));
+
+        // Then
+        assertThat(findAll).isEqualTo(1);
+        assertThat(available).isEqualTo(1);
+        assertThat(cards).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPageSearchIdsWithoutLoadingEntities() {
+        // Given
+        SweetSearchCriteria criteria = new SweetSearchCriteria();
+        criteria.setMinPrice(new BigDecimal("1.00"));
+
+        // When
+        long statements = statements(() -> {
+            List<Long> ids = sweetRepository.findIds(SweetSpecifications.matching(criteria),
+                PageRequest.of(0, 4, Sort.by("name", "id"))).getContent();
+            List<SweetCardDto> cards = sweetRepository.findCardsByIdIn(ids);
+            assertThat(cards).hasSize(4);
+        });
+
+        // Then: ids, total count, cards
+        assertThat(statements).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLoadUsersWithTheirRolesWithoutAQueryPerUser() {
+        // When
+        long findAll = statements(() -> userRepository.findAll().forEach(u -> u.getRoles().size()));
+        long paged = statements(() -> userRepository.findFirstPage(PageRequest.of(0, 10))
+            .forEach(u -> u.getRoles().size()));
+
+        // Then: a paged query fetches the roles in one batch instead of joining them
+        assertThat(findAll).isEqualTo(1);
+        assertThat(paged).isEqualTo(2);
+    }
+
+    private long statements(Runnable action) {
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
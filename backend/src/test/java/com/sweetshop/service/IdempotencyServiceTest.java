@@ -0,0 +1,128 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.IdempotencyRecord;
+import com.sweetshop.entity.User;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.exception.IdempotencyConflictException;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ObjectMapper objectMapper;
+    private IdempotencyService idempotencyService;
+    private User user;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        idempotencyService = new IdempotencyService(recordRepository, jdbcTemplate, objectMapper, 24, 60, 100);
+
+        user = new User("customer@example.com", "secret", "Jane", "Doe");
+        user.setId(7L);
+        executions = new AtomicInteger();
+    }
+
+    private ResponseEntity<?> purchase() {
+        executions.incrementAndGet();
+        return ResponseEntity.ok(ApiResponse.success("Sweet purchased successfully", "done"));
+    }
+
+    @Test
+    void shouldReplayRetryFromMemoryWithoutRunningActionAgain() {
+        // Given
+        PurchaseRequest request = new PurchaseRequest(2);
+        idempotencyService.execute("purchase:1", user, "key-1", request, this::purchase);
+
+        // When
+        ResponseEntity<?> retried = idempotencyService.execute("purchase:1", user, "key-1", request, this::purchase);
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(200, retried.getStatusCode().value());
+        assertEquals("true", retried.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertTrue(((String) retried.getBody()).contains("Sweet purchased successfully"));
+        verify(jdbcTemplate, times(1)).update(eq(IdempotencyService.CLAIM_SQL), any(), any(), any());
+        verifyNoInteractions(recordRepository);
+    }
+
+    @Test
+    void shouldReplayResponseStoredByAnotherNode() {
+        // Given
+        PurchaseRequest request = new PurchaseRequest(2);
+        idempotencyService.execute("purchase:1", user, "key-1", request, this::purchase);
+        ArgumentCaptor<Object> claimed = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq(IdempotencyService.CLAIM_SQL), any(), claimed.capture(), any());
+        ArgumentCaptor<Object> body = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(eq(IdempotencyService.COMPLETE_SQL), any(), body.capture(), any());
+
+        IdempotencyRecord record = new IdempotencyRecord("purchase:1:7:key-1", (String) claimed.getValue(), LocalDateTime.now());
+        record.setStatusCode(200);
+        record.setResponseBody((String) body.getValue());
+        IdempotencyService otherNode = new IdempotencyService(recordRepository, jdbcTemplate, objectMapper, 24, 60, 100);
+        when(jdbcTemplate.update(eq(IdempotencyService.CLAIM_SQL), any(), any(), any()))
+            .thenThrow(new DuplicateKeyException("duplicate"));
+        when(recordRepository.findById("purchase:1:7:key-1")).thenReturn(Optional.of(record));
+
+        // When
+        ResponseEntity<?> retried = otherNode.execute("purchase:1", user, "key-1", request, this::purchase);
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(body.getValue(), retried.getBody());
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        // Given
+        idempotencyService.execute("purchase:1", user, "key-1", new PurchaseRequest(2), this::purchase);
+
+        // When & Then
+        assertThrows(IdempotencyConflictException.class,
+            () -> idempotencyService.execute("purchase:1", user, "key-1", new PurchaseRequest(3), this::purchase));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenRequestFails() {
+        // Given
+        PurchaseRequest request = new PurchaseRequest(2);
+
+        // When
+        assertThrows(InsufficientStockException.class,
+            () -> idempotencyService.execute("purchase:1", user, "key-1", request, () -> {
+                throw new InsufficientStockException("Not enough stock available. Available: 1, Requested: 2");
+            }));
+        idempotencyService.execute("purchase:1", user, "key-1", request, this::purchase);
+
+        // Then
+        verify(jdbcTemplate).update(IdempotencyService.RELEASE_SQL, "purchase:1:7:key-1");
+        assertEquals(1, executions.get());
+    }
+}
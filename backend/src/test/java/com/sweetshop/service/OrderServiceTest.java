@@ -0,0 +1,133 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.User;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.dto.CheckoutItem;
+import com.sweetshop.dto.CheckoutResponse;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.inventory.StockReservations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private OrderService orderService;
+    private User user;
+    private Sweet fudge;
+    private Sweet ladoo;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(sweetRepository, jdbcTemplate, Optional.empty(), stockReservations, eventPublisher);
+
+        user = new User("customer@example.com", "secret", "Jane", "Doe");
+        user.setId(7L);
+
+        fudge = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, new Category());
+        fudge.setId(5L);
+        ladoo = new Sweet("Ladoo", "Besan ladoo", new BigDecimal("1.00"), 3, new Category());
+        ladoo.setId(2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCheckoutWholeCartWithOneBatchPerTable() {
+        // Given
+        List<CheckoutItem> items = Arrays.asList(
+            new CheckoutItem(5L, 2), new CheckoutItem(2L, 1), new CheckoutItem(5L, 1));
+        when(sweetRepository.findAllById(any())).thenReturn(Arrays.asList(fudge, ladoo));
+        when(jdbcTemplate.batchUpdate(eq(OrderService.DECREMENT_STOCK_SQL), anyList())).thenReturn(new int[] { 1, 1 });
+
+        // When
+        CheckoutResponse response = orderService.checkout(user, items);
+
+        // Then
+        ArgumentCaptor<List<Object[]>> decrements = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(OrderService.DECREMENT_STOCK_SQL), decrements.capture());
+        assertEquals(2L, decrements.getValue().get(0)[2]); // ascending id order
+        assertEquals(5L, decrements.getValue().get(1)[2]);
+        assertEquals(3, decrements.getValue().get(1)[0]); // repeated lines are merged
+
+        verify(jdbcTemplate).batchUpdate(eq(OrderService.INSERT_ORDER_SQL), anyList());
+        assertEquals(2, response.getOrders().size());
+        assertEquals(0, new BigDecimal("8.50").compareTo(response.getTotalAmount()));
+    }
+
+    @Test
+    void shouldFailWholeCheckoutWhenOneLineIsShort() {
+        // Given
+        List<CheckoutItem> items = Arrays.asList(new CheckoutItem(2L, 5), new CheckoutItem(5L, 1));
+        when(sweetRepository.findAllById(any())).thenReturn(Arrays.asList(fudge, ladoo));
+        when(jdbcTemplate.batchUpdate(eq(OrderService.DECREMENT_STOCK_SQL), anyList())).thenReturn(new int[] { 0, 1 });
+
+        // When & Then
+        assertThrows(InsufficientStockException.class, () -> orderService.checkout(user, items));
+        verify(jdbcTemplate, never()).batchUpdate(eq(OrderService.INSERT_ORDER_SQL), anyList());
+    }
+
+    @Test
+    void shouldFailCheckoutForUnknownSweet() {
+        // Given
+        List<CheckoutItem> items = Arrays.asList(new CheckoutItem(99L, 1));
+        when(sweetRepository.findAllById(any())).thenReturn(List.of());
+
+        // When & Then
+        assertThrows(SweetNotFoundException.class, () -> orderService.checkout(user, items));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void shouldRejectDuplicateLinesThatWouldOverflowBeforeTouchingStock() {
+        // Given: two lines at Integer.MAX_VALUE used to merge to -2 and raise stock
+        List<CheckoutItem> items = Arrays.asList(
+            new CheckoutItem(5L, Integer.MAX_VALUE), new CheckoutItem(5L, Integer.MAX_VALUE));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> orderService.checkout(user, items));
+        verifyNoInteractions(jdbcTemplate, sweetRepository);
+    }
+
+    @Test
+    void shouldRejectAMergedQuantityAboveTheCap() {
+        // Given: every line is in range, but together they pass the per-sweet cap
+        List<CheckoutItem> items = Collections.nCopies(
+            OrderService.MAX_SWEET_QUANTITY / CheckoutItem.MAX_QUANTITY + 1, new CheckoutItem(5L, CheckoutItem.MAX_QUANTITY));
+
+        // When
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class,
+            () -> orderService.checkout(user, items));
+
+        // Then
+        assertTrue(rejected.getMessage().contains(String.valueOf(OrderService.MAX_SWEET_QUANTITY)));
+        verifyNoInteractions(jdbcTemplate, sweetRepository);
+    }
+}
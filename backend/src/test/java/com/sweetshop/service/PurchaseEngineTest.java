@@ -0,0 +1,90 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.SweetNotFoundException;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class PurchaseEngineTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PurchaseEngine purchaseEngine;
+
+    @BeforeEach
+    void setUp() {
+        purchaseEngine = new PurchaseEngine(sweetRepository, transactionManager);
+    }
+
+    @Test
+    void shouldTakeStockWithOneGuardedUpdateAndNoSelect() {
+        // Given
+        when(sweetRepository.decrementQuantityIfAvailable(eq(1L), eq(3), any())).thenReturn(1);
+        when(sweetRepository.lastInsertId()).thenReturn(7L);
+
+        // When
+        int remaining = purchaseEngine.purchase(1L, 3);
+
+        // Then
+        assertEquals(7, remaining);
+        InOrder inOrder = inOrder(sweetRepository);
+        inOrder.verify(sweetRepository).decrementQuantityIfAvailable(eq(1L), eq(3), any());
+        inOrder.verify(sweetRepository).lastInsertId();
+        verify(sweetRepository, never()).findById(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void shouldReportTheStockLeftWhenTheUpdateIsRefused() {
+        // Given
+        Sweet sweet = new Sweet("Fudge", "", new BigDecimal("2.50"), 2, new Category());
+        sweet.setId(1L);
+        when(sweetRepository.decrementQuantityIfAvailable(eq(1L), eq(3), any())).thenReturn(0);
+        when(sweetRepository.findById(1L)).thenReturn(Optional.of(sweet));
+
+        // When
+        InsufficientStockException refused = assertThrows(InsufficientStockException.class,
+            () -> purchaseEngine.purchase(1L, 3));
+
+        // Then
+        assertTrue(refused.getMessage().contains("Available: 2, Requested: 3"));
+        verify(sweetRepository, times(1)).decrementQuantityIfAvailable(any(), anyInt(), any());
+        verify(sweetRepository, never()).lastInsertId();
+    }
+
+    @Test
+    void shouldReportAMissingSweet() {
+        // Given
+        when(sweetRepository.decrementQuantityIfAvailable(eq(9L), eq(1), any())).thenReturn(0);
+        when(sweetRepository.findById(9L)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThrows(SweetNotFoundException.class, () -> purchaseEngine.purchase(9L, 1));
+    }
+
+    @Test
+    void shouldRejectANonPositiveQuantityWithoutTouchingTheRow() {
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> purchaseEngine.purchase(1L, 0));
+        verifyNoInteractions(sweetRepository);
+    }
+}
@@ -0,0 +1,131 @@
+package com.sweetshop.service;
+
+import com.sweetshop.entity.Category;
+import com.sweetshop.entity.Sweet;
+import com.sweetshop.entity.User;
+import com.sweetshop.dto.CheckoutResponse;
+import com.sweetshop.dto.ReservationDto;
+import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.exception.ReservationNotFoundException;
+import com.sweetshop.inventory.StockReservations;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceTest {
+
+    @Mock
+    private SweetRepository sweetRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("customer@example.com", "secret", "Jane", "Doe");
+        user.setId(7L);
+
+        Sweet fudge = new Sweet("Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, new Category());
+        fudge.setId(5L);
+        when(sweetRepository.findById(5L)).thenReturn(Optional.of(fudge));
+    }
+
+    @Test
+    void shouldKeepAClaimedHoldThroughExpiryAndReleaseDuringCheckout() {
+        // Given a hold that is already past its time
+        StockReservations stockReservations = reservations(0);
+        ReservationService reservationService = new ReservationService(stockReservations, orderService);
+        ReservationDto reservation = reservationService.reserve(user, 5L, 3);
+        when(orderService.checkoutReserved(eq(user), anyList())).thenAnswer(invocation -> {
+            stockReservations.expireHolds();
+            assertFalse(stockReservations.release(reservation.getId()));
+            assertEquals(3, stockReservations.held(5L));
+            return new CheckoutResponse();
+        });
+
+        // When
+        reservationService.confirm(user, List.of(reservation.getId()));
+
+        // Then the stock was taken once, by the sale
+        assertEquals(0, stockReservations.held(5L));
+        assertEquals(7, stockReservations.available(5L));
+        assertTrue(stockReservations.find(reservation.getId()).isEmpty());
+    }
+
+    @Test
+    void shouldHandTheHoldBackWhenCheckoutFails() {
+        // Given
+        StockReservations stockReservations = reservations(10);
+        ReservationService reservationService = new ReservationService(stockReservations, orderService);
+        ReservationDto reservation = reservationService.reserve(user, 5L, 3);
+        when(orderService.checkoutReserved(eq(user), anyList()))
+            .thenThrow(new InsufficientStockException("Not enough stock"));
+
+        // When
+        assertThrows(InsufficientStockException.class,
+            () -> reservationService.confirm(user, List.of(reservation.getId())));
+
+        // Then the hold is live again and can be released
+        assertEquals(3, stockReservations.held(5L));
+        assertTrue(stockReservations.release(reservation.getId()));
+        assertEquals(10, stockReservations.available(5L));
+    }
+
+    @Test
+    void shouldReleaseAnExpiredHoldWhenCheckoutFails() {
+        // Given
+        StockReservations stockReservations = reservations(0);
+        ReservationService reservationService = new ReservationService(stockReservations, orderService);
+        ReservationDto reservation = reservationService.reserve(user, 5L, 3);
+        when(orderService.checkoutReserved(eq(user), anyList())).thenAnswer(invocation -> {
+            stockReservations.expireHolds();
+            throw new InsufficientStockException("Not enough stock");
+        });
+
+        // When
+        assertThrows(InsufficientStockException.class,
+            () -> reservationService.confirm(user, List.of(reservation.getId())));
+
+        // Then
+        assertEquals(0, stockReservations.held(5L));
+        assertEquals(10, stockReservations.available(5L));
+        assertTrue(stockReservations.find(reservation.getId()).isEmpty());
+    }
+
+    @Test
+    void shouldRefuseAHoldAlreadyClaimedByAnotherCheckout() {
+        // Given
+        StockReservations stockReservations = reservations(10);
+        ReservationService reservationService = new ReservationService(stockReservations, orderService);
+        ReservationDto reservation = reservationService.reserve(user, 5L, 3);
+        when(orderService.checkoutReserved(eq(user), anyList())).thenAnswer(invocation -> {
+            assertThrows(ReservationNotFoundException.class,
+                () -> reservationService.confirm(user, List.of(reservation.getId())));
+            return new CheckoutResponse();
+        });
+
+        // When
+        reservationService.confirm(user, List.of(reservation.getId()));
+
+        // Then
+        verify(orderService, times(1)).checkoutReserved(any(), anyList());
+        assertEquals(7, stockReservations.available(5L));
+    }
+
+    private StockReservations reservations(long ttlMinutes) {
+        return new StockReservations(sweetRepository, Optional.empty(), ttlMinutes, 1, 8, 60_000);
+    }
+}
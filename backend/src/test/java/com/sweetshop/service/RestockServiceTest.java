@@ -0,0 +1,120 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.BulkRestockResponse;
+import com.sweetshop.dto.RestockItem;
+import com.sweetshop.dto.RestockResult;
+import com.sweetshop.inventory.InventoryLedger;
+import com.sweetshop.inventory.StockReservations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@ExtendWith(MockitoExtension.class)
+class RestockServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RestockService restockService;
+
+    @BeforeEach
+    void setUp() {
+        restockService = new RestockService(jdbcTemplate, Optional.empty(), stockReservations, eventPublisher);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRestockWholeDeliveryInOneBatchAndReportEachLine() {
+        // Given
+        List<RestockItem> items = Arrays.asList(
+            new RestockItem(5L, 10),
+            new RestockItem(2L, 4),
+            new RestockItem(99L, 1),
+            new RestockItem(5L, 5),
+            new RestockItem(3L, 0));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+            .thenReturn(List.of(Map.entry(2L, 7), Map.entry(5L, 25)));
+
+        // When
+        BulkRestockResponse response = restockService.restock(items);
+
+        // Then
+        ArgumentCaptor<Collection<Map.Entry<Long, Integer>>> lines = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(RestockService.RESTOCK_SQL), lines.capture(),
+            eq(RestockService.CHUNK_SIZE), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(List.of(Map.entry(2L, 4), Map.entry(5L, 15), Map.entry(99L, 1)), new ArrayList<>(lines.getValue()));
+
+        List<RestockResult> results = response.getResults();
+        assertEquals(3, response.getRestocked());
+        assertEquals(2, response.getFailed());
+        assertEquals(RestockResult.Status.RESTOCKED, results.get(0).getStatus());
+        assertEquals(25, results.get(0).getNewQuantity());
+        assertEquals(RestockResult.Status.RESTOCKED, results.get(1).getStatus());
+        assertEquals(RestockResult.Status.NOT_FOUND, results.get(2).getStatus());
+        assertEquals(RestockResult.Status.RESTOCKED, results.get(3).getStatus());
+        assertEquals(RestockResult.Status.INVALID, results.get(4).getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldReportAnOversizedLineAsInvalidAndFlushTheLedgerOnce() {
+        // Given
+        InventoryLedger ledger = mock(InventoryLedger.class);
+        restockService = new RestockService(jdbcTemplate, Optional.of(ledger), stockReservations, eventPublisher);
+        List<RestockItem> items = Arrays.asList(
+            new RestockItem(5L, Integer.MAX_VALUE),
+            new RestockItem(5L, 10),
+            new RestockItem(6L, RestockService.MAX_LINE_QUANTITY));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+            .thenReturn(List.of(Map.entry(5L, 12), Map.entry(6L, RestockService.MAX_LINE_QUANTITY)));
+
+        // When
+        BulkRestockResponse response = restockService.restock(items);
+
+        // Then
+        assertEquals(RestockResult.Status.INVALID, response.getResults().get(0).getStatus());
+        assertEquals(12, response.getResults().get(1).getNewQuantity());
+        assertEquals(RestockResult.Status.RESTOCKED, response.getResults().get(2).getStatus());
+        verify(ledger).beforeExternalWrite(Set.of(5L, 6L));
+        verify(ledger, never()).beforeExternalWrite(anyLong());
+    }
+
+    @Test
+    void shouldRejectDeliveryAboveLineLimit() {
+        // Given
+        List<RestockItem> items = new ArrayList<>();
+        for (int i = 0; i <= RestockService.MAX_LINES; i++) {
+            items.add(new RestockItem((long) i, 1));
+        }
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> restockService.restock(items));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -4,15 +4,33 @@ import com.sweetshop.entity.Sweet;
 import com.sweetshop.entity.Category;
 import com.sweetshop.repository.SweetRepository;
 import com.sweetshop.repository.CategoryRepository;
+import com.sweetshop.catalog.CatalogAccelerators;
+import com.sweetshop.catalog.CatalogNearCache;
+import com.sweetshop.dto.SweetCardDto;
 import com.sweetshop.dto.SweetDto;
+import com.sweetshop.dto.CursorPage;
 import com.sweetshop.dto.SweetSearchCriteria;
 import com.sweetshop.exception.SweetNotFoundException;
 import com.sweetshop.exception.InsufficientStockException;
+import com.sweetshop.inventory.FlashSales;
+import com.sweetshop.inventory.StockAlerts;
+import com.sweetshop.inventory.StockReservations;
+import com.sweetshop.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 import java.math.BigDecimal;
@@ -29,13 +47,28 @@ class SweetServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
     
+    @Mock
+    private PlatformTransactionManager transactionManager;
     
+    @Mock
+    private StockReservations stockReservations;
+
+    @Mock
+    private FlashSales flashSales;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockAlerts stockAlerts;
     
     private SweetService sweetService;
 
     @BeforeEach
     void setUp() {
-        sweetService = new SweetService(sweetRepository, categoryRepository);
+        PurchaseEngine purchaseEngine = new PurchaseEngine(sweetRepository, transactionManager);
+        sweetService = new SweetService(sweetRepository, categoryRepository, purchaseEngine, Optional.empty(),
+            stockReservations, Optional.empty(), flashSales, eventPublisher, stockAlerts, CatalogAccelerators.none());
     }
 
     @Test
@@ -93,17 +126,42 @@ class SweetServiceTest {
         Sweet sweet = new Sweet("Sweet", "Description", new BigDecimal("5.99"), 10, new Category());
         sweet.setId(sweetId);
         
+        when(sweetRepository.decrementQuantityIfAvailable(eq(sweetId), eq(purchaseQuantity), any())).thenReturn(1);
+        when(sweetRepository.lastInsertId()).thenReturn(7L);
         when(sweetRepository.findById(sweetId)).thenReturn(Optional.of(sweet));
-        when(sweetRepository.save(sweet)).thenReturn(sweet);
 
         // When
         Sweet result = sweetService.purchaseSweet(sweetId, purchaseQuantity);
 
         // Then
         assertEquals(7, result.getQuantity()); // 10 - 3 = 7
-        
-        verify(sweetRepository).findById(sweetId);
-        verify(sweetRepository).save(sweet);
+        verify(sweetRepository, never()).save(any(Sweet.class));
+    }
+
+    @Test
+    void shouldAnswerAPurchaseFromTheNearCacheWithoutReadingTheRow() {
+        // Given
+        Sweet cached = new Sweet("Sweet", "Description", new BigDecimal("5.99"), 10, new Category());
+        cached.setId(1L);
+        CatalogNearCache nearCache = mock(CatalogNearCache.class);
+        CatalogAccelerators catalog = mock(CatalogAccelerators.class);
+        when(catalog.nearCache()).thenReturn(Optional.of(nearCache));
+        when(nearCache.sweet(1L)).thenReturn(Optional.of(cached));
+        when(sweetRepository.decrementQuantityIfAvailable(eq(1L), eq(3), any())).thenReturn(1);
+        when(sweetRepository.lastInsertId()).thenReturn(7L);
+        sweetService = new SweetService(sweetRepository, categoryRepository,
+            new PurchaseEngine(sweetRepository, transactionManager), Optional.empty(),
+            stockReservations, Optional.empty(), flashSales, eventPublisher, stockAlerts, catalog);
+
+        // When
+        Sweet result = sweetService.purchaseSweet(1L, 3);
+
+        // Then: one UPDATE and LAST_INSERT_ID(), no SELECT, and the shared copy left alone
+        assertEquals(7, result.getQuantity());
+        assertEquals("Sweet", result.getName());
+        assertNotSame(cached, result);
+        assertEquals(10, cached.getQuantity());
+        verify(sweetRepository, never()).findById(any());
     }
 
     @Test
@@ -114,6 +172,7 @@ class SweetServiceTest {
         Sweet sweet = new Sweet("Sweet", "Description", new BigDecimal("5.99"), 10, new Category());
         sweet.setId(sweetId);
         
+        when(sweetRepository.decrementQuantityIfAvailable(eq(sweetId), eq(purchaseQuantity), any())).thenReturn(0);
         when(sweetRepository.findById(sweetId)).thenReturn(Optional.of(sweet));
 
         // When & Then
@@ -121,10 +180,22 @@ class SweetServiceTest {
             sweetService.purchaseSweet(sweetId, purchaseQuantity);
         });
         
-        verify(sweetRepository).findById(sweetId);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
         verify(sweetRepository, never()).save(any(Sweet.class));
     }
 
+    @Test
+    void shouldRefuseToChangeASweetWhileItsFlashSaleIsRunning() {
+        // Given
+        when(flashSales.find(1L)).thenReturn(Optional.of(mock(FlashSales.FlashSale.class)));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> sweetService.deleteSweet(1L));
+        assertThrows(IllegalStateException.class, () -> sweetService.updateSweet(1L, new SweetDto()));
+        verify(sweetRepository, never()).findById(any());
+        verify(sweetRepository, never()).delete(any(Sweet.class));
+    }
+
     @Test
     void shouldRestockSweet() {
         // Given
@@ -153,25 +224,50 @@ class SweetServiceTest {
         criteria.setName("chocolate");
         criteria.setMinPrice(new BigDecimal("5.00"));
         criteria.setMaxPrice(new BigDecimal("10.00"));
+        Pageable pageable = SweetService.searchPage(0, 20, "price", "desc");
         
-        Sweet sweet1 = new Sweet("Dark Chocolate", "Premium", new BigDecimal("8.99"), 10, new Category());
-        Sweet sweet2 = new Sweet("Milk Chocolate", "Creamy", new BigDecimal("6.99"), 5, new Category());
+        SweetCardDto card1 = new SweetCardDto(1L, "Dark Chocolate", "Premium", new BigDecimal("8.99"), 10, 1L, "Chocolate", null);
+        SweetCardDto card2 = new SweetCardDto(2L, "Milk Chocolate", "Creamy", new BigDecimal("6.99"), 5, 1L, "Chocolate", null);
         
-        when(sweetRepository.findByNameContainingIgnoreCase("chocolate"))
-            .thenReturn(Arrays.asList(sweet1, sweet2));
+        when(sweetRepository.findIds(any(Specification.class), eq(pageable)))
+            .thenReturn(new PageImpl<>(Arrays.asList(1L, 2L), pageable, 2));
+        when(sweetRepository.findCardsByIdIn(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(card2, card1));
 
         // When
-        List<Sweet> result = sweetService.searchSweets(criteria);
+        Page<SweetCardDto> result = sweetService.searchSweets(criteria, pageable);
 
         // Then
-        assertEquals(2, result.size());
-        assertTrue(result.stream().allMatch(s -> 
-            s.getName().toLowerCase().contains("chocolate") &&
-            s.getPrice().compareTo(new BigDecimal("5.00")) >= 0 &&
-            s.getPrice().compareTo(new BigDecimal("10.00")) <= 0
-        ));
-        
-        verify(sweetRepository).findByNameContainingIgnoreCase("chocolate");
+        assertEquals(2, result.getTotalElements());
+        assertEquals(List.of(card1, card2), result.getContent());
+        assertEquals(Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")), pageable.getSort());
+        verify(sweetRepository).findIds(any(Specification.class), eq(pageable));
+        verify(sweetRepository, never()).findAll();
+    }
+
+    @Test
+    void shouldRejectUnknownSearchSortKey() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> SweetService.searchPage(0, 20, "password", "asc"));
+        assertEquals(100, SweetService.searchPage(0, 5000, "name", "asc").getPageSize());
+    }
+
+    @Test
+    void shouldSeekPastCursorForNextPageOfSweets() {
+        // Given
+        SweetCardDto fudge = new SweetCardDto(4L, "Fudge", "Chocolate fudge", new BigDecimal("2.50"), 10, 1L, "Chocolate", null);
+        SweetCardDto toffee = new SweetCardDto(2L, "Toffee", "Butter toffee", new BigDecimal("1.50"), 3, 1L, "Chocolate", null);
+        String cursor = KeysetCursor.encode("Caramel", 9L);
+        when(sweetRepository.findAvailableCardsAfter(eq("Caramel"), eq(9L), any(Pageable.class)))
+            .thenReturn(Arrays.asList(fudge, toffee));
+
+        // When
+        CursorPage<SweetCardDto> page = sweetService.findAvailableSweets(cursor, 1);
+
+        // Then
+        assertEquals(List.of(fudge), page.getItems());
+        assertEquals(KeysetCursor.encode("Fudge", 4L), page.getNextCursor());
+        verify(sweetRepository).findAvailableCardsAfter("Caramel", 9L, PageRequest.of(0, 2));
+        assertThrows(IllegalArgumentException.class, () -> sweetService.findAvailableSweets("not a cursor", 1));
     }
 
     @Test
@@ -0,0 +1,76 @@
+package com.sweetshop.util;
+
+import com.sweetshop.dto.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Pageable;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+class KeysetCursorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "Fudge", "", "2024-01-01T10:15:30", "Rocky Road: the sequel", "Crème brûlée ✓" })
+    void shouldRoundTripASortKeyAndId(String sortKey) {
+        // When
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(sortKey, 42L));
+
+        // Then
+        assertEquals(sortKey, cursor.getSortKey());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void shouldTreatAMissingTokenAsTheFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("   "));
+    }
+
+    // Not base64 twice, then "foobar", ":Fudge", "abc:Fudge" and an id too large for a long
+    @ParameterizedTest
+    @ValueSource(strings = { "not base64!", "%%%", "Zm9vYmFy", "OkZ1ZGdl", "YWJjOkZ1ZGdl", "OTk5OTk5OTk5OTk5OTk5OTk5OTk6RnVkZ2U" })
+    void shouldRejectAMalformedToken(String token) {
+        IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(token));
+        assertEquals("Invalid cursor", rejected.getMessage());
+    }
+
+    @Test
+    void shouldEncodeTokensSafeForAQueryString() {
+        // When
+        String token = KeysetCursor.encode("??>>~~", 7L);
+
+        // Then
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        assertEquals("7:??>>~~", new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldHandOutACursorOnlyWhenAnotherPageExists() {
+        // Given
+        Pageable probe = KeysetCursor.probe(2);
+
+        // When
+        CursorPage<String> full = KeysetCursor.page(List.of("a", "b", "c"), probe, s -> s, s -> (long) s.charAt(0));
+        CursorPage<String> last = KeysetCursor.page(List.of("d", "e"), probe, s -> s, s -> (long) s.charAt(0));
+
+        // Then
+        assertEquals(3, probe.getPageSize());
+        assertEquals(List.of("a", "b"), full.getItems());
+        KeysetCursor next = KeysetCursor.decode(full.getNextCursor());
+        assertEquals("b", next.getSortKey());
+        assertEquals((long) 'b', next.getId());
+        assertEquals(List.of("d", "e"), last.getItems());
+        assertNull(last.getNextCursor());
+        assertFalse(last.isHasMore());
+    }
+
+    @Test
+    void shouldClampTheLimit() {
+        assertEquals(KeysetCursor.MAX_LIMIT + 1, KeysetCursor.probe(10_000).getPageSize());
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.probe(0));
+    }
+}
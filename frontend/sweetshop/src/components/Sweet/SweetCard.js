@@ -17,6 +17,7 @@ import { Add, Remove, ShoppingCart } from '@mui/icons-material';
 import { useAuth } from '../../contexts/AuthContext';
 import { useCart } from '../../contexts/CartContext';
 import axios from 'axios';
+import { useIdempotencyKey } from '../../utils/idempotency';
 
 const SweetCard = ({ sweet, onPurchase }) => {
   const { user, isAdmin } = useAuth();
@@ -24,11 +25,17 @@ const SweetCard = ({ sweet, onPurchase }) => {
   const [quantity, setQuantity] = useState(1);
   const [loading, setLoading] = useState(false);
   const [snackbar, setSnackbar] = useState({ open: false, message: '', severity: 'success' });
+  const purchaseKey = useIdempotencyKey();
 
   const handlePurchase = async () => {
     setLoading(true);
     try {
-      await axios.post(`/api/sweets/${sweet.id}/purchase`, { quantity });
+      // A retried request with the same key is answered without buying twice
+      const request = { quantity };
+      await axios.post(`/api/sweets/${sweet.id}/purchase`, request, {
+        headers: { 'Idempotency-Key': purchaseKey.keyFor(request) },
+      });
+      purchaseKey.clear();
       setSnackbar({
         open: true,
         message: `Successfully purchased ${quantity} ${sweet.name}(s)!`,
@@ -75,11 +82,11 @@ const SweetCard = ({ sweet, onPurchase }) => {
         }}
       >
         {/* Image Section */}
-        {sweet.imageUrl && (
+        {(sweet.thumbnailUrl || sweet.imageUrl) && (
           <CardMedia
             component="img"
             height="180"
-            image={sweet.imageUrl}
+            image={sweet.thumbnailUrl || sweet.imageUrl}
             alt={sweet.name}
             sx={{ objectFit: 'cover', width: '100%' }}
           />
@@ -91,7 +98,7 @@ const SweetCard = ({ sweet, onPurchase }) => {
               {sweet.name}
             </Typography>
             <Chip
-              label={sweet.category?.name || "uncategorized"}
+              label={sweet.categoryName || sweet.category?.name || "uncategorized"}
               size="small"
               color="primary"
               variant="outlined"
@@ -110,7 +117,7 @@ const SweetCard = ({ sweet, onPurchase }) => {
               WebkitBoxOrient: 'vertical',
             }}
           >
-            {sweet.description}
+            {sweet.summary ?? sweet.description}
           </Typography>
           
           <Box display="flex" justifyContent="space-between" alignItems="center" mb={1}>
@@ -12,10 +12,12 @@ import {
   Select,
   Paper,
   InputAdornment,
+  Autocomplete,
 } from '@mui/material';
 import { Search } from '@mui/icons-material';
 import SweetCard from './SweetCard';
 import axios from 'axios';
+import { fetchAllPages } from '../../utils/pagination';
 
 const SweetList = ({ refreshTrigger }) => {
   const [sweets, setSweets] = useState([]);
@@ -23,6 +25,9 @@ const SweetList = ({ refreshTrigger }) => {
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
+  const [searchInput, setSearchInput] = useState('');
+  const [suggestions, setSuggestions] = useState([]);
+  const [categoryCounts, setCategoryCounts] = useState({});
   const [selectedCategory, setSelectedCategory] = useState('');
   const [minPrice, setMinPrice] = useState('');
   const [maxPrice, setMaxPrice] = useState('');
@@ -40,11 +45,43 @@ const SweetList = ({ refreshTrigger }) => {
     return () => clearTimeout(delayedSearch);
   }, [searchTerm, selectedCategory, minPrice, maxPrice]);
 
+  // Keystrokes only hit the in-memory suggester; the full search runs once a term is chosen
+  useEffect(() => {
+    if (!searchInput.trim()) {
+      setSuggestions([]);
+      setSearchTerm('');
+      return undefined;
+    }
+    const delayedSuggest = setTimeout(async () => {
+      try {
+        const response = await axios.get('/api/sweets/suggest', { params: { prefix: searchInput, limit: 8 } });
+        setSuggestions(response.data.data);
+      } catch (err) {
+        console.error('Error fetching suggestions:', err);
+      }
+    }, 150);
+
+    return () => clearTimeout(delayedSuggest);
+  }, [searchInput]);
+
+  const handleSuggestionChosen = (event, value) => {
+    if (!value) {
+      setSearchTerm('');
+    } else if (typeof value === 'string') {
+      setSearchTerm(value.trim());
+    } else if (value.type === 'CATEGORY') {
+      setSelectedCategory(value.id);
+      setSearchTerm('');
+      setSearchInput('');
+    } else {
+      setSearchTerm(value.text);
+    }
+  };
+
   const fetchSweets = async () => {
     try {
       setLoading(true);
-      const response = await axios.get('/api/sweets');
-      setSweets(response.data.data);
+      setSweets(await fetchAllPages('/api/sweets'));
       setError(null);
     } catch (err) {
       setError('Failed to fetch sweets');
@@ -56,8 +93,7 @@ const SweetList = ({ refreshTrigger }) => {
 
   const fetchCategories = async () => {
     try {
-      const response = await axios.get('/api/categories');
-      setCategories(response.data.data);
+      setCategories(await fetchAllPages('/api/categories'));
     } catch (err) {
       console.error('Error fetching categories:', err);
     }
@@ -73,9 +109,22 @@ const SweetList = ({ refreshTrigger }) => {
       if (minPrice) params.append('minPrice', minPrice);
       if (maxPrice) params.append('maxPrice', maxPrice);
       params.append('onlyAvailable', 'true');
+      params.append('size', '100');
+      params.append('facets', 'true');
 
-      const response = await axios.get(`/api/sweets/search?${params.toString()}`);
-      setSweets(response.data.data);
+      let response = await axios.get(`/api/sweets/search?${params.toString()}`);
+      if (searchTerm && response.data.data.content.length === 0) {
+        // Nothing contains the term as typed; fall back to the closest spellings
+        params.append('fuzzy', 'true');
+        params.append('sort', 'relevance');
+        response = await axios.get(`/api/sweets/search?${params.toString()}`);
+      }
+      setSweets(response.data.data.content);
+      const counts = {};
+      (response.data.data.facets?.categories || []).forEach((facet) => {
+        counts[facet.key] = facet.count;
+      });
+      setCategoryCounts(counts);
       setError(null);
     } catch (err) {
       setError('Failed to search sweets');
@@ -87,6 +136,7 @@ const SweetList = ({ refreshTrigger }) => {
 
   const clearFilters = () => {
     setSearchTerm('');
+    setSearchInput('');
     setSelectedCategory('');
     setMinPrice('');
     setMaxPrice('');
@@ -117,18 +167,39 @@ const SweetList = ({ refreshTrigger }) => {
         </Typography>
         <Grid container spacing={2} alignItems="center">
           <Grid item xs={12} sm={6} md={3}>
-            <TextField
-              fullWidth
-              label="Search sweets"
-              value={searchTerm}
-              onChange={(e) => setSearchTerm(e.target.value)}
-              InputProps={{
-                startAdornment: (
-                  <InputAdornment position="start">
-                    <Search />
-                  </InputAdornment>
-                ),
-              }}
+            <Autocomplete
+              freeSolo
+              options={suggestions}
+              filterOptions={(options) => options}
+              getOptionLabel={(option) => (typeof option === 'string' ? option : option.text)}
+              renderOption={(props, option) => (
+                <li {...props} key={`${option.type}-${option.id}`}>
+                  {option.text}
+                  {option.type === 'CATEGORY' && (
+                    <Typography variant="caption" color="text.secondary" sx={{ ml: 1 }}>
+                      category
+                    </Typography>
+                  )}
+                </li>
+              )}
+              inputValue={searchInput}
+              onInputChange={(event, value) => setSearchInput(value)}
+              onChange={handleSuggestionChosen}
+              renderInput={(params) => (
+                <TextField
+                  {...params}
+                  fullWidth
+                  label="Search sweets"
+                  InputProps={{
+                    ...params.InputProps,
+                    startAdornment: (
+                      <InputAdornment position="start">
+                        <Search />
+                      </InputAdornment>
+                    ),
+                  }}
+                />
+              )}
             />
           </Grid>
           <Grid item xs={12} sm={6} md={3}>
@@ -142,7 +213,7 @@ const SweetList = ({ refreshTrigger }) => {
                 <MenuItem value="">All Categories</MenuItem>
                 {categories.map((category) => (
                   <MenuItem key={category.id} value={category.id}>
-                    {category.name}
+                    {category.name} ({categoryCounts[category.id] || 0})
                   </MenuItem>
                 ))}
               </Select>
@@ -54,6 +54,8 @@ import {
   Refresh,
 } from '@mui/icons-material';
 import axios from 'axios';
+import { useIdempotencyKey } from '../utils/idempotency';
+import { fetchAllPages } from '../utils/pagination';
 
 const AdminPanel = () => {
   const [activeTab, setActiveTab] = useState(0);
@@ -81,6 +83,7 @@ const AdminPanel = () => {
     description: '',
   });
   const [restockQuantity, setRestockQuantity] = useState('');
+  const restockKey = useIdempotencyKey();
   
   const [snackbar, setSnackbar] = useState({ open: false, message: '', severity: 'success' });
 
@@ -91,14 +94,14 @@ const AdminPanel = () => {
   const fetchData = async () => {
     setLoading(true);
     try {
-      const [sweetsRes, categoriesRes, usersRes] = await Promise.all([
-        axios.get('/api/sweets'),
-        axios.get('/api/categories'),
-        axios.get('/api/users').catch(() => ({ data: { data: [] } })) // Handle if users endpoint fails
+      const [sweetsList, categoriesList, usersList] = await Promise.all([
+        fetchAllPages('/api/sweets'),
+        fetchAllPages('/api/categories'),
+        fetchAllPages('/api/users').catch(() => []) // Handle if users endpoint fails
       ]);
-      setSweets(sweetsRes.data.data || sweetsRes.data);
-      setCategories(categoriesRes.data.data || categoriesRes.data);
-      setUsers(usersRes.data.data || usersRes.data);
+      setSweets(sweetsList);
+      setCategories(categoriesList);
+      setUsers(usersList);
     } catch (error) {
       showSnackbar('Failed to fetch data: ' + (error.response?.data?.message || error.message), 'error');
     } finally {
@@ -149,9 +152,11 @@ const AdminPanel = () => {
 
   const handleRestock = async () => {
     try {
-      await axios.post(`/api/sweets/${restockDialog.sweet.id}/restock`, {
-        quantity: parseInt(restockQuantity),
+      const request = { quantity: parseInt(restockQuantity) };
+      await axios.post(`/api/sweets/${restockDialog.sweet.id}/restock`, request, {
+        headers: { 'Idempotency-Key': restockKey.keyFor({ sweetId: restockDialog.sweet.id, ...request }) },
       });
+      restockKey.clear();
       showSnackbar(`Successfully restocked ${restockDialog.sweet.name}!`);
       setRestockDialog({ open: false, sweet: null });
       setRestockQuantity('');
@@ -192,7 +197,17 @@ const AdminPanel = () => {
   };
 
   // Dialog Management Functions
-  const openSweetDialog = (mode, sweet = null) => {
+  const openSweetDialog = async (mode, sweet = null) => {
+    if (sweet) {
+      // List rows are cards; the form needs the full description and image
+      try {
+        const response = await axios.get(`/api/sweets/${sweet.id}`);
+        sweet = response.data.data;
+      } catch (error) {
+        showSnackbar('Failed to load sweet: ' + (error.response?.data?.message || error.message), 'error');
+        return;
+      }
+    }
     setSweetDialog({ open: true, mode, sweet });
     if (sweet) {
       setSweetForm({
@@ -360,13 +375,13 @@ const AdminPanel = () => {
                           {sweet.name}
                         </Typography>
                         <Typography variant="caption" color="text.secondary" noWrap>
-                          {sweet.description}
+                          {sweet.summary}
                         </Typography>
                       </Box>
                     </TableCell>
                     <TableCell>
                       <Chip 
-                        label={sweet.category?.name || 'N/A'} 
+                        label={sweet.categoryName || 'N/A'} 
                         size="small" 
                         color="primary" 
                         variant="outlined" 
@@ -484,7 +499,7 @@ const AdminPanel = () => {
                         <Category />
                       </Avatar>
                       <Typography variant="caption" color="text.secondary">
-                        {sweets.filter(s => s.category?.id === category.id).length} items
+                        {sweets.filter(s => s.categoryId === category.id).length} items
                       </Typography>
                     </Box>
                     
@@ -27,6 +27,7 @@ import {
 import { Link, useNavigate } from 'react-router-dom';
 import { useCart } from '../contexts/CartContext';
 import axios from 'axios';
+import { useIdempotencyKey } from '../utils/idempotency';
 
 const Cart = () => {
   const {
@@ -42,6 +43,7 @@ const Cart = () => {
   const [checkoutLoading, setCheckoutLoading] = useState(false);
   const [checkoutDialog, setCheckoutDialog] = useState(false);
   const [snackbar, setSnackbar] = useState({ open: false, message: '', severity: 'success' });
+  const checkoutKey = useIdempotencyKey();
 
   const handleQuantityChange = (itemId, newQuantity) => {
     if (newQuantity <= 0) {
@@ -54,13 +56,15 @@ const Cart = () => {
   const handleCheckout = async () => {
     setCheckoutLoading(true);
     try {
-      // Process each item in the cart
-      for (const item of cartItems) {
-        await axios.post(`/api/sweets/${item.id}/purchase`, {
-          quantity: item.quantity,
-        });
-      }
+      // Check out the whole cart in one request so it either succeeds or fails as a unit
+      const request = {
+        items: cartItems.map((item) => ({ sweetId: item.id, quantity: item.quantity })),
+      };
+      await axios.post('/api/orders/checkout', request, {
+        headers: { 'Idempotency-Key': checkoutKey.keyFor(request) },
+      });
 
+      checkoutKey.clear();
       clearCart();
       setCheckoutDialog(false);
       setSnackbar({
@@ -125,7 +129,7 @@ const Cart = () => {
                           {item.name}
                         </Typography>
                         <Typography variant="body2" color="text.secondary">
-                          {item.category.name}
+                          {item.categoryName || item.category?.name}
                         </Typography>
                         <Typography variant="body2" color="primary" sx={{ fontWeight: 600 }}>
                           ₹{item.price.toFixed(2)} each
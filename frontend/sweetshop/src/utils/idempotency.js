@@ -0,0 +1,42 @@
+import { useRef } from 'react';
+
+// crypto.randomUUID only exists in secure contexts (HTTPS or localhost)
+export const newIdempotencyKey = () => {
+  if (typeof crypto !== 'undefined' && typeof crypto.randomUUID === 'function') {
+    return crypto.randomUUID();
+  }
+  const bytes = new Uint8Array(16);
+  if (typeof crypto !== 'undefined' && typeof crypto.getRandomValues === 'function') {
+    crypto.getRandomValues(bytes);
+  } else {
+    for (let i = 0; i < bytes.length; i++) {
+      bytes[i] = Math.floor(Math.random() * 256);
+    }
+  }
+  // Version 4, RFC 4122 variant
+  bytes[6] = (bytes[6] & 0x0f) | 0x40;
+  bytes[8] = (bytes[8] & 0x3f) | 0x80;
+  const hex = Array.from(bytes, (b) => b.toString(16).padStart(2, '0')).join('');
+  return `${hex.slice(0, 8)}-${hex.slice(8, 12)}-${hex.slice(12, 16)}-${hex.slice(16, 20)}-${hex.slice(20)}`;
+};
+
+// One key per logical attempt: retrying or resubmitting the same request reuses its key,
+// so the server answers it without applying it twice. A different request gets a new key,
+// and clear() is called once the attempt has succeeded.
+export const useIdempotencyKey = () => {
+  const attempt = useRef(null);
+
+  const keyFor = (request) => {
+    const signature = JSON.stringify(request);
+    if (!attempt.current || attempt.current.signature !== signature) {
+      attempt.current = { signature, key: newIdempotencyKey() };
+    }
+    return attempt.current.key;
+  };
+
+  const clear = () => {
+    attempt.current = null;
+  };
+
+  return { keyFor, clear };
+};
@@ -0,0 +1,15 @@
+import axios from 'axios';
+
+// Cursor-paged listings return at most 100 items a request; follow nextCursor to the end
+export const fetchAllPages = async (url, limit = 100) => {
+  const items = [];
+  let cursor = null;
+  do {
+    const params = cursor ? { limit, cursor } : { limit };
+    const response = await axios.get(url, { params });
+    const page = response.data.data;
+    items.push(...page.items);
+    cursor = page.nextCursor;
+  } while (cursor);
+  return items;
+};